@@ -0,0 +1,57 @@
+package burp;
+
+/**
+ * Generates the cURL commands used as benchmark inputs.
+ *
+ * @author August Detlefsen
+ */
+public class BenchmarkCommands {
+
+    public static final String SMALL = "curl 'https://company.co/api/whoami' -H 'Authorization: Bearer XXX'";
+
+    /**
+     * A "Copy as cURL (bash)" command the way browser developer tools emit it
+     */
+    public static String devTools(int headerCount) {
+        StringBuilder builder = new StringBuilder(headerCount * 64 + 512);
+        builder.append("curl 'https://app.example.com/api/v2/graphql?operation=GetUser&locale=en-US' \\\n");
+        builder.append("  -H 'accept: application/json, text/plain, */*' \\\n");
+        builder.append("  -H 'accept-language: en-US,en;q=0.9' \\\n");
+        builder.append("  -H 'content-type: application/json' \\\n");
+        builder.append("  -b 'session=0123456789abcdef; theme=dark; _ga=GA1.2.1234567890.1234567890' \\\n");
+        for (int i = 0; i < headerCount; i++) {
+            builder.append("  -H 'x-custom-header-").append(i).append(": value-").append(i).append("-abcdefghijklmnop' \\\n");
+        }
+        builder.append("  --data-raw $'{\"operationName\":\"GetUser\",\"variables\":{\"id\":\"1234\"},")
+               .append("\"query\":\"query GetUser($id: ID!){\\\\n  user(id: $id){\\\\n    id\\\\n  }\\\\n}\"}' \\\n");
+        builder.append("  --compressed");
+        return builder.toString();
+    }
+
+    /**
+     * A command carrying a single-quoted <code>--data-raw</code> body of roughly <code>bodySize</code> characters
+     */
+    public static String largeBody(int bodySize) {
+        StringBuilder builder = new StringBuilder(bodySize + 256);
+        builder.append("curl 'https://example.com/api/upload' -H 'Content-Type: application/json' --data-raw '{\"data\":\"");
+        String chunk = "abcdefghijklmnopqrstuvwxyz0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ\\n";
+        while (builder.length() < bodySize) {
+            builder.append(chunk);
+        }
+        builder.append("\"}'");
+        return builder.toString();
+    }
+
+    /**
+     * Returns the command for a named input size
+     */
+    public static String forInput(String input) {
+        return switch (input) {
+            case "small" -> SMALL;
+            case "devtools" -> devTools(40);
+            case "body1mb" -> largeBody(1024 * 1024);
+            case "body50mb" -> largeBody(50 * 1024 * 1024);
+            default -> throw new IllegalArgumentException("Unknown benchmark input: " + input);
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package burp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures CurlParser on its own, from clipboard text to CurlRequest.
+ *
+ * @author August Detlefsen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CurlParserBenchmark {
+
+    @Param({"small", "devtools", "body1mb", "body50mb"})
+    public String input;
+
+    private String command;
+    private CurlParser parser;
+
+    @Setup
+    public void setUp() {
+        command = BenchmarkCommands.forInput(input);
+        StubMontoya.install();
+        parser = new CurlParser(CurlParserConfig.DEFAULT.withLog(new MontoyaLogSink(StubMontoya.api().logging())));
+    }
+
+    @Benchmark
+    public CurlParser.CurlRequest parseCurlCommand() {
+        return parser.parse(command);
+    }
+
+    @Benchmark
+    public Object tokenize() {
+        return CurlLexer.tokenize(command);
+    }
+}
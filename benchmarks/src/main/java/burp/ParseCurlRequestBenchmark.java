@@ -0,0 +1,50 @@
+package burp;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing plus building the Burp HttpRequest, against the stand-in
+ * Montoya factory. The parse cache is bypassed, since every invocation pastes
+ * the same command and would otherwise only measure a lookup.
+ *
+ * @author August Detlefsen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParseCurlRequestBenchmark {
+
+    @Param({"small", "devtools", "body1mb", "body50mb"})
+    public String input;
+
+    private String command;
+    private MenuItemsProvider provider;
+
+    @Setup
+    public void setUp() {
+        command = BenchmarkCommands.forInput(input);
+        StubMontoya.install();
+        provider = new MenuItemsProvider(StubMontoya.api());
+    }
+
+    @Benchmark
+    public HttpRequest parseCurlRequest() {
+        return provider.parseCurlRequestUncached(command);
+    }
+}
@@ -0,0 +1,170 @@
+package burp;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+import burp.api.montoya.logging.Logging;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Stand-in for the parts of the Montoya API the extension touches, so request
+ * construction can be measured outside Burp.
+ *
+ * Requests are held as raw bytes and every <code>with*</code> call copies the
+ * whole message, which is what Burp's immutable HttpRequest does as well.
+ *
+ * @author August Detlefsen
+ */
+public class StubMontoya {
+
+    private static final Logging LOGGING = proxy(Logging.class, (p, method, args) -> null);
+
+    private static final MontoyaApi API = proxy(MontoyaApi.class, (p, method, args) -> {
+        if (method.getName().equals("logging")) return LOGGING;
+        throw new UnsupportedOperationException(method.getName());
+    });
+
+    /**
+     * Installs the stand-in object factory used by the static Montoya constructors
+     */
+    public static void install() {
+        ObjectFactoryLocator.FACTORY = proxy(MontoyaObjectFactory.class, (p, method, args) -> {
+            switch (method.getName()) {
+                case "httpService":
+                    if (args.length == 1) return service((String) args[0]);
+                    break;
+                case "byteArray":
+                    if (args[0] instanceof byte[] bytes) return byteArray(bytes);
+                    if (args[0] instanceof String string) return byteArray(string.getBytes(StandardCharsets.ISO_8859_1));
+                    break;
+                case "byteArrayOfLength":
+                    return byteArray(new byte[(Integer) args[0]]);
+                case "httpRequestFromUrl":
+                    return fromUrl((String) args[0]);
+                case "httpRequest":
+                    if (args.length == 2 && args[1] instanceof ByteArray bytes) {
+                        return request((HttpService) args[0], bytes.getBytes());
+                    }
+                    if (args.length == 2 && args[1] instanceof String string) {
+                        return request((HttpService) args[0], string.getBytes(StandardCharsets.ISO_8859_1));
+                    }
+                    break;
+                default:
+            }
+            throw new UnsupportedOperationException(method.toString());
+        });
+    }
+
+    public static MontoyaApi api() {
+        return API;
+    }
+
+    static HttpService service(String url) {
+        URI uri = URI.create(url);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() != -1 ? uri.getPort() : secure ? 443 : 80;
+        String host = uri.getHost();
+        return proxy(HttpService.class, (p, method, args) -> switch (method.getName()) {
+            case "host", "ipAddress" -> host;
+            case "port" -> port;
+            case "secure" -> secure;
+            case "toString" -> (secure ? "https://" : "http://") + host + ":" + port;
+            case "hashCode" -> System.identityHashCode(p);
+            case "equals" -> p == args[0];
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    static ByteArray byteArray(byte[] bytes) {
+        return proxy(ByteArray.class, (p, method, args) -> switch (method.getName()) {
+            case "getBytes" -> bytes;
+            case "length" -> bytes.length;
+            case "setBytes" -> {
+                if (!(args[1] instanceof byte[] data)) throw new UnsupportedOperationException(method.toString());
+                System.arraycopy(data, 0, bytes, (Integer) args[0], data.length);
+                yield null;
+            }
+            case "toString" -> new String(bytes, StandardCharsets.ISO_8859_1);
+            case "hashCode" -> System.identityHashCode(p);
+            case "equals" -> p == args[0];
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    static HttpRequest fromUrl(String url) {
+        URI uri = URI.create(url);
+        String target = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null) target += "?" + uri.getRawQuery();
+        String raw = "GET " + target + " HTTP/1.1\r\nHost: " + uri.getHost() + "\r\n\r\n";
+        return request(service(url), raw.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    static HttpRequest request(HttpService service, byte[] raw) {
+        return proxy(HttpRequest.class, (p, method, args) -> switch (method.getName()) {
+            case "httpService" -> service;
+            case "toByteArray" -> byteArray(raw);
+            case "toString" -> new String(raw, StandardCharsets.ISO_8859_1);
+            case "method" -> text(raw).substring(0, text(raw).indexOf(' '));
+            case "withService" -> request((HttpService) args[0], raw);
+            case "withMethod" -> {
+                String message = text(raw);
+                yield request(service, bytes(args[0] + message.substring(message.indexOf(' '))));
+            }
+            case "withHeader" -> {
+                if (args.length != 2) throw new UnsupportedOperationException(method.toString());
+                yield request(service, withHeader(raw, (String) args[0], (String) args[1]));
+            }
+            case "withBody" -> {
+                byte[] body = args[0] instanceof ByteArray bytes ? bytes.getBytes() : bytes((String) args[0]);
+                yield request(service, withBody(raw, body));
+            }
+            case "hashCode" -> System.identityHashCode(p);
+            case "equals" -> p == args[0];
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static byte[] withHeader(byte[] raw, String name, String value) {
+        String message = text(raw);
+        int headersEnd = message.indexOf("\r\n\r\n");
+        String head = message.substring(0, headersEnd);
+        String tail = message.substring(headersEnd);
+
+        String line = name + ": " + value;
+        int start = head.toLowerCase().indexOf("\r\n" + name.toLowerCase() + ":");
+        if (start == -1) return bytes(head + "\r\n" + line + tail);
+
+        int end = head.indexOf("\r\n", start + 2);
+        if (end == -1) end = head.length();
+        return bytes(head.substring(0, start + 2) + line + head.substring(end) + tail);
+    }
+
+    private static byte[] withBody(byte[] raw, byte[] body) {
+        byte[] head = withHeader(raw, "Content-Length", String.valueOf(body.length));
+        int headersEnd = text(head).indexOf("\r\n\r\n") + 4;
+        byte[] output = Arrays.copyOf(head, headersEnd + body.length);
+        System.arraycopy(body, 0, output, headersEnd, body.length);
+        return output;
+    }
+
+    private static String text(byte[] raw) {
+        return new String(raw, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StubMontoya.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,437 @@
+package burp;
+
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Command line front end for the parser: converts files of cURL commands into
+ * raw HTTP requests or JSON Lines without starting Burp.
+ *
+ * Commands are streamed from the input and parsed on a pool of threads. At
+ * most a few commands per thread are in flight at once and results are
+ * written in input order, so memory use does not grow with the input size.
+ *
+ * @author August Detlefsen
+ */
+public class CurlCli {
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILURES = 1;
+    public static final int EXIT_USAGE = 2;
+
+    /**
+     * Commands in flight per parser thread
+     */
+    private static final int WINDOW_PER_THREAD = 4;
+
+    /**
+     * Decodes bodies for JSON output, failing on bytes that are not UTF-8.
+     * One per parser thread, since decoders hold state.
+     */
+    private static final ThreadLocal<CharsetDecoder> UTF_8_STRICT = ThreadLocal.withInitial(() -> StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT));
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: curl2http [options] [file|directory|-]...",
+            "Converts cURL commands to HTTP requests. Reads stdin when no input is given.",
+            "",
+            "  --format raw|jsonl  output format (default jsonl)",
+            "  --output PATH       file for jsonl output, or directory for raw .http files (required for raw)",
+            "  --threads N         parser threads (default " + BulkParser.defaultThreads() + ")",
+            "  --dedup             skip requests identical to an earlier one",
+            "  --help              show this help");
+
+    enum Format { RAW, JSONL }
+
+    private final Format format;
+    private final Path output;
+    private final int threads;
+    private final List<String> inputs;
+    private final PrintStream err;
+    private final RequestDeduplicator deduplicator;
+
+    private final CurlParser parser = new CurlParser(CurlParserConfig.DEFAULT.withLimits(ParseLimits.BULK));
+
+    /**
+     * Requests written so far; only touched by the writing thread
+     */
+    private int written;
+
+    /**
+     * @param dedup true to skip repeats of an earlier request
+     */
+    CurlCli(Format format, Path output, int threads, List<String> inputs, PrintStream err, boolean dedup) {
+        this.format = format;
+        this.output = output;
+        this.threads = threads;
+        this.inputs = inputs;
+        this.err = err;
+        this.deduplicator = dedup ? new RequestDeduplicator() : null;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.in, System.out, System.err));
+    }
+
+    /**
+     * Runs the CLI and returns its exit code
+     */
+    static int run(String[] args, InputStream stdin, PrintStream stdout, PrintStream stderr) {
+        Format format = Format.JSONL;
+        Path output = null;
+        int threads = BulkParser.defaultThreads();
+        boolean dedup = false;
+        List<String> inputs = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--format":
+                        format = Format.valueOf(value(args, ++i).toUpperCase());
+                        break;
+                    case "--output":
+                        output = Paths.get(value(args, ++i));
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value(args, ++i));
+                        if (threads < 1) throw new IllegalArgumentException("--threads must be at least 1");
+                        break;
+                    case "--dedup":
+                        dedup = true;
+                        break;
+                    case "-h":
+                    case "--help":
+                        stdout.println(USAGE);
+                        return EXIT_OK;
+                    default:
+                        if (arg.startsWith("--")) throw new IllegalArgumentException("Unknown option " + arg);
+                        inputs.add(arg);
+                }
+            }
+            if (format == Format.RAW && output == null) {
+                throw new IllegalArgumentException("--format raw needs an --output directory");
+            }
+        } catch (IllegalArgumentException e) {
+            stderr.println(e.getMessage());
+            stderr.println(USAGE);
+            return EXIT_USAGE;
+        }
+        if (inputs.isEmpty()) inputs.add("-");
+
+        CurlCli cli = new CurlCli(format, output, threads, inputs, stderr, dedup);
+        try {
+            return cli.convert(stdin, stdout) == 0 ? EXIT_OK : EXIT_FAILURES;
+        } catch (IOException | CurlParseException e) {
+            stderr.println("Error: " + e.getMessage());
+            return EXIT_FAILURES;
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+
+    /**
+     * Converts every input and returns the number of commands that failed
+     */
+    int convert(InputStream stdin, PrintStream stdout) throws IOException {
+        if (format == Format.RAW) Files.createDirectories(output);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Paste cURL parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<Converted>> window = new ArrayDeque<>();
+        int maxInFlight = threads * WINDOW_PER_THREAD;
+        int index = 0;
+        int failures = 0;
+        written = 0;
+
+        try (Writer jsonl = openJsonl(stdout)) {
+            for (Path file : expand(inputs)) {
+                try (CommandReader reader = new CommandReader(open(file, stdin))) {
+                    String command;
+                    while ((command = reader.next()) != null) {
+                        int commandIndex = index++;
+                        String text = command;
+                        window.add(pool.submit(() -> convert(commandIndex, text)));
+
+                        if (window.size() >= maxInFlight) failures += write(window.poll(), jsonl);
+                    }
+                }
+            }
+            while (!window.isEmpty()) failures += write(window.poll(), jsonl);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int duplicates = index - failures - written;
+        err.println("Converted " + written + " of " + index + " cURL commands, " + failures + " failed"
+                + (duplicates > 0 ? ", " + duplicates + " duplicates skipped" : ""));
+        return failures;
+    }
+
+    /**
+     * Parses and renders one command. Runs on a pool thread.
+     */
+    private Converted convert(int index, String command) {
+        try {
+            if (!CurlParser.isCurlCommand(command)) return new Converted(index, null, "not a cURL command", 0);
+
+            CurlParser.CurlRequest request = parser.parse(command);
+            if (request == null) return new Converted(index, null, "not a valid cURL command", 0);
+
+            long hash = deduplicator != null ? RequestHasher.hash(request) : 0;
+            byte[] rendered = format == Format.RAW
+                    ? request.toRawRequest()
+                    : toJson(index, request).getBytes(StandardCharsets.UTF_8);
+            return new Converted(index, rendered, null, hash);
+        } catch (IOException | RuntimeException e) {
+            return new Converted(index, null, String.valueOf(e), 0);
+        }
+    }
+
+    /**
+     * Waits for one result and writes it out. Returns 1 if it was a failure.
+     */
+    private int write(Future<Converted> future, Writer jsonl) throws IOException {
+        Converted converted;
+        try {
+            converted = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+
+        if (converted.error != null) {
+            err.println("Command " + (converted.index + 1) + ": " + converted.error);
+            if (format == Format.JSONL) {
+                StringBuilder line = new StringBuilder("{\"index\":").append(converted.index).append(",\"error\":");
+                appendJsonString(line, converted.error);
+                jsonl.write(line.append("}\n").toString());
+            }
+            return 1;
+        }
+
+        //decided here, in input order, so the first of each set of duplicates is the one kept
+        if (deduplicator != null && !deduplicator.add(converted.hash)) return 0;
+
+        written++;
+        if (format == Format.RAW) {
+            Files.write(output.resolve(String.format("request-%06d.http", converted.index + 1)), converted.output);
+        } else {
+            jsonl.write(new String(converted.output, StandardCharsets.UTF_8));
+        }
+        return 0;
+    }
+
+    private Writer openJsonl(OutputStream stdout) throws IOException {
+        if (format == Format.RAW) return Writer.nullWriter();
+
+        OutputStream stream = output != null ? Files.newOutputStream(output) : new NonClosingStream(stdout);
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+    }
+
+    private static Reader open(Path file, InputStream stdin) throws IOException {
+        if (file == null) return new InputStreamReader(new NonClosingInputStream(stdin), StandardCharsets.UTF_8);
+        return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Resolves the inputs to files, in order. Directories contribute their
+     * regular files sorted by name; null stands for stdin.
+     */
+    private static List<Path> expand(List<String> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String input : inputs) {
+            if (input.equals("-")) {
+                files.add(null);
+                continue;
+            }
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    files.addAll(walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    static String toJson(int index, CurlParser.CurlRequest request) throws IOException {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"index\":").append(index);
+        json.append(",\"method\":");
+        appendJsonString(json, request.getMethod());
+        json.append(",\"url\":");
+        appendJsonString(json, request.getUrl().getSource());
+        json.append(",\"headers\":[");
+        List<CurlHeader> headers = request.getHeaders();
+        for (int i = 0; i < headers.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"name\":");
+            appendJsonString(json, headers.get(i).name());
+            json.append(",\"value\":");
+            appendJsonString(json, headers.get(i).value());
+            json.append('}');
+        }
+        json.append(']');
+        if (!request.getRequestBody().isEmpty()) {
+            appendJsonBody(json, request.getRequestBody(), "body", "bodyEncoding");
+        }
+        if (request.getBodyFile() != null) {
+            json.append(",\"bodyFile\":");
+            appendJsonString(json, request.getBodyFile());
+        }
+        List<DataPart> data = request.getDataParts();
+        if (!data.isEmpty()) {
+            //the body in argument order; parts are joined with '&' unless marked otherwise
+            json.append(",\"data\":[");
+            for (int i = 0; i < data.size(); i++) {
+                if (i > 0) json.append(',');
+                DataPart part = data.get(i);
+                if (part.getBody() != null) {
+                    json.append('{');
+                    appendJsonBody(json, part.getBody(), "body", "encoding");
+                } else {
+                    json.append("{\"file\":");
+                    appendJsonString(json, part.getFile());
+                    json.append(",\"kind\":");
+                    appendJsonString(json, part.getKind().name());
+                    if (part.getName() != null) {
+                        json.append(",\"name\":");
+                        appendJsonString(json, part.getName());
+                    }
+                }
+                if (i > 0 && !part.isSeparated()) json.append(",\"separated\":false");
+                json.append('}');
+            }
+            json.append(']');
+        }
+        return json.append("}\n").toString();
+    }
+
+    /**
+     * Appends a body as <code>"name":value</code>. A body that is not valid
+     * UTF-8, such as one holding raw bytes, is written base64-encoded and
+     * followed by <code>"encodingName":"base64"</code>, since a JSON string
+     * cannot carry its bytes.
+     */
+    static void appendJsonBody(StringBuilder json, RequestBody body, String name, String encodingName) throws IOException {
+        byte[] bytes = new byte[(int) body.length()];
+        body.copyTo(bytes, 0);
+
+        if (json.charAt(json.length() - 1) != '{') json.append(',');
+        json.append('"').append(name).append("\":");
+        try {
+            appendJsonString(json, UTF_8_STRICT.get().decode(ByteBuffer.wrap(bytes)).toString());
+        } catch (CharacterCodingException e) {
+            json.append('"').append(Base64.getEncoder().encodeToString(bytes)).append('"');
+            json.append(",\"").append(encodingName).append("\":\"base64\"");
+        }
+    }
+
+    static void appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    private static class Converted {
+        final int index;
+        final byte[] output;
+        final String error;
+        final long hash;
+
+        Converted(int index, byte[] output, String error, long hash) {
+            this.index = index;
+            this.output = output;
+            this.error = error;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Keeps stdout open when the output writer is closed
+     */
+    private static class NonClosingStream extends FilterOutputStream {
+        NonClosingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * Keeps stdin open when a reader over it is closed
+     */
+    private static class NonClosingInputStream extends FilterInputStream {
+        NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+            //noop
+        }
+    }
+}
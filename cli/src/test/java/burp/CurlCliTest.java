@@ -0,0 +1,79 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CurlCliTest {
+
+    @Test
+    public void jsonlFromStdin() {
+        String input = "curl -H 'X-A: 1' https://a.co/p?q=1\nnot curl\ncurl -d 'x=\"y\"' b.co";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int exit = run(input, out, new String[0]);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(CurlCli.EXIT_FAILURES, exit);
+        assertEquals(3, lines.length);
+        assertEquals("{\"index\":0,\"method\":\"GET\",\"url\":\"https://a.co/p?q=1\",\"headers\":[{\"name\":\"X-A\",\"value\":\"1\"}]}", lines[0]);
+        assertEquals("{\"index\":1,\"error\":\"not a cURL command\"}", lines[1]);
+        assertEquals("{\"index\":2,\"method\":\"POST\",\"url\":\"http://b.co\",\"headers\":[],\"body\":\"x=\\\"y\\\"\"}", lines[2]);
+    }
+
+    @Test
+    public void binaryBodyIsBase64() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int exit = run("curl --data-binary $'a\\xff\\x00' https://a.co/", out, new String[0]);
+
+        assertEquals(CurlCli.EXIT_OK, exit);
+        assertEquals("{\"index\":0,\"method\":\"POST\",\"url\":\"https://a.co/\",\"headers\":[],\"body\":\"Yf8A\",\"bodyEncoding\":\"base64\"}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void rawFilesFromDirectory(@TempDir Path dir) throws Exception {
+        Path in = Files.createDirectory(dir.resolve("in"));
+        Files.writeString(in.resolve("a.txt"), "curl https://a.co/one\ncurl https://a.co/two\n");
+        Path out = dir.resolve("out");
+
+        int exit = run("", new ByteArrayOutputStream(), new String[]{"--format", "raw", "--output", out.toString(), in.toString()});
+
+        assertEquals(CurlCli.EXIT_OK, exit);
+        assertTrue(Files.readString(out.resolve("request-000001.http")).startsWith("GET /one HTTP/1.1\r\n"));
+        assertTrue(Files.readString(out.resolve("request-000002.http")).startsWith("GET /two HTTP/1.1\r\n"));
+    }
+
+    @Test
+    public void dedupSkipsRepeats() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int exit = run("curl a.co/x\ncurl b.co\ncurl a.co/x\n", out, new String[]{"--dedup", "--threads", "2"});
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(CurlCli.EXIT_OK, exit);
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("{\"index\":1,"));
+    }
+
+    @Test
+    public void usageErrors() {
+        assertEquals(CurlCli.EXIT_USAGE, run("", new ByteArrayOutputStream(), new String[]{"--bogus"}));
+        assertEquals(CurlCli.EXIT_USAGE, run("", new ByteArrayOutputStream(), new String[]{"--format", "raw"}));
+        assertEquals(CurlCli.EXIT_USAGE, run("", new ByteArrayOutputStream(), new String[]{"--threads"}));
+    }
+
+    private static int run(String input, ByteArrayOutputStream out, String[] args) {
+        return CurlCli.run(args, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(new ByteArrayOutputStream()));
+    }
+}
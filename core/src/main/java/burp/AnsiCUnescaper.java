@@ -0,0 +1,214 @@
+package burp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Decodes the escape sequences of bash ANSI-C quoting, <code>$'...'</code>,
+ * in a single pass straight into the caller's buffer.
+ *
+ * Supports <code>\a \b \e \E \f \n \r \t \v \\ \' \" \?</code>, octal
+ * <code>\nnn</code>, hex <code>\xHH</code>, <code>&#92;uHHHH</code>,
+ * <code>&#92;UHHHHHHHH</code> and control characters <code>\cX</code>. Octal and
+ * hex escapes give bytes; a run of them is decoded as UTF-8 when it is valid
+ * UTF-8. Otherwise each byte from 0x80 up becomes the unpaired surrogate
+ * U+DC80 to U+DCFF, which {@link RequestBody} writes back as the raw byte, so
+ * binary data such as <code>$'\xff\xfe'</code> reaches the request unchanged.
+ * Unknown escapes are kept as written.
+ *
+ * @author August Detlefsen
+ */
+public class AnsiCUnescaper {
+
+    /**
+     * Raw bytes 0x80 to 0xff are held as U+DC80 to U+DCFF
+     */
+    static final int RAW_BYTE_BASE = 0xdc00;
+
+    /**
+     * Decodes <code>value</code>, returning it unchanged (and without copying)
+     * if it has no backslash.
+     */
+    public static String unescape(String value) {
+        int backslash = value.indexOf('\\');
+        if (backslash < 0) return value;
+
+        int len = value.length();
+        StringBuilder out = new StringBuilder(len);
+        int i = 0;
+        while (i < len) {
+            int next = value.indexOf('\\', i);
+            if (next < 0) next = len;
+            out.append(value, i, next);
+            if (next == len) break;
+            i = appendEscape(value, next, out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Decodes the body of a <code>$'...'</code> string starting at
+     * <code>start</code> into <code>out</code>, returning the index just past
+     * the closing quote, or the length of the input if there is none.
+     */
+    static int readQuoted(String input, int start, StringBuilder out) {
+        int len = input.length();
+        int i = start;
+        while (i < len) {
+            //copy the run up to the next quote or escape in one go
+            int run = i;
+            char c = 0;
+            while (i < len && (c = input.charAt(i)) != '\'' && c != '\\') i++;
+            out.append(input, run, i);
+
+            if (i == len) break;
+            if (c == '\'') return i + 1;
+            i = appendEscape(input, i, out);
+        }
+        return len;
+    }
+
+    /**
+     * Decodes the escape whose backslash is at <code>i</code>, returning the
+     * index just past it
+     */
+    private static int appendEscape(String input, int i, StringBuilder out) {
+        int len = input.length();
+        if (i + 1 >= len) {
+            out.append('\\');
+            return len;
+        }
+
+        char c = input.charAt(i + 1);
+        switch (c) {
+            case 'a' -> out.append('\u0007');
+            case 'b' -> out.append('\b');
+            case 'e', 'E' -> out.append('\u001b');
+            case 'f' -> out.append('\f');
+            case 'n' -> out.append('\n');
+            case 'r' -> out.append('\r');
+            case 't' -> out.append('\t');
+            case 'v' -> out.append('\u000b');
+            case '\\', '\'', '"', '?' -> out.append(c);
+            case 'x', '0', '1', '2', '3', '4', '5', '6', '7' -> {
+                return appendBytes(input, i, out);
+            }
+            case 'u', 'U' -> {
+                int max = c == 'u' ? 4 : 8;
+                int end = i + 2;
+                int codePoint = 0;
+                while (end < len && end - i - 2 < max && hex(input.charAt(end)) >= 0) {
+                    codePoint = codePoint * 16 + hex(input.charAt(end++));
+                }
+                if (end == i + 2 || !Character.isValidCodePoint(codePoint)) {
+                    out.append('\\').append(c);
+                    return i + 2;
+                }
+                out.appendCodePoint(codePoint);
+                return end;
+            }
+            case 'c' -> {
+                if (i + 2 >= len) {
+                    out.append("\\c");
+                    return len;
+                }
+                out.append((char) (input.charAt(i + 2) & 0x1f));
+                return i + 3;
+            }
+            default -> out.append('\\').append(c);
+        }
+        return i + 2;
+    }
+
+    /**
+     * Decodes a run of octal and hex escapes starting at <code>i</code>
+     */
+    private static int appendBytes(String input, int i, StringBuilder out) {
+        int len = input.length();
+        byte[] bytes = new byte[8];
+        int count = 0;
+
+        while (i + 1 < len && input.charAt(i) == '\\') {
+            char c = input.charAt(i + 1);
+            int end;
+            int value = 0;
+            if (c == 'x') {
+                end = i + 2;
+                while (end < len && end - i - 2 < 2 && hex(input.charAt(end)) >= 0) {
+                    value = value * 16 + hex(input.charAt(end++));
+                }
+                if (end == i + 2) break;
+            } else if (c >= '0' && c <= '7') {
+                end = i + 1;
+                while (end < len && end - i - 1 < 3 && input.charAt(end) >= '0' && input.charAt(end) <= '7') {
+                    value = value * 8 + input.charAt(end++) - '0';
+                }
+            } else {
+                break;
+            }
+
+            if (count == bytes.length) bytes = Arrays.copyOf(bytes, count * 2);
+            bytes[count++] = (byte) value;
+            i = end;
+        }
+
+        if (count == 0) {
+            // \x without hex digits
+            out.append("\\x");
+            return i + 2;
+        }
+        if (isUtf8(bytes, count)) {
+            out.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+        } else {
+            for (int k = 0; k < count; k++) out.append(escapeByte(bytes[k]));
+        }
+        return i;
+    }
+
+    /**
+     * The char that stands for a raw byte outside a valid UTF-8 sequence: the
+     * byte itself below 0x80, an unpaired surrogate above
+     */
+    static char escapeByte(byte b) {
+        return b >= 0 ? (char) b : (char) (RAW_BYTE_BASE + (b & 0xff));
+    }
+
+    /**
+     * True if <code>c</code> stands for a raw byte, see {@link #escapeByte}
+     */
+    static boolean isRawByte(char c) {
+        return c >= RAW_BYTE_BASE + 0x80 && c <= RAW_BYTE_BASE + 0xff;
+    }
+
+    private static boolean isUtf8(byte[] bytes, int count) {
+        int i = 0;
+        while (i < count) {
+            int b = bytes[i] & 0xff;
+            int continuation;
+            if (b < 0x80) {
+                continuation = 0;
+            } else if (b >= 0xc2 && b <= 0xdf) {
+                continuation = 1;
+            } else if (b >= 0xe0 && b <= 0xef) {
+                continuation = 2;
+            } else if (b >= 0xf0 && b <= 0xf4) {
+                continuation = 3;
+            } else {
+                return false;
+            }
+            if (i + continuation >= count && continuation > 0) return false;
+            for (int k = 1; k <= continuation; k++) {
+                if ((bytes[i + k] & 0xc0) != 0x80) return false;
+            }
+            i += continuation + 1;
+        }
+        return true;
+    }
+
+    private static int hex(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+}
@@ -0,0 +1,195 @@
+package burp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Parses input holding many cURL commands in parallel on a bounded pool of
+ * worker threads. Large inputs are also split into commands in parallel, see
+ * {@link CommandSplitter}.
+ *
+ * @author August Detlefsen
+ */
+public class BulkParser {
+
+    /**
+     * Splits the input into commands and converts each one with the given
+     * parser. Results keep the order of the commands in the input. A command
+     * fails if it does not start with curl, the parser returns null or the
+     * parser throws.
+     */
+    public static <T> Result<T> parseAll(String input, Function<String, T> parser, int maxThreads) {
+        return parseAll(input, parser, maxThreads, (completed, total) -> {});
+    }
+
+    /**
+     * As above, reporting the number of completed commands to <code>progress</code>
+     * as results come in. If the calling thread is interrupted the remaining
+     * commands are abandoned and the result holds what was parsed so far.
+     */
+    public static <T> Result<T> parseAll(String input, Function<String, T> parser, int maxThreads, Progress progress) {
+        ForkJoinPool pool = newPool(Math.max(1, maxThreads), "Paste cURL parser");
+        List<String> commands = List.of();
+        AtomicReferenceArray<Outcome<T>> outcomes = new AtomicReferenceArray<>(0);
+
+        try {
+            commands = CommandSplitter.split(input, pool);
+            List<String> split = commands;
+            int total = split.size();
+            AtomicReferenceArray<Outcome<T>> parsed = outcomes = new AtomicReferenceArray<>(total);
+            AtomicInteger completed = new AtomicInteger();
+
+            CommandSplitter.forEach(pool, total, i -> {
+                parsed.set(i, parse(split.get(i), parser));
+                progress.update(completed.incrementAndGet(), total);
+            });
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Result<T> result = new Result<>(commands.size());
+        for (int i = 0; i < outcomes.length(); i++) {
+            Outcome<T> outcome = outcomes.get(i);
+            if (outcome == null) continue;
+            if (outcome.parsed != null) {
+                result.parsed.add(outcome.parsed);
+            } else {
+                result.failures.add(new Failure(i, commands.get(i), outcome.reason));
+            }
+        }
+        return result;
+    }
+
+    private static <T> Outcome<T> parse(String command, Function<String, T> parser) {
+        if (!CurlParser.isCurlCommand(command)) {
+            Metrics.global().failed(FailureReason.NOT_CURL);
+            return new Outcome<>(null, "not a valid cURL command");
+        }
+        try {
+            T parsed = parser.apply(command);
+            return new Outcome<>(parsed, parsed == null ? "not a valid cURL command" : null);
+        } catch (RuntimeException re) {
+            return new Outcome<>(null, String.valueOf(re));
+        }
+    }
+
+    /**
+     * A fork-join pool of daemon workers with the given name
+     */
+    static ForkJoinPool newPool(int threads, String name) {
+        return new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(name);
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Number of workers to use by default: one per available core
+     */
+    public static int defaultThreads() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Called from the worker threads as each command completes, so updates
+     * can arrive concurrently and slightly out of order
+     */
+    interface Progress {
+        void update(int completed, int total);
+    }
+
+    static class Result<T> {
+        private final int total;
+        private final List<T> parsed = new ArrayList<>();
+        private final List<Failure> failures = new ArrayList<>();
+        private int duplicates;
+
+        public Result(int total) {
+            this.total = total;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<T> getParsed() {
+            return parsed;
+        }
+
+        public List<Failure> getFailures() {
+            return failures;
+        }
+
+        public int getDuplicates() {
+            return duplicates;
+        }
+
+        /**
+         * Drops parsed requests whose hash has already been seen, keeping the
+         * first of each
+         */
+        public void removeDuplicates(ToLongFunction<T> hasher, RequestDeduplicator deduplicator) {
+            int before = parsed.size();
+            parsed.removeIf(request -> !deduplicator.add(hasher.applyAsLong(request)));
+            duplicates += before - parsed.size();
+        }
+
+        public String getSummary() {
+            return "Imported " + parsed.size() + " of " + total + " cURL commands, " + failures.size() + " failed"
+                    + (duplicates > 0 ? ", " + duplicates + " duplicates skipped" : "");
+        }
+    }
+
+    private static class Outcome<T> {
+        private final T parsed;
+        private final String reason;
+
+        Outcome(T parsed, String reason) {
+            this.parsed = parsed;
+            this.reason = reason;
+        }
+    }
+
+    static class Failure {
+        private final int index;
+        private final String command;
+        private final String reason;
+
+        public Failure(int index, String command, String reason) {
+            this.index = index;
+            this.command = command;
+            this.reason = reason;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            int lineEnd = command.indexOf('\n');
+            String firstLine = lineEnd == -1 ? command : command.substring(0, lineEnd);
+            if (firstLine.length() > 120) firstLine = firstLine.substring(0, 120) + "...";
+
+            return "Command " + (index + 1) + ": " + reason + ": " + firstLine;
+        }
+    }
+}
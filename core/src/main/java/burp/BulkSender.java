@@ -0,0 +1,142 @@
+package burp;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Sends a batch of requests on a bounded pool of threads, limiting how many
+ * are in flight in total and against any one host, and optionally how many
+ * are started per second.
+ *
+ * Requests are dispatched in order from the calling thread. A request waits
+ * for a slot on its own host before taking a global slot, so a busy host does
+ * not tie up threads that other hosts could use, but it does hold up the
+ * requests queued behind it.
+ *
+ * @author August Detlefsen
+ */
+public class BulkSender {
+
+    private final SendConfig config;
+
+    public BulkSender(SendConfig config) {
+        this.config = config;
+    }
+
+    public SendConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Sends every item and waits for them all to complete. Each completion is
+     * reported to the listener from the thread that sent it, so the listener
+     * must be thread-safe.
+     *
+     * If the calling thread is interrupted, no further requests are started,
+     * requests in flight are interrupted and this method returns early.
+     *
+     * @param host   returns the key for per-host limiting, e.g. "example.com:443"
+     * @param sender sends one item and returns its result
+     */
+    public <T, R> void sendAll(List<T> items, Function<T, String> host, Function<T, R> sender, Listener<T, R> listener) {
+        if (items.isEmpty()) return;
+
+        sendAll(items.iterator(), Math.min(config.getMaxConcurrency(), items.size()), host, sender, listener);
+    }
+
+    /**
+     * Sends every item the iterator returns, as {@link #sendAll(List, Function, Function, Listener)}
+     * does. Items are taken from the iterator on the calling thread only as
+     * slots free up, so a lazily generated stream of requests is sent in
+     * constant memory.
+     */
+    public <T, R> void sendAll(Iterator<T> items, Function<T, String> host, Function<T, R> sender, Listener<T, R> listener) {
+        if (!items.hasNext()) return;
+
+        sendAll(items, config.getMaxConcurrency(), host, sender, listener);
+    }
+
+    private <T, R> void sendAll(Iterator<T> items, int threads, Function<T, String> host, Function<T, R> sender, Listener<T, R> listener) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Paste cURL sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore global = new Semaphore(threads);
+        Map<String, Semaphore> hosts = new ConcurrentHashMap<>();
+        RateLimiter limiter = config.getRequestsPerSecond() > 0 ? new RateLimiter(config.getRequestsPerSecond()) : null;
+
+        try {
+            for (int i = 0; items.hasNext(); i++) {
+                T item = items.next();
+                Semaphore hostSlots = hosts.computeIfAbsent(host.apply(item), key -> new Semaphore(config.getMaxPerHost()));
+
+                hostSlots.acquire();
+                try {
+                    global.acquire();
+                } catch (InterruptedException ie) {
+                    hostSlots.release();
+                    throw ie;
+                }
+                if (limiter != null) limiter.acquire();
+
+                int index = i;
+                executor.execute(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        R result = sender.apply(item);
+                        listener.completed(index, item, result, null, System.nanoTime() - start);
+                    } catch (RuntimeException re) {
+                        listener.completed(index, item, null, re, System.nanoTime() - start);
+                    } finally {
+                        global.release();
+                        hostSlots.release();
+                    }
+                });
+            }
+
+            //all slots free means every request has completed
+            global.acquire(threads);
+        } catch (InterruptedException ie) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public interface Listener<T, R> {
+        /**
+         * @param result the sender's result, or null if it threw
+         * @param error  what the sender threw, or null
+         * @param nanos  time taken to send
+         */
+        void completed(int index, T item, R result, Throwable error, long nanos);
+    }
+
+    /**
+     * Spaces request starts evenly at a fixed rate
+     */
+    static class RateLimiter {
+        private final long intervalNanos;
+        private long next = System.nanoTime();
+
+        RateLimiter(double perSecond) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+        }
+
+        synchronized void acquire() throws InterruptedException {
+            long now = System.nanoTime();
+            long wait = next - now;
+            next = Math.max(now, next) + intervalNanos;
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
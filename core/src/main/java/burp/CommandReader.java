@@ -0,0 +1,127 @@
+package burp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Reads cURL commands one at a time from a stream, using the same rules as
+ * {@link CommandSplitter}: commands end at an unquoted separator or newline
+ * of the input's {@link Dialect}, and an escaped newline continues a command.
+ * With {@link Dialect#AUTO} the dialect is detected from the start of the
+ * stream.
+ *
+ * Only the command currently being read is held in memory, so arbitrarily
+ * large files can be processed in constant space.
+ *
+ * @author August Detlefsen
+ */
+public class CommandReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final int maxCommandLength;
+    private final Dialect dialect;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder command = new StringBuilder();
+
+    private ShellLexer lexer;
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    public CommandReader(Reader reader) {
+        this(reader, ParseLimits.DEFAULT.getMaxInputLength());
+    }
+
+    /**
+     * @param maxCommandLength longest single command accepted, in characters
+     */
+    public CommandReader(Reader reader, int maxCommandLength) {
+        this(reader, maxCommandLength, Dialect.AUTO);
+    }
+
+    public CommandReader(Reader reader, int maxCommandLength, Dialect dialect) {
+        this.reader = reader;
+        this.maxCommandLength = maxCommandLength;
+        this.dialect = dialect;
+    }
+
+    /**
+     * Returns the next non-blank command, stripped of surrounding whitespace,
+     * or null at the end of the stream.
+     *
+     * @throws CurlParseException if a command is longer than the limit
+     */
+    public String next() throws IOException {
+        while (true) {
+            String next = readCommand();
+            if (next == null) return null;
+            if (!next.isEmpty()) return next;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads up to the next separator, returning "" for a blank command and
+     * null at the end of the stream.
+     */
+    private String readCommand() throws IOException {
+        command.setLength(0);
+        int state = ShellLexer.START;
+        boolean consumed = false;
+
+        while (true) {
+            if (position == limit && !fill()) return consumed ? finish() : null;
+
+            char c = buffer[position++];
+            consumed = true;
+
+            state = lexer.step(state, c);
+            if (state == ShellLexer.SPLIT) return finish();
+
+            if (command.length() >= maxCommandLength) {
+                throw new CurlParseException(FailureReason.TOO_LARGE, "Command exceeds " + maxCommandLength + " characters");
+            }
+            command.append(c);
+        }
+    }
+
+    private String finish() {
+        String result = command.toString().strip();
+        command.setLength(0);
+        return result;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) return false;
+
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        position = 0;
+        limit = read;
+
+        if (lexer == null) {
+            //the dialect is detected from the start of the input, which a short first read may not hold
+            while (limit < Dialect.DETECT_LIMIT) {
+                read = reader.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    eof = true;
+                    break;
+                }
+                limit += read;
+            }
+            lexer = ShellLexer.of(dialect.resolve(CharBuffer.wrap(buffer, 0, limit)));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,247 @@
+package burp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Splits input holding many cURL commands into the individual commands,
+ * following the quoting rules of the input's {@link Dialect}, which is
+ * detected from its start unless given. In bash, commands end at an unquoted
+ * <code>;</code>, <code>&amp;</code> or newline; in PowerShell at
+ * <code>;</code> or a newline; and in cmd at <code>&amp;</code> or a newline.
+ * Quotes and escaped newlines never end a command.
+ *
+ * Large inputs are split in parallel. The input is cut into chunks at lines
+ * that start with an unescaped <code>curl</code>, found by looking forward
+ * from evenly spaced offsets, and each chunk is scanned on its own as if a
+ * command started there. Such a line can also be inside a quoted body, so
+ * the chunks are then joined in order, checking that the scan of each chunk
+ * ended exactly where the next one starts and between commands. If it did
+ * not, the next chunk's result is discarded and the scan carries on through
+ * it. The result is always the same as a scan from the start.
+ *
+ * @author August Detlefsen
+ */
+public class CommandSplitter {
+
+    /**
+     * Inputs shorter than this are scanned on the calling thread
+     */
+    static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    /**
+     * Chunks per worker thread, so that uneven chunks still keep every thread busy
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private CommandSplitter() {
+    }
+
+    /**
+     * Splits the input on the calling thread. Commands are stripped and blank
+     * commands are dropped.
+     */
+    public static List<String> split(String input) {
+        return split(input, Dialect.AUTO);
+    }
+
+    /**
+     * As above, for input written for <code>dialect</code>, which may be {@link Dialect#AUTO}
+     */
+    public static List<String> split(String input, Dialect dialect) {
+        Scanner scanner = new Scanner(input, ShellLexer.of(dialect.resolve(input)), 0);
+        scanner.scanTo(input.length());
+        scanner.finish();
+        return scanner.commands;
+    }
+
+    /**
+     * Splits the input on the pool's threads
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public static List<String> split(String input, ForkJoinPool pool) throws InterruptedException {
+        return split(input, Dialect.AUTO, pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    static List<String> split(String input, Dialect dialect, ForkJoinPool pool, int minChunkSize) throws InterruptedException {
+        dialect = dialect.resolve(input);
+        int len = input.length();
+        int chunks = (int) Math.min((long) pool.getParallelism() * CHUNKS_PER_THREAD, len / Math.max(1, minChunkSize));
+        if (chunks <= 1) return split(input, dialect);
+
+        ShellLexer lexer = ShellLexer.of(dialect);
+
+        //chunk k covers [starts[k], starts[k + 1]); a chunk whose start found no curl line is empty
+        int[] starts = new int[chunks + 1];
+        starts[chunks] = len;
+        forEach(pool, chunks - 1, k -> starts[k + 1] = resync(input, lexer, (int) ((long) len * (k + 1) / chunks)));
+        for (int k = 1; k < chunks; k++) starts[k] = Math.max(starts[k], starts[k - 1]);
+
+        Scanner[] scanners = new Scanner[chunks];
+        forEach(pool, chunks, k -> {
+            Scanner scanner = new Scanner(input, lexer, starts[k]);
+            scanner.scanTo(starts[k + 1]);
+            scanners[k] = scanner;
+        });
+
+        List<String> commands = new ArrayList<>();
+        Scanner current = scanners[0];
+        for (int k = 1; k < chunks; k++) {
+            if (current.isBetweenCommandsAt(starts[k])) {
+                commands.addAll(current.commands);
+                current = scanners[k];
+            } else {
+                //the chunk did not start at a command, so carry on scanning through it
+                current.scanTo(starts[k + 1]);
+            }
+        }
+        current.finish();
+        commands.addAll(current.commands);
+        return commands;
+    }
+
+    /**
+     * Returns the start of the first line at or after <code>from</code> that
+     * begins with a curl command and does not continue the line before it,
+     * or the length of the input if there is none
+     */
+    static int resync(String input, ShellLexer lexer, int from) {
+        int len = input.length();
+        int line = 0;
+        if (from > 0) {
+            int newline = input.indexOf('\n', from - 1);
+            if (newline < 0) return len;
+            line = newline + 1;
+        }
+
+        while (true) {
+            if ((line == 0 || !lexer.continuesLine(input, line - 1)) && startsWithCurl(input, line)) return line;
+
+            int newline = input.indexOf('\n', line);
+            if (newline < 0) return len;
+            line = newline + 1;
+        }
+    }
+
+    /**
+     * True if the first word on the line is a curl executable, as
+     * {@link CurlParser#isCurlCommand} decides, without copying it out
+     */
+    private static boolean startsWithCurl(String input, int line) {
+        int len = input.length();
+        int i = line;
+        while (i < len && (input.charAt(i) == ' ' || input.charAt(i) == '\t')) i++;
+        int end = i;
+        while (end < len && !Character.isWhitespace(input.charAt(end))) end++;
+
+        int length = end - i;
+        if (length >= 4 && input.startsWith("curl", end - 4) && (length == 4 || input.charAt(end - 5) == '/')) return true;
+        if (length == 8 && input.regionMatches(true, i, "curl.exe", 0, 8)) return true;
+        return length > 8 && input.startsWith("\\curl.exe", end - 9);
+    }
+
+    /**
+     * Runs <code>action</code> for every index in <code>[0, count)</code> on
+     * the pool, splitting the range in halves, and waits for them all
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    static void forEach(ForkJoinPool pool, int count, IntConsumer action) throws InterruptedException {
+        if (count <= 0) return;
+        try {
+            pool.submit(new ForEach(0, count, action)).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static final class ForEach extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        ForEach(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                action.accept(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForEach(from, middle, action), new ForEach(middle, to, action));
+        }
+    }
+
+    /**
+     * Scans forward from a command start, collecting the commands it
+     * completes. Can be stopped at any offset and carried on later.
+     */
+    private static final class Scanner {
+        private final String input;
+        private final ShellLexer lexer;
+        private final List<String> commands = new ArrayList<>();
+        private int position;
+        private int commandStart;
+        private int state = ShellLexer.START;
+
+        Scanner(String input, ShellLexer lexer, int start) {
+            this.input = input;
+            this.lexer = lexer;
+            this.position = start;
+            this.commandStart = start;
+        }
+
+        /**
+         * Scans up to <code>limit</code>
+         */
+        void scanTo(int limit) {
+            String input = this.input;
+            ShellLexer lexer = this.lexer;
+            int state = this.state;
+            for (int i = position; i < limit; i++) {
+                i = lexer.skipRun(input, state, i, limit);
+                if (i == limit) break;
+
+                state = lexer.step(state, input.charAt(i));
+                if (state == ShellLexer.SPLIT) {
+                    addCommand(commandStart, i);
+                    commandStart = i + 1;
+                    state = ShellLexer.START;
+                }
+            }
+            this.state = state;
+            position = Math.max(position, limit);
+        }
+
+        /**
+         * True if the scan stopped exactly at <code>offset</code>, just after the end of a command
+         */
+        boolean isBetweenCommandsAt(int offset) {
+            return position == offset && commandStart == offset && state == ShellLexer.START;
+        }
+
+        void finish() {
+            addCommand(commandStart, input.length());
+            commandStart = input.length();
+        }
+
+        private void addCommand(int start, int end) {
+            if (start >= end) return;
+            String command = input.substring(start, end).strip();
+            if (!command.isEmpty()) commands.add(command);
+        }
+    }
+}
@@ -1,23 +1,22 @@
 package burp;
 
-import burp.api.montoya.http.message.HttpHeader;
+/**
+ * A single header parsed from a cURL command.
+ */
+public class CurlHeader {
 
-public class HttpHeaderImpl implements HttpHeader {
+    private final String name;
+    private final String value;
 
-    private String name;
-    private String value;
-
-    public HttpHeaderImpl(String name, String value) {
+    public CurlHeader(String name, String value) {
         this.name = name;
         this.value = value;
     }
 
-    @Override
     public String name() {
         return name;
     }
 
-    @Override
     public String value() {
         return value;
     }
@@ -0,0 +1,97 @@
+package burp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a cURL command line into argv-style tokens in a single linear pass,
+ * applying the quoting rules of the shell it was copied for. Without a
+ * dialect, POSIX shell rules are used.
+ *
+ * @author August Detlefsen
+ * @see ShellLexer
+ */
+public class CurlLexer {
+
+    /**
+     * Tokenizes a command line the way a shell would before handing it to curl.
+     *
+     * Single quotes are taken literally, double quotes honour backslash escapes
+     * for <code>$ ` " \</code> and newline, and backslash-newline continuations
+     * are removed. Escape sequences in <code>$'...'</code> strings are decoded
+     * as bash does. An unterminated quote runs to the end of the input.
+     *
+     * @throws java.util.concurrent.CancellationException if the calling thread is interrupted
+     * @throws CurlParseException if the command exceeds the default ParseLimits
+     */
+    public static List<String> tokenize(String command) {
+        return tokenize(command, Dialect.BASH);
+    }
+
+    /**
+     * As above, using the quoting rules of <code>dialect</code>, which may be {@link Dialect#AUTO}
+     */
+    public static List<String> tokenize(String command, Dialect dialect) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(command, dialect, ParseLimits.DEFAULT.start(command), tokens, new StringBuilder());
+        return tokens;
+    }
+
+    /**
+     * As above, giving up once <code>System.nanoTime()</code> passes <code>deadline</code>.
+     *
+     * @throws CurlParseException if the deadline passes
+     */
+    public static List<String> tokenize(String command, long deadline) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(command, deadline, tokens, new StringBuilder());
+        return tokens;
+    }
+
+    /**
+     * As above, adding the tokens to <code>tokens</code> and using <code>token</code>
+     * (which must be empty) as the working buffer, so callers can reuse both.
+     */
+    public static void tokenize(String command, long deadline, List<String> tokens, StringBuilder token) {
+        ShellLexer.BASH.tokenize(command, deadline, tokens, token);
+    }
+
+    /**
+     * As above, using the quoting rules of <code>dialect</code>, which may be {@link Dialect#AUTO}
+     */
+    public static void tokenize(String command, Dialect dialect, long deadline, List<String> tokens, StringBuilder token) {
+        ShellLexer.of(dialect.resolve(command)).tokenize(command, deadline, tokens, token);
+    }
+
+    /**
+     * Skips whitespace and line continuations from <code>start</code>, returning
+     * the index where the next token begins, or the length of the command if
+     * there are no more.
+     */
+    static int skipSeparators(String command, int start) {
+        return ShellLexer.BASH.skipSeparators(command, start);
+    }
+
+    /**
+     * Reads the token that begins at <code>start</code> into <code>token</code>,
+     * returning the index just past it.
+     */
+    static int readToken(String command, int start, StringBuilder token) {
+        return ShellLexer.BASH.readToken(command, start, token);
+    }
+
+    /**
+     * Splits input holding several commands, such as the output of "Copy all as
+     * cURL", into one string per command.
+     *
+     * In bash, commands are separated by an unquoted <code>;</code>,
+     * <code>&amp;</code> or newline. Quoted text and escapes (including line
+     * continuations) never split a command. The dialect is detected from the
+     * start of the input. Blank commands are dropped.
+     *
+     * @see CommandSplitter
+     */
+    public static List<String> splitCommands(String input) {
+        return CommandSplitter.split(input);
+    }
+}
@@ -0,0 +1,24 @@
+package burp;
+
+/**
+ * Thrown when a cURL command cannot be parsed within its limits.
+ *
+ * @author August Detlefsen
+ */
+public class CurlParseException extends RuntimeException {
+
+    private final FailureReason reason;
+
+    public CurlParseException(String message) {
+        this(FailureReason.OTHER, message);
+    }
+
+    public CurlParseException(FailureReason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public FailureReason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,828 @@
+package burp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses cURL request into strings.
+ *
+ * A CurlParser is immutable and safe to share between threads. Each thread
+ * reuses its own scratch buffers for tokens, headers and data values, so a
+ * parse allocates little beyond the strings that end up in the CurlRequest.
+ * 
+ * @author August Detlefsen
+ */
+public class CurlParser {
+
+    /**
+     * Scratch buffers that grow beyond this many characters are dropped after
+     * use rather than kept alive by the thread
+     */
+    private static final int MAX_RETAINED_SCRATCH = 64 * 1024;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private static final CurlParser DEFAULT = new CurlParser(CurlParserConfig.DEFAULT);
+
+    /**
+     * Short options that consume the following argument
+     */
+    private static final String SHORT_OPTIONS_WITH_ARG = "XHbdFuAeocxUTmwKErzyYCDPQt";
+
+    /**
+     * Long options that consume the following argument
+     */
+    private static final Set<String> LONG_OPTIONS_WITH_ARG = Set.of(
+            "--request", "--header", "--cookie", "--url", "--url-query",
+            "--data", "--data-raw", "--data-binary", "--data-ascii", "--data-urlencode", "--json",
+            "--form", "--form-string", "--upload-file", "--user", "--user-agent", "--referer",
+            "--output", "--cookie-jar", "--proxy", "--proxy-user", "--max-time", "--connect-timeout",
+            "--write-out", "--config", "--cert", "--cert-type", "--cacert", "--capath", "--key", "--key-type",
+            "--range", "--time-cond", "--retry", "--retry-delay", "--retry-max-time", "--resolve",
+            "--connect-to", "--max-redirs", "--limit-rate", "--oauth2-bearer", "--interface",
+            "--dns-servers", "--continue-at", "--dump-header", "--ftp-port", "--quote", "--stderr",
+            "--trace", "--trace-ascii", "--unix-socket", "--abstract-unix-socket", "--variable",
+            "--speed-limit", "--speed-time", "--telnet-option", "--aws-sigv4", "--ciphers",
+            "--local-port", "--max-filesize", "--noproxy", "--pinnedpubkey", "--proto", "--proto-redir",
+            "--request-target", "--service-name", "--sasl-authzid", "--login-options", "--netrc-file");
+
+    /**
+     * "-X", "-H", ... indexed by option letter, so short options need no string building
+     */
+    private static final String[] SHORT_OPTION_NAMES = new String[128];
+    static {
+        for (char flag : SHORT_OPTIONS_WITH_ARG.toCharArray()) SHORT_OPTION_NAMES[flag] = "-" + flag;
+    }
+
+    private final CurlParserConfig config;
+
+    public CurlParser(CurlParserConfig config) {
+        this.config = config;
+    }
+
+    public CurlParserConfig getConfig() {
+        return config;
+    }
+
+    public static CurlRequest parseCurlCommand(String curlCommand) {
+        return DEFAULT.parse(curlCommand);
+    }
+
+    public static CurlRequest parseCurlCommand(String curlCommand, LogSink log) {
+        return parseCurlCommand(curlCommand, log, ParseLimits.DEFAULT);
+    }
+
+    public static CurlRequest parseCurlCommand(String curlCommand, LogSink log, ParseLimits limits) {
+        return new CurlParser(new CurlParserConfig(Dialect.AUTO, limits, log)).parse(curlCommand);
+    }
+
+    /**
+     * Parses a cURL command, failing with a CurlParseException if the command
+     * is larger than the limits allow or takes too long to parse.
+     *
+     * @return the parsed request, or null if the command has no valid URL
+     */
+    public CurlRequest parse(String curlCommand) {
+        try {
+            return parseOrThrow(curlCommand);
+        } catch (CurlParseException e) {
+            if (e.getReason().isNoRequest()) return null;
+            throw e;
+        }
+    }
+
+    /**
+     * As {@link #parse(String)}, but a command without a valid URL also fails
+     * with a CurlParseException, whose reason says what was wrong.
+     */
+    public CurlRequest parseOrThrow(String curlCommand) {
+        Scratch scratch = SCRATCH.get();
+        long start = System.nanoTime();
+        try {
+            CurlRequest request = parse(curlCommand, scratch);
+            Metrics.global().parsed(curlCommand.length(), start);
+            return request;
+        } catch (CurlParseException e) {
+            Metrics.global().failed(e.getReason());
+            throw e;
+        } finally {
+            scratch.release();
+        }
+    }
+
+    /**
+     * Parses a cURL command that has already been split into shell words, e.g.
+     * by an editor that keeps its tokens up to date as the text changes.
+     *
+     * @return the parsed request, or null if the command has no valid URL
+     */
+    public CurlRequest parse(List<String> tokens) {
+        try {
+            return parseOrThrow(tokens);
+        } catch (CurlParseException e) {
+            if (e.getReason().isNoRequest()) return null;
+            throw e;
+        }
+    }
+
+    /**
+     * As {@link #parse(List)}, but a command without a valid URL also fails
+     * with a CurlParseException.
+     */
+    public CurlRequest parseOrThrow(List<String> tokens) {
+        Scratch scratch = SCRATCH.get();
+        long start = System.nanoTime();
+        try {
+            int length = ParseLimits.length(tokens);
+            long deadline = config.getLimits().start(length);
+            CurlRequest request = parse(tokens, scratch, deadline, System.nanoTime());
+            Metrics.global().parsed(length, start);
+            return request;
+        } catch (CurlParseException e) {
+            Metrics.global().failed(e.getReason());
+            throw e;
+        } finally {
+            scratch.release();
+        }
+    }
+
+    private CurlRequest parse(String curlCommand, Scratch scratch) {
+        long deadline = config.getLimits().start(curlCommand);
+        long phaseStart = System.nanoTime();
+
+        Log.debug(config.getLog(), () -> "CurlParser.parseCurlCommand(): " + Log.excerpt(curlCommand));
+
+        // Split the command into shell words, then walk the options once
+        List<String> tokens = scratch.tokens;
+        CurlLexer.tokenize(curlCommand, config.getDialect(), deadline, tokens, scratch.token);
+
+        return parse(tokens, scratch, deadline, phaseStart);
+    }
+
+    private CurlRequest parse(List<String> tokens, Scratch scratch, long deadline, long phaseStart) {
+        LogSink log = config.getLog();
+        Metrics metrics = Metrics.global();
+
+        String requestMethod = "GET";
+        List<String> headerValues = scratch.headerValues;
+        List<String> cookieValues = scratch.cookieValues;
+        List<String> urlQueries = scratch.urlQueries;
+        List<String> dataValues = scratch.dataValues;
+        List<DataPart> dataParts = scratch.dataParts;
+        List<MultipartBody.Part> formParts = scratch.formParts;
+        String extractedUrl = null;
+        String uploadFile = null;
+        String user = null;
+        boolean json = false;
+        boolean head = false;
+        boolean methodGiven = false;
+
+        int i = 0;
+        if (!tokens.isEmpty() && isCurlExecutable(tokens.get(0))) i++;
+
+        for (; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            String option;
+            String value = null;
+
+            if (token.startsWith("--")) {
+                option = token;
+                if (LONG_OPTIONS_WITH_ARG.contains(option) && i + 1 < tokens.size()) value = tokens.get(++i);
+                if (option.equals("--head")) head = true;
+
+            } else if (token.startsWith("-") && token.length() > 1) {
+                // short options may be clustered (-sSL) and may carry their value inline (-XPOST)
+                option = null;
+                for (int j = 1; j < token.length(); j++) {
+                    char flag = token.charAt(j);
+                    if (flag == 'I') head = true;
+                    if (flag < SHORT_OPTION_NAMES.length && SHORT_OPTION_NAMES[flag] != null) {
+                        option = SHORT_OPTION_NAMES[flag];
+                        if (j + 1 < token.length()) {
+                            value = token.substring(j + 1);
+                        } else if (i + 1 < tokens.size()) {
+                            value = tokens.get(++i);
+                        }
+                        break;
+                    }
+                }
+                if (option == null) continue;
+
+            } else {
+                // the first positional argument is the URL
+                if (extractedUrl == null) extractedUrl = token;
+                continue;
+            }
+
+            if (value == null) continue;
+            ParseLimits.check(deadline);
+
+            switch (option) {
+                case "-X", "--request" -> {
+                    requestMethod = value;
+                    methodGiven = true;
+                }
+                case "--url" -> {
+                    if (extractedUrl == null) extractedUrl = value;
+                }
+                case "-H", "--header" -> headerValues.add(value);
+                case "--url-query" -> urlQueries.add(value);
+                case "-u", "--user" -> user = value;
+                case "-b", "--cookie" -> cookieValues.add(value);
+                case "-d", "--data", "--data-ascii" -> {
+                    if (value.startsWith("@")) {
+                        // curl strips carriage returns and newlines from text data files
+                        addDataFile(scratch, option, DataPart.file(DataPart.Kind.TEXT_FILE, value.substring(1), true));
+                    } else {
+                        addData(scratch, value, false);
+                    }
+                }
+                case "--data-binary" -> {
+                    if (value.startsWith("@")) {
+                        addDataFile(scratch, option, DataPart.file(DataPart.Kind.BINARY_FILE, value.substring(1), true));
+                    } else {
+                        addData(scratch, value, false);
+                    }
+                }
+                case "--json" -> {
+                    // like --data-binary, but appended to earlier data without a '&'
+                    json = true;
+                    if (value.startsWith("@")) {
+                        addDataFile(scratch, option, DataPart.file(DataPart.Kind.BINARY_FILE, value.substring(1), false));
+                    } else {
+                        addData(scratch, value, true);
+                    }
+                }
+                case "--data-urlencode" -> addUrlEncoded(scratch, value);
+                case "-T", "--upload-file" -> {
+                    if (value.equals("-")) throw unsupportedStdin(option);
+                    uploadFile = value;
+                }
+                case "--data-raw" -> addData(scratch, value, false);
+                case "-F", "--form" -> formParts.add(MultipartBody.parsePart(value, false));
+                case "--form-string" -> formParts.add(MultipartBody.parsePart(value, true));
+                default -> {
+                    //option not relevant to the request
+                }
+            }
+        }
+        // -I/--head asks for HEAD, but as in curl an explicit -X wins wherever it is given
+        if (head && !methodGiven) requestMethod = "HEAD";
+
+        phaseStart = metrics.record(Metrics.Operation.TOKENIZE, phaseStart);
+
+        // Parse the URL
+        if (extractedUrl == null) throw new CurlParseException(FailureReason.NO_URL, "No URL in cURL command");
+        if (!hasScheme(extractedUrl)) extractedUrl = "http://" + extractedUrl;
+
+        // Like curl, uploading to a URL ending in a slash appends the file name, percent-encoded
+        if (uploadFile != null && extractedUrl.endsWith("/")) {
+            Path uploadName = Path.of(uploadFile).getFileName();
+            if (uploadName != null) extractedUrl += DataPart.urlEncode(RequestBody.encode(uploadName.toString()));
+        }
+        String fullUrl = extractedUrl;
+        Log.debug(log, () -> "url: " + Log.excerpt(fullUrl));
+
+        UrlSpan url = UrlSpan.parse(appendQueries(extractedUrl, urlQueries));
+        if (url == null) {
+            Log.error(log, () -> "Invalid URL: " + Log.excerpt(fullUrl));
+
+            throw new CurlParseException(FailureReason.INVALID_URL, "Invalid URL: " + Log.excerpt(fullUrl));
+        }
+
+        phaseStart = metrics.record(Metrics.Operation.URL, phaseStart);
+
+        // Split headers into name and value
+        List<CurlHeader> headers = new ArrayList<>(headerValues.size() + 2);
+        for (String header : headerValues) {
+            int colonIndex = header.indexOf(':');
+            if (colonIndex != -1) {
+                String name = header.substring(0, colonIndex).trim();
+                String value = header.substring(colonIndex + 1).trim();
+
+                CurlHeader httpHeader = new CurlHeader(name, value);
+                headers.add(httpHeader);
+            }
+        }
+
+        // Credentials from -u or the URL become Basic auth, as in curl
+        if (user == null) user = url.getUserInfo();
+        if (user != null && !hasHeader(headers, "Authorization")) {
+            String credentials = user.indexOf(':') >= 0 ? user : user + ":";
+            String encoded = Base64.getEncoder().encodeToString(RequestBody.encode(credentials));
+            headers.add(new CurlHeader("Authorization", "Basic " + encoded));
+        }
+
+        //Add cookies - Montoya treats cookies as just another header
+        if (!cookieValues.isEmpty()) {
+            StringBuilder combinedCookies = scratch.token;
+            combinedCookies.setLength(0);
+            for (String c : cookieValues) {
+                // Combine all cookies using a single "; " separator
+                if (combinedCookies.length() > 0) combinedCookies.append("; ");
+
+                // Trim spaces and remove trailing semicolons/spaces
+                appendTrimmedCookie(combinedCookies, c);
+            }
+
+            // Add as a Cookie header
+            CurlHeader httpHeader = new CurlHeader("Cookie", combinedCookies.toString());
+            headers.add(httpHeader);
+        }
+
+        // --json sends JSON and asks for JSON back, unless the headers say otherwise
+        if (json) {
+            if (!hasHeader(headers, "Content-Type")) headers.add(new CurlHeader("Content-Type", "application/json"));
+            if (!hasHeader(headers, "Accept")) headers.add(new CurlHeader("Accept", "application/json"));
+        }
+
+        // Form fields become a multipart body, with a boundary the Content-Type must name
+        MultipartBody multipart = formParts.isEmpty() ? null : new MultipartBody(formParts);
+        if (multipart != null) setMultipartContentType(headers, multipart);
+
+        phaseStart = metrics.record(Metrics.Operation.HEADERS, phaseStart);
+
+        // Add request body
+        boolean hasBody = !dataValues.isEmpty() || !dataParts.isEmpty();
+        RequestBody body = RequestBody.EMPTY;
+        List<DataPart> data = List.of();
+        if (uploadFile != null) {
+            // -T sends the file as-is and defaults to PUT
+            data = List.of(DataPart.file(DataPart.Kind.BINARY_FILE, uploadFile, true));
+            if ("GET".equals(requestMethod)) requestMethod = "PUT";
+
+        } else if (multipart != null) {
+            // curl refuses to mix -F with -d; send the form
+            if (hasBody) Log.error(log, () -> "Data options cannot be combined with form fields, ignoring the data");
+            if ("GET".equals(requestMethod)) requestMethod = "POST";
+
+        } else if (hasBody) {
+            // escapes were already decoded by the lexer, according to how each part was quoted;
+            // repeated data options are joined with '&' in argument order as curl does, encoded straight to bytes
+            if (dataParts.isEmpty()) {
+                body = joinBody(dataValues);
+            } else {
+                if (!dataValues.isEmpty()) dataParts.add(DataPart.inline(joinBody(dataValues), scratch.inlineSeparated));
+                data = List.copyOf(dataParts);
+            }
+
+            // If -X option is not specified and --data-raw is present, assume it's a POST request
+            if (requestMethod == null || "GET".equals(requestMethod)) {
+                requestMethod = "POST";
+            }
+        }
+
+        metrics.record(Metrics.Operation.BODY, phaseStart);
+
+        long bodyLength = body.length();
+        Log.debug(log, () -> "CurlParser.parseCurlCommand() complete: host: " + url.getHost() + " path: " + url.getPath() + " body: " + bodyLength + " bytes");
+
+        return new CurlRequest(requestMethod, url, headers, body, data, multipart);
+    }
+
+    /**
+     * Adds an inline data value. A --json value is appended to the value
+     * before it, as curl does, rather than joined with '&'.
+     */
+    private static void addData(Scratch scratch, String value, boolean json) {
+        List<String> dataValues = scratch.dataValues;
+        if (json && !dataValues.isEmpty()) {
+            int last = dataValues.size() - 1;
+            dataValues.set(last, dataValues.get(last) + value);
+            return;
+        }
+        // the first value after a file decides how the inline part joins it
+        if (dataValues.isEmpty()) scratch.inlineSeparated = !json;
+        dataValues.add(value);
+    }
+
+    /**
+     * Adds a data file, after the inline values given since the previous file
+     */
+    private void addDataFile(Scratch scratch, String option, DataPart file) {
+        if (file.getFile().equals("-")) throw unsupportedStdin(option);
+
+        if (!scratch.dataValues.isEmpty()) {
+            scratch.dataParts.add(DataPart.inline(joinBody(scratch.dataValues), scratch.inlineSeparated));
+            scratch.dataValues.clear();
+        }
+        scratch.dataParts.add(file);
+    }
+
+    /**
+     * Adds a --data-urlencode value, in any of curl's forms: <code>content</code>,
+     * <code>=content</code> and <code>name=content</code> encode the content,
+     * <code>@file</code> and <code>name@file</code> the content of a file. The
+     * first '=' or '@' decides the form, and the name is sent as given.
+     */
+    private void addUrlEncoded(Scratch scratch, String value) {
+        int split = 0;
+        while (split < value.length() && value.charAt(split) != '=' && value.charAt(split) != '@') split++;
+
+        String name = split > 0 && split < value.length() ? value.substring(0, split) : null;
+        if (split < value.length() && value.charAt(split) == '@') {
+            addDataFile(scratch, "--data-urlencode", DataPart.urlEncodedFile(name, value.substring(split + 1)));
+            return;
+        }
+
+        String content = split < value.length() ? value.substring(split + 1) : value;
+        String encoded = DataPart.urlEncode(RequestBody.encode(content));
+        addData(scratch, name == null ? encoded : name + "=" + encoded, false);
+    }
+
+    private static CurlParseException unsupportedStdin(String option) {
+        return new CurlParseException(FailureReason.UNSUPPORTED_OPTION, "Reading " + option + " data from stdin is not supported");
+    }
+
+    /**
+     * Adds --url-query values to the query of a URL. Values starting with '+'
+     * are added as-is, others have their content URL-encoded like curl does.
+     */
+    private static String appendQueries(String url, List<String> queries) {
+        if (queries.isEmpty()) return url;
+
+        int fragment = url.indexOf('#');
+        int end = fragment < 0 ? url.length() : fragment;
+
+        StringBuilder builder = new StringBuilder(url.length() + 64);
+        builder.append(url, 0, end);
+        char separator = url.lastIndexOf('?', end - 1) >= 0 ? '&' : '?';
+        for (String query : queries) {
+            builder.append(separator);
+            separator = '&';
+
+            if (query.startsWith("+")) {
+                builder.append(query, 1, query.length());
+            } else {
+                int equals = query.indexOf('=');
+                if (equals > 0) builder.append(query, 0, equals + 1);
+                builder.append(URLEncoder.encode(query.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Adds a multipart Content-Type, or adds the boundary to one that was
+     * given without it, as curl does. Any other Content-Type is left alone.
+     */
+    private static void setMultipartContentType(List<CurlHeader> headers, MultipartBody multipart) {
+        for (int i = 0; i < headers.size(); i++) {
+            CurlHeader header = headers.get(i);
+            if (!header.name().equalsIgnoreCase("Content-Type")) continue;
+
+            String value = header.value();
+            if (value.regionMatches(true, 0, "multipart/", 0, 10) && !value.toLowerCase().contains("boundary=")) {
+                headers.set(i, new CurlHeader(header.name(), value + "; boundary=" + multipart.getBoundary()));
+            }
+            return;
+        }
+        headers.add(new CurlHeader("Content-Type", multipart.getContentType()));
+    }
+
+    /**
+     * True if the URL starts with a scheme and "://", i.e. matches
+     * <code>^[A-Za-z][A-Za-z0-9+.-]*://</code>. A "://" later on, such as in a
+     * query parameter, does not count.
+     */
+    static boolean hasScheme(String url) {
+        if (url.isEmpty() || !isAsciiLetter(url.charAt(0))) return false;
+
+        int i = 1;
+        while (i < url.length()) {
+            char c = url.charAt(i);
+            if (!isAsciiLetter(c) && !(c >= '0' && c <= '9') && c != '+' && c != '.' && c != '-') break;
+            i++;
+        }
+        return url.startsWith("://", i);
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean hasHeader(List<CurlHeader> headers, String name) {
+        for (CurlHeader header : headers) {
+            if (header.name().equalsIgnoreCase(name)) return true;
+        }
+        return false;
+    }
+
+    private RequestBody joinBody(List<String> dataValues) {
+        try {
+            return RequestBody.join(dataValues, config.getBodySpillThreshold());
+        } catch (IOException e) {
+            throw new CurlParseException(FailureReason.BODY_FILE, "Unable to buffer request body: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends a cookie string without surrounding whitespace or trailing semicolons
+     */
+    private static void appendTrimmedCookie(StringBuilder builder, String cookie) {
+        int start = 0;
+        int end = cookie.length();
+        while (start < end && Character.isWhitespace(cookie.charAt(start))) start++;
+        while (end > start && (cookie.charAt(end - 1) == ';' || Character.isWhitespace(cookie.charAt(end - 1)))) end--;
+
+        builder.append(cookie, start, end);
+    }
+
+    /**
+     * Returns true if the first word of the command is the curl executable
+     */
+    public static boolean isCurlCommand(String command) {
+        String trimmed = command.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && !Character.isWhitespace(trimmed.charAt(end))) end++;
+
+        return isCurlExecutable(trimmed.substring(0, end));
+    }
+
+    private static boolean isCurlExecutable(String token) {
+        return token.equals("curl") || token.endsWith("/curl") || token.equalsIgnoreCase("curl.exe") || token.endsWith("\\curl.exe");
+    }
+
+    /**
+     * Per-thread working buffers, emptied after every parse
+     */
+    private static final class Scratch {
+        private final List<String> tokens = new ArrayList<>(64);
+        private final List<String> headerValues = new ArrayList<>(64);
+        private final List<String> cookieValues = new ArrayList<>(4);
+        private final List<String> urlQueries = new ArrayList<>(4);
+        private final List<String> dataValues = new ArrayList<>(4);
+        private final List<DataPart> dataParts = new ArrayList<>(4);
+        private boolean inlineSeparated;
+        private final List<MultipartBody.Part> formParts = new ArrayList<>(4);
+        private StringBuilder token = new StringBuilder(256);
+
+        private void release() {
+            tokens.clear();
+            headerValues.clear();
+            cookieValues.clear();
+            urlQueries.clear();
+            dataValues.clear();
+            dataParts.clear();
+            formParts.clear();
+
+            token.setLength(0);
+            if (token.capacity() > MAX_RETAINED_SCRATCH) token = new StringBuilder(256);
+        }
+    }
+
+    public static class CurlRequest {
+        private static final int STREAM_CHUNK_SIZE = 64 * 1024;
+
+        private final String method;
+        private final UrlSpan url;
+        private final List<CurlHeader> headers;
+        private final RequestBody body;
+        private final List<DataPart> data;
+        private final MultipartBody multipart;
+
+        private String baseUrl;
+
+        public CurlRequest(String method, UrlSpan url, List<CurlHeader> headers, String body) {
+            this(method, url, headers, RequestBody.of(body), List.of(), null);
+        }
+
+        /**
+         * @param body      the body, when it is given entirely inline
+         * @param data      the body in argument order, when it reads a file; otherwise empty
+         * @param multipart form fields, or null
+         */
+        public CurlRequest(String method, UrlSpan url, List<CurlHeader> headers, RequestBody body, List<DataPart> data,
+                           MultipartBody multipart) {
+            this.method = method;
+            this.url = url;
+            this.headers = headers;
+            this.body = body;
+            this.data = data;
+            this.multipart = multipart;
+        }
+
+        /**
+         * Renders the request line, headers and body as a raw HTTP/1.1 message
+         * in a single pre-sized buffer.
+         *
+         * A Host header is added unless one was given, and Content-Length is set
+         * from the body. The inline body, form file parts and binary body files
+         * are read straight into the message buffer; a text body file is read
+         * and stripped of newlines first.
+         */
+        public byte[] toRawRequest() throws IOException {
+            if (multipart != null) {
+                // each file part is read straight into the message
+                long bodyLength = multipart.length();
+                byte[] head = RequestBody.encode(renderHead(bodyLength));
+                if (head.length + bodyLength > FileBody.MAX_SIZE) throw new IOException("Request too large: " + bodyLength + " byte form");
+
+                byte[] message = new byte[head.length + (int) bodyLength];
+                System.arraycopy(head, 0, message, 0, head.length);
+                multipart.writeTo(message, head.length);
+                return message;
+            }
+
+            if (!data.isEmpty()) return DataPart.render(data, length -> RequestBody.encode(renderHead(length)));
+
+            // the body is copied straight into the message, from memory or from its spill file
+            byte[] head = RequestBody.encode(renderHead(body.length()));
+            if (head.length + body.length() > FileBody.MAX_SIZE) {
+                throw new IOException("Request too large: " + body.length() + " byte body");
+            }
+            byte[] message = new byte[head.length + (int) body.length()];
+            System.arraycopy(head, 0, message, 0, head.length);
+            body.copyTo(message, head.length);
+            return message;
+        }
+
+        /**
+         * Renders the request as {@link #toRawRequest()} does, handing it to
+         * <code>sink</code> in pieces.
+         *
+         * A body spilled to a temporary file is streamed from the file in
+         * chunks, so the message is never held in a byte array as well as in
+         * whatever the sink copies it into. Other requests are rendered into
+         * one array first and handed over whole.
+         */
+        public void writeRawRequest(RawRequestSink sink) throws IOException {
+            if (multipart != null || !data.isEmpty() || !body.isSpilled()) {
+                byte[] message = toRawRequest();
+                sink.start(message.length);
+                sink.write(message, 0, message.length);
+                return;
+            }
+
+            byte[] head = RequestBody.encode(renderHead(body.length()));
+            if (head.length + body.length() > FileBody.MAX_SIZE) {
+                throw new IOException("Request too large: " + body.length() + " byte body");
+            }
+            sink.start(head.length + (int) body.length());
+            sink.write(head, 0, head.length);
+
+            long remaining = body.length();
+            try (InputStream in = body.open()) {
+                byte[] chunk = new byte[(int) Math.min(STREAM_CHUNK_SIZE, remaining)];
+                while (remaining > 0) {
+                    int read = in.readNBytes(chunk, 0, (int) Math.min(chunk.length, remaining));
+                    if (read == 0) throw new IOException("Body file truncated");
+                    sink.write(chunk, 0, read);
+                    remaining -= read;
+                }
+            }
+        }
+
+        private String renderHead(long bodyLength) {
+            String query = getQuery();
+            int size = method.length() + url.getSource().length() + 64;
+            for (CurlHeader header : headers) {
+                size += header.name().length() + header.value().length() + 4;
+            }
+
+            StringBuilder builder = new StringBuilder(size);
+            builder.append(method).append(' ').append(getPath());
+            if (query != null && !"".equals(query)) builder.append('?').append(query);
+            builder.append(" HTTP/1.1\r\n");
+
+            boolean hasHost = false;
+            for (CurlHeader header : headers) {
+                if (header.name().equalsIgnoreCase("Host")) hasHost = true;
+            }
+            if (!hasHost) {
+                builder.append("Host: ").append(url.getHost());
+                if (!url.isDefaultPort()) builder.append(':').append(url.getPort());
+                builder.append("\r\n");
+            }
+
+            for (CurlHeader header : headers) {
+                // Content-Length always reflects the body actually sent
+                if (header.name().equalsIgnoreCase("Content-Length")) continue;
+
+                builder.append(header.name()).append(": ").append(header.value()).append("\r\n");
+            }
+
+            if (bodyLength > 0) builder.append("Content-Length: ").append(bodyLength).append("\r\n");
+
+            return builder.append("\r\n").toString();
+        }
+
+        /**
+         * The URL to send the request to, built once on first use
+         */
+        public String getBaseUrl() {
+            String result = baseUrl;
+            if (result == null) {
+                result = url.toBaseUrl();
+                baseUrl = result;
+            }
+            return result;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public UrlSpan getUrl() {
+            return url;
+        }
+
+        public String getProtocol() {
+            return url.getScheme();
+        }
+
+        public String getHost() {
+            return url.getHost();
+        }
+
+        public String getPath() {
+            String path = url.getPath();
+            if (path.isEmpty()) return "/";
+
+            return path;
+        }
+
+        public String getQuery() {
+            return url.getQuery();
+        }
+
+        public Integer getPort() {
+            return url.getPort();
+        }
+
+        public List<CurlHeader> getHeaders() {
+            return headers;
+        }
+
+        /**
+         * The inline body as text. Decodes the body on every call, so prefer
+         * {@link #getRequestBody()} for large bodies.
+         */
+        public String getBody() {
+            return body.toString();
+        }
+
+        public RequestBody getRequestBody() {
+            return body;
+        }
+
+        /**
+         * True if rendering the request reads a body file or a form file part,
+         * so its content can change between renders
+         */
+        public boolean readsFiles() {
+            if (!data.isEmpty()) return true;
+            if (multipart != null) {
+                for (MultipartBody.Part part : multipart.getParts()) {
+                    if (part.getFile() != null) return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Form fields given with -F, or null if there are none
+         */
+        public MultipartBody getMultipart() {
+            return multipart;
+        }
+
+        /**
+         * The body in the order its data options were given, when it reads a
+         * file; otherwise empty, and the body is {@link #getRequestBody()}
+         */
+        public List<DataPart> getDataParts() {
+            return data;
+        }
+
+        /**
+         * Path of the first file whose content is sent in the body, or null if
+         * the body is given inline
+         */
+        public String getBodyFile() {
+            for (DataPart part : data) {
+                if (part.getFile() != null) return part.getFile();
+            }
+            return null;
+        }
+
+        /**
+         * True if the first body file was given with -d/--data, in which case
+         * curl strips carriage returns and newlines from it
+         */
+        public boolean isBodyFileText() {
+            for (DataPart part : data) {
+                if (part.getFile() != null) return part.getKind() == DataPart.Kind.TEXT_FILE;
+            }
+            return false;
+        }
+    }
+}
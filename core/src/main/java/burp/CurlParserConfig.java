@@ -0,0 +1,73 @@
+package burp;
+
+/**
+ * Immutable settings for a CurlParser: the shell dialect of the input, the
+ * size and time limits, where log output goes, and how large an inline body
+ * may be before it is moved off the heap.
+ *
+ * @author August Detlefsen
+ */
+public class CurlParserConfig {
+
+    /**
+     * Inline bodies larger than this many bytes are kept in a temporary file
+     */
+    public static final long DEFAULT_BODY_SPILL_THRESHOLD = 16 * 1024 * 1024;
+
+    public static final CurlParserConfig DEFAULT = new CurlParserConfig(Dialect.AUTO, ParseLimits.DEFAULT, null);
+
+    private final Dialect dialect;
+    private final ParseLimits limits;
+    private final LogSink log;
+    private final long bodySpillThreshold;
+
+    /**
+     * @param log where log output goes; null for stdout/stderr
+     */
+    public CurlParserConfig(Dialect dialect, ParseLimits limits, LogSink log) {
+        this(dialect, limits, log, DEFAULT_BODY_SPILL_THRESHOLD);
+    }
+
+    /**
+     * @param bodySpillThreshold inline bodies larger than this many bytes are
+     *                           written to a temporary file instead of kept on the heap
+     */
+    public CurlParserConfig(Dialect dialect, ParseLimits limits, LogSink log, long bodySpillThreshold) {
+        this.dialect = dialect;
+        this.limits = limits;
+        this.log = log;
+        this.bodySpillThreshold = bodySpillThreshold;
+    }
+
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    public ParseLimits getLimits() {
+        return limits;
+    }
+
+    public LogSink getLog() {
+        return log;
+    }
+
+    public long getBodySpillThreshold() {
+        return bodySpillThreshold;
+    }
+
+    public CurlParserConfig withDialect(Dialect dialect) {
+        return new CurlParserConfig(dialect, limits, log, bodySpillThreshold);
+    }
+
+    public CurlParserConfig withLimits(ParseLimits limits) {
+        return new CurlParserConfig(dialect, limits, log, bodySpillThreshold);
+    }
+
+    public CurlParserConfig withLog(LogSink log) {
+        return new CurlParserConfig(dialect, limits, log, bodySpillThreshold);
+    }
+
+    public CurlParserConfig withBodySpillThreshold(long bodySpillThreshold) {
+        return new CurlParserConfig(dialect, limits, log, bodySpillThreshold);
+    }
+}
@@ -0,0 +1,197 @@
+package burp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes HTTP requests as bash cURL commands, the reverse of CurlParser.
+ *
+ * Commands are appended to a caller-supplied StringBuilder so that many
+ * requests can be written into one buffer. Text bodies are inlined with
+ * <code>--data-raw</code>, binary bodies with an ANSI-C quoted
+ * <code>--data-binary $'...'</code>, and bodies larger than the inline limit
+ * are written to a file and referenced with <code>--data-binary @file</code>.
+ * Bodies holding a NUL byte go to a file whenever there is a body directory,
+ * since no shell can pass one in an argument: bash ends a <code>$'...'</code>
+ * string at <code>\x00</code>. Without one they are inlined as
+ * <code>$'...\x00...'</code>, which the paste lexer decodes in full, so that a
+ * command that is only parsed again, such as the request editor's, leaves no
+ * files behind.
+ *
+ * Not thread-safe: use one writer per export.
+ *
+ * @author August Detlefsen
+ */
+public class CurlWriter {
+
+    public static final int DEFAULT_INLINE_LIMIT = 64 * 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final int inlineLimit;
+    private final Path bodyDirectory;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    private int bodyFiles;
+
+    /**
+     * @param inlineLimit   largest body written into the command itself, in bytes
+     * @param bodyDirectory where larger bodies and bodies holding NUL bytes are written;
+     *                      null to inline every body
+     */
+    public CurlWriter(int inlineLimit, Path bodyDirectory) {
+        this.inlineLimit = inlineLimit;
+        this.bodyDirectory = bodyDirectory;
+    }
+
+    /**
+     * Appends one command. The body is <code>length</code> bytes of
+     * <code>message</code> starting at <code>offset</code>, so a raw message
+     * can be passed without copying its body out first.
+     */
+    public void write(StringBuilder out, String method, String url, List<CurlHeader> headers,
+                      byte[] message, int offset, int length) throws IOException {
+        out.append("curl ");
+        appendQuoted(out, url);
+
+        boolean hasBody = length > 0;
+        boolean defaultMethod = hasBody ? "POST".equals(method) : "GET".equals(method);
+        if (!hasBody && "HEAD".equals(method)) {
+            //-X HEAD makes curl wait for a body that never comes; -I cannot be combined with data
+            out.append(" \\\n  -I");
+        } else if (!defaultMethod) {
+            out.append(" \\\n  -X ");
+            appendQuoted(out, method);
+        }
+
+        UrlSpan span = UrlSpan.parse(url);
+        String host = span != null ? hostHeader(span) : null;
+        for (CurlHeader header : headers) {
+            //curl works these out from the URL and body
+            if (header.name().equalsIgnoreCase("Content-Length")) continue;
+            if (header.name().equalsIgnoreCase("Host") && header.value().equalsIgnoreCase(host)) continue;
+
+            out.append(" \\\n  -H ");
+            appendQuoted(out, header.name() + ": " + header.value());
+        }
+
+        if (hasBody) {
+            out.append(" \\\n  ");
+            appendBody(out, message, offset, length);
+        }
+    }
+
+    private void appendBody(StringBuilder out, byte[] message, int offset, int length) throws IOException {
+        if (bodyDirectory != null && (length > inlineLimit || hasNul(message, offset, length))) {
+            Files.createDirectories(bodyDirectory);
+            Path file = bodyDirectory.resolve("body-" + (++bodyFiles) + ".bin");
+            try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(message, offset, length);
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            out.append("--data-binary ");
+            appendQuoted(out, "@" + file.toAbsolutePath());
+            return;
+        }
+
+        String text = decodeText(message, offset, length);
+        if (text != null) {
+            out.append("--data-raw ");
+            appendQuoted(out, text);
+        } else {
+            out.append("--data-binary ");
+            appendAnsiQuoted(out, message, offset, length);
+        }
+    }
+
+    private static boolean hasNul(byte[] message, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (message[i] == 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Decodes the body if it is UTF-8 text without control characters other
+     * than tab and line breaks, otherwise returns null.
+     */
+    private String decodeText(byte[] message, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            int b = message[i] & 0xff;
+            if ((b < 0x20 && b != '\t' && b != '\n' && b != '\r') || b == 0x7f) return null;
+        }
+        try {
+            CharBuffer chars = decoder.reset().decode(ByteBuffer.wrap(message, offset, length));
+            return chars.toString();
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Appends a value as one shell word: as-is when it only has safe characters,
+     * otherwise in single quotes with any single quote written as <code>'\''</code>.
+     */
+    public static void appendQuoted(StringBuilder out, String value) {
+        if (!value.isEmpty() && isSafe(value)) {
+            out.append(value);
+            return;
+        }
+
+        out.append('\'');
+        int start = 0;
+        int quote;
+        while ((quote = value.indexOf('\'', start)) >= 0) {
+            out.append(value, start, quote).append("'\\''");
+            start = quote + 1;
+        }
+        out.append(value, start, value.length()).append('\'');
+    }
+
+    /**
+     * Appends bytes as an ANSI-C quoted string, <code>$'...'</code>, escaping
+     * anything that is not printable ASCII. A NUL is written as
+     * <code>\x00</code>, which bash would take as the end of the string.
+     */
+    static void appendAnsiQuoted(StringBuilder out, byte[] bytes, int offset, int length) {
+        out.append("$'");
+        for (int i = offset; i < offset + length; i++) {
+            int b = bytes[i] & 0xff;
+            if (b == '\\' || b == '\'') {
+                out.append('\\').append((char) b);
+            } else if (b >= 0x20 && b < 0x7f) {
+                out.append((char) b);
+            } else {
+                out.append("\\x").append(HEX[b >> 4]).append(HEX[b & 0xf]);
+            }
+        }
+        out.append('\'');
+    }
+
+    private static boolean isSafe(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean safe = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || "_-.,/:=+%@".indexOf(c) >= 0;
+            if (!safe) return false;
+        }
+        return true;
+    }
+
+    private static String hostHeader(UrlSpan url) {
+        return url.isDefaultPort() ? url.getHost() : url.getHost() + ":" + url.getPort();
+    }
+}
@@ -0,0 +1,212 @@
+package burp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * One piece of a request body given with cURL's data options, for bodies that
+ * read a file.
+ *
+ * curl joins repeated <code>-d</code>, <code>--data-binary</code>,
+ * <code>--data-raw</code> and <code>--data-urlencode</code> values with
+ * '&amp;' in the order they were given, whether a value is inline or
+ * <code>@file</code>; <code>--json</code> values are appended without one. A
+ * request whose body reads a file keeps its data as a list of parts in that
+ * order: inline values between two files are joined into a single part, and
+ * each file is a part of its own.
+ *
+ * Immutable and safe to share between threads.
+ *
+ * @author August Detlefsen
+ */
+public class DataPart {
+
+    public enum Kind {
+        /**
+         * Data given inline
+         */
+        INLINE,
+        /**
+         * <code>-d @file</code>: the file with carriage returns and newlines removed
+         */
+        TEXT_FILE,
+        /**
+         * <code>--data-binary @file</code>, <code>--json @file</code> or
+         * <code>-T file</code>: the file as-is
+         */
+        BINARY_FILE,
+        /**
+         * <code>--data-urlencode [name]@file</code>: the file URL-encoded, after
+         * <code>name=</code> if a name was given
+         */
+        URLENCODED_FILE
+    }
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final Kind kind;
+    private final RequestBody body;
+    private final String file;
+    private final String name;
+    private final boolean separated;
+
+    private DataPart(Kind kind, RequestBody body, String file, String name, boolean separated) {
+        this.kind = kind;
+        this.body = body;
+        this.file = file;
+        this.name = name;
+        this.separated = separated;
+    }
+
+    /**
+     * @param separated true if the part follows the one before it after a '&amp;'
+     */
+    public static DataPart inline(RequestBody body, boolean separated) {
+        return new DataPart(Kind.INLINE, body, null, null, separated);
+    }
+
+    /**
+     * @param kind      {@link Kind#TEXT_FILE} or {@link Kind#BINARY_FILE}
+     * @param separated true if the part follows the one before it after a '&amp;'
+     */
+    public static DataPart file(Kind kind, String file, boolean separated) {
+        if (kind == Kind.INLINE || kind == Kind.URLENCODED_FILE) throw new IllegalArgumentException("Not a plain file kind: " + kind);
+        return new DataPart(kind, null, file, null, separated);
+    }
+
+    /**
+     * @param name the field name to put in front of the content, or null
+     */
+    public static DataPart urlEncodedFile(String name, String file) {
+        return new DataPart(Kind.URLENCODED_FILE, null, file, name, true);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * The inline data, or null for a file part
+     */
+    public RequestBody getBody() {
+        return body;
+    }
+
+    /**
+     * Path of the file, or null for inline data
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * The field name of a {@link Kind#URLENCODED_FILE} part, or null
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * True if the part follows the one before it after a '&amp;'; false for
+     * <code>--json</code> data, which curl appends as-is
+     */
+    public boolean isSeparated() {
+        return separated;
+    }
+
+    /**
+     * URL-encodes bytes as curl does for <code>--data-urlencode</code>: every
+     * byte other than letters, digits and <code>-._~</code> becomes
+     * <code>%XX</code>.
+     */
+    public static String urlEncode(byte[] bytes) {
+        StringBuilder out = new StringBuilder(bytes.length + 16);
+        for (byte value : bytes) {
+            int b = value & 0xff;
+            if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '-' || b == '.' || b == '_' || b == '~') {
+                out.append((char) b);
+            } else {
+                out.append('%').append(HEX[b >> 4]).append(HEX[b & 0xf]);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Renders a request whose body is <code>parts</code> joined as curl joins them.
+     *
+     * Inline parts are copied and binary files read straight into the message
+     * buffer; text and URL-encoded files are read and converted first, since
+     * their length is only known once that is done.
+     *
+     * @param head renders the request line and headers for a body of the given length
+     */
+    static byte[] render(List<DataPart> parts, LongFunction<byte[]> head) throws IOException {
+        byte[][] loaded = new byte[parts.size()][];
+        long[] lengths = new long[parts.size()];
+        long bodyLength = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            DataPart part = parts.get(i);
+            if (i > 0 && part.separated) bodyLength++;
+            switch (part.kind) {
+                case INLINE -> lengths[i] = part.body.length();
+                case TEXT_FILE -> {
+                    loaded[i] = FileBody.read(part.file, true, new byte[0]);
+                    lengths[i] = loaded[i].length;
+                }
+                case URLENCODED_FILE -> {
+                    String encoded = urlEncode(FileBody.read(part.file, false, new byte[0]));
+                    loaded[i] = RequestBody.encode(part.name == null ? encoded : part.name + "=" + encoded);
+                    lengths[i] = loaded[i].length;
+                }
+                default -> {
+                    try (FileChannel channel = FileChannel.open(Path.of(part.file), StandardOpenOption.READ)) {
+                        lengths[i] = channel.size();
+                    }
+                }
+            }
+            bodyLength += lengths[i];
+        }
+
+        byte[] rendered = head.apply(bodyLength);
+        if (rendered.length + bodyLength > FileBody.MAX_SIZE) throw new IOException("Request too large: " + bodyLength + " byte body");
+
+        byte[] message = new byte[rendered.length + (int) bodyLength];
+        System.arraycopy(rendered, 0, message, 0, rendered.length);
+        int offset = rendered.length;
+        for (int i = 0; i < parts.size(); i++) {
+            DataPart part = parts.get(i);
+            if (i > 0 && part.separated) message[offset++] = '&';
+
+            if (part.kind == Kind.INLINE) {
+                part.body.copyTo(message, offset);
+            } else if (loaded[i] != null) {
+                System.arraycopy(loaded[i], 0, message, offset, loaded[i].length);
+            } else {
+                readFile(part.file, message, offset, (int) lengths[i]);
+            }
+            offset += (int) lengths[i];
+        }
+        return message;
+    }
+
+    private static void readFile(String path, byte[] dest, int offset, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(dest, offset, length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new IOException("File changed while reading: " + path);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (kind == Kind.INLINE) return body.toString();
+        return (name != null ? name : "") + "@" + file;
+    }
+}
@@ -0,0 +1,245 @@
+package burp;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streams the rows of a dataset for a RequestTemplate, one at a time, so a
+ * file of any size is read in constant memory.
+ *
+ * Two formats are read. CSV follows RFC 4180: the first row names the
+ * columns, fields may be double quoted, and a quoted field may contain commas,
+ * line breaks and doubled quotes. JSONL has one flat JSON object per line;
+ * the keys of the first object name the columns, and keys that later objects
+ * add are ignored. The format is detected from the first character of the
+ * file: a JSON object means JSONL, anything else is read as CSV.
+ *
+ * @author August Detlefsen
+ */
+public class DatasetReader implements Closeable {
+
+    public enum Format { CSV, JSONL }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * How far to look for the first non-blank character when detecting the format
+     */
+    private static final int DETECT_LIMIT = 4096;
+
+    private final RequestImporter.CountingInputStream stream;
+    private final BufferedReader reader;
+    private final Format format;
+    private final int maxFieldLength;
+    private final JsonReader json;
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> fields = new ArrayList<>();
+
+    private List<String> columns;
+    private String[] pending;
+    private int row;
+
+    public DatasetReader(InputStream in, int maxFieldLength) throws IOException {
+        this.stream = new RequestImporter.CountingInputStream(in);
+        this.reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.maxFieldLength = maxFieldLength;
+        skipByteOrderMark(reader);
+        this.format = detect(reader);
+        this.json = format == Format.JSONL ? new JsonReader(reader, maxFieldLength, FailureReason.INVALID_DATASET) : null;
+        readColumns();
+    }
+
+    public static DatasetReader open(Path file, int maxFieldLength) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        try {
+            return new DatasetReader(in, maxFieldLength);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return bytes consumed from the underlying stream so far, for progress reporting
+     */
+    public long getBytesRead() {
+        return stream.getCount();
+    }
+
+    /**
+     * @return the number of rows returned so far
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Returns the values of the next row in column order, or null at the end
+     * of the input. Missing values are null.
+     *
+     * @throws CurlParseException if a row is malformed or a value exceeds the size limit
+     */
+    public String[] next() throws IOException {
+        String[] values;
+        if (pending != null) {
+            values = pending;
+            pending = null;
+        } else {
+            values = format == Format.JSONL ? nextObject() : nextRecord();
+        }
+        if (values != null) row++;
+        return values;
+    }
+
+    private void readColumns() throws IOException {
+        if (format == Format.CSV) {
+            String[] header = nextRecord();
+            columns = header == null ? List.of() : List.of(header);
+            return;
+        }
+
+        //the first object names the columns and is also the first row
+        List<String> names = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        if (json.peek() == '{') {
+            json.beginObject();
+            while (json.hasNext()) {
+                names.add(json.nextName());
+                values.add(json.nextString());
+            }
+            json.endObject();
+            pending = values.toArray(new String[0]);
+        } else if (json.peek() != -1) {
+            throw new CurlParseException(FailureReason.INVALID_DATASET, "Expected a JSON object on line 1");
+        }
+        columns = List.copyOf(names);
+    }
+
+    private String[] nextObject() throws IOException {
+        int c = json.peek();
+        if (c == -1) return null;
+        if (c != '{') throw new CurlParseException(FailureReason.INVALID_DATASET, "Expected a JSON object in row " + (row + 1));
+
+        String[] values = new String[columns.size()];
+        json.beginObject();
+        while (json.hasNext()) {
+            int column = columns.indexOf(json.nextName());
+            if (column < 0) {
+                json.skipValue();
+            } else {
+                values[column] = json.nextString();
+            }
+        }
+        json.endObject();
+        return values;
+    }
+
+    /**
+     * Reads one CSV record, skipping blank lines, or returns null at the end of the input
+     */
+    private String[] nextRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean any = false;
+
+        while (true) {
+            int c = reader.read();
+            if (c == -1) {
+                if (quoted) throw new CurlParseException(FailureReason.INVALID_DATASET, "Unterminated quoted field in row " + (row + 1));
+                if (!any) return null;
+                break;
+            }
+
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        append((char) c);
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    append((char) c);
+                }
+                continue;
+            }
+
+            if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') reader.reset();
+                }
+                //a blank line is not a record
+                if (!any) continue;
+                break;
+            }
+
+            any = true;
+            if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else {
+                append((char) c);
+            }
+        }
+        fields.add(field.toString());
+
+        String[] record = fields.toArray(new String[0]);
+        if (columns != null && record.length < columns.size()) record = Arrays.copyOf(record, columns.size());
+        return record;
+    }
+
+    private void append(char c) {
+        if (field.length() >= maxFieldLength) {
+            throw new CurlParseException(FailureReason.TOO_LARGE, "Field exceeds " + maxFieldLength + " characters in row " + (row + 1));
+        }
+        field.append(c);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static void skipByteOrderMark(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') reader.reset();
+    }
+
+    private static Format detect(BufferedReader reader) throws IOException {
+        reader.mark(DETECT_LIMIT);
+        try {
+            for (int i = 0; i < DETECT_LIMIT; i++) {
+                int c = reader.read();
+                if (c == -1) break;
+                if (Character.isWhitespace(c)) continue;
+
+                return c == '{' ? Format.JSONL : Format.CSV;
+            }
+            return Format.CSV;
+        } finally {
+            reader.reset();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package burp;
+
+/**
+ * Shell quoting rules a cURL command was written for.
+ *
+ * @author August Detlefsen
+ */
+public enum Dialect {
+    /**
+     * Detect the dialect from the start of the input, see {@link #detect}
+     */
+    AUTO,
+
+    /**
+     * POSIX shells (bash, zsh, sh), including <code>$'...'</code> strings: "Copy as cURL (bash)"
+     */
+    BASH,
+
+    /**
+     * PowerShell running <code>curl.exe</code>, with backtick escapes and continuations
+     */
+    POWERSHELL,
+
+    /**
+     * Windows cmd, with caret escapes and continuations: "Copy as cURL (cmd)"
+     */
+    CMD;
+
+    /**
+     * How much of the input {@link #detect} looks at
+     */
+    static final int DETECT_LIMIT = 512;
+
+    /**
+     * This dialect, or the one detected from <code>input</code> if this is {@link #AUTO}
+     */
+    public Dialect resolve(CharSequence input) {
+        return this == AUTO ? detect(input) : this;
+    }
+
+    /**
+     * Guesses the dialect from the first {@value #DETECT_LIMIT} characters.
+     * The first line ending in a continuation decides: <code>\</code> for
+     * bash, a backtick for PowerShell and <code>^</code> for cmd. Without one,
+     * a <code>^"</code> (how cmd copies quote every argument) means cmd.
+     * Anything else is read as bash.
+     */
+    public static Dialect detect(CharSequence input) {
+        int limit = Math.min(input.length(), DETECT_LIMIT);
+        boolean caretQuote = false;
+        for (int i = 0; i < limit; i++) {
+            char c = input.charAt(i);
+            if (c == '\n') {
+                int end = i > 0 && input.charAt(i - 1) == '\r' ? i - 2 : i - 1;
+                if (end >= 0) {
+                    char last = input.charAt(end);
+                    if (last == '\\') return BASH;
+                    if (last == '`') return POWERSHELL;
+                    if (last == '^') return CMD;
+                }
+            } else if (c == '^' && i + 1 < limit && input.charAt(i + 1) == '"') {
+                caretQuote = true;
+            }
+        }
+        return caretQuote ? CMD : BASH;
+    }
+}
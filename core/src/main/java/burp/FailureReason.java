@@ -0,0 +1,78 @@
+package burp;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Why a command could not be turned into a request, for counting failures by type.
+ *
+ * @author August Detlefsen
+ */
+public enum FailureReason {
+    /**
+     * The text does not start with curl
+     */
+    NOT_CURL,
+    /**
+     * No URL was given
+     */
+    NO_URL,
+    /**
+     * The URL has no host or cannot be parsed
+     */
+    INVALID_URL,
+    /**
+     * The command is longer than the parse limits allow
+     */
+    TOO_LARGE,
+    /**
+     * Parsing took longer than the parse limits allow
+     */
+    TIMEOUT,
+    /**
+     * The command uses an option that cannot be turned into a request, such
+     * as data read from stdin
+     */
+    UNSUPPORTED_OPTION,
+    /**
+     * A -F/--form field is malformed
+     */
+    INVALID_FORM,
+    /**
+     * A HAR file is not valid JSON
+     */
+    INVALID_HAR,
+    /**
+     * A CSV or JSONL dataset row is malformed
+     */
+    INVALID_DATASET,
+    /**
+     * A body file could not be read, or a large body could not be buffered
+     */
+    BODY_FILE,
+    /**
+     * Burp could not build a request from the parsed command
+     */
+    BUILD,
+    /**
+     * The request could not be sent
+     */
+    SEND,
+    OTHER;
+
+    /**
+     * The reason carried by an exception thrown while parsing or building
+     */
+    public static FailureReason of(Throwable t) {
+        if (t instanceof CurlParseException) return ((CurlParseException) t).getReason();
+        if (t instanceof IOException || t instanceof UncheckedIOException) return BODY_FILE;
+        return OTHER;
+    }
+
+    /**
+     * True if the command parsed but has no usable URL, so there is no request
+     */
+    public boolean isNoRequest() {
+        return this == NO_URL || this == INVALID_URL;
+    }
+}
@@ -0,0 +1,69 @@
+package burp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Loads request bodies referenced from a cURL command (<code>-d @file</code>,
+ * <code>--data-binary @file</code>, <code>-T file</code>) as raw bytes.
+ *
+ * Files are read through a FileChannel straight into the array that becomes
+ * the request body, so content never passes through a String and binary data
+ * is not altered by charset decoding.
+ *
+ * @author August Detlefsen
+ */
+public class FileBody {
+
+    /**
+     * Largest body that fits in a single Java array
+     */
+    static final long MAX_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Reads a body file.
+     *
+     * @param path   file to read
+     * @param text   true to drop carriage returns and newlines, as curl does for -d @file
+     * @param prefix bytes to place in front of the file content (inline data given
+     *               alongside the file), or an empty array
+     */
+    public static byte[] read(String path, boolean text, byte[] prefix) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size + prefix.length > MAX_SIZE) {
+                throw new IOException("Body file too large: " + path + " (" + size + " bytes)");
+            }
+
+            byte[] body = new byte[prefix.length + (int) size];
+            System.arraycopy(prefix, 0, body, 0, prefix.length);
+
+            ByteBuffer buffer = ByteBuffer.wrap(body, prefix.length, (int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) break;
+            }
+            int length = buffer.position();
+
+            if (text) length = stripNewlines(body, prefix.length, length);
+
+            return length == body.length ? body : Arrays.copyOf(body, length);
+        }
+    }
+
+    /**
+     * Removes CR and LF bytes from <code>body[start, end)</code> in place and
+     * returns the new end of the data.
+     */
+    private static int stripNewlines(byte[] body, int start, int end) {
+        int out = start;
+        for (int i = start; i < end; i++) {
+            byte b = body[i];
+            if (b != '\r' && b != '\n') body[out++] = b;
+        }
+        return out;
+    }
+}
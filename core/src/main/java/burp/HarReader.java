@@ -0,0 +1,210 @@
+package burp;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the requests out of a HAR (HTTP Archive) file one entry at a time.
+ *
+ * Only <code>log.entries[].request</code> is read. Everything else, including
+ * response bodies, is skipped as it streams past, so memory use depends on the
+ * size of one request rather than the size of the archive.
+ *
+ * @author August Detlefsen
+ */
+public class HarReader {
+
+    private final JsonReader json;
+    private boolean started;
+    private boolean finished;
+
+    public HarReader(Reader reader) {
+        this(reader, ParseLimits.DEFAULT.getMaxInputLength());
+    }
+
+    /**
+     * @param maxStringLength longest single JSON string accepted, e.g. a request body
+     */
+    public HarReader(Reader reader, int maxStringLength) {
+        this.json = new JsonReader(reader, maxStringLength, FailureReason.INVALID_HAR);
+    }
+
+    /**
+     * Returns the request from the next entry, or null when there are no more.
+     *
+     * @throws CurlParseException if the entry's request cannot be used, e.g. it
+     *                            has no valid URL, in which case reading can
+     *                            continue with the next entry; or if the JSON is
+     *                            malformed, in which case there are no more.
+     */
+    public CurlParser.CurlRequest next() throws IOException {
+        HarRequest request;
+        try {
+            request = nextEntry();
+        } catch (CurlParseException e) {
+            //malformed JSON, so there is no way to find the next entry
+            finished = true;
+            throw e;
+        }
+        return request != null ? request.toCurlRequest() : null;
+    }
+
+    private HarRequest nextEntry() throws IOException {
+        if (!started) {
+            started = true;
+            finished = !seekEntries();
+        }
+
+        while (!finished && json.hasNext()) {
+            if (json.peek() != '{') {
+                json.skipValue();
+                continue;
+            }
+
+            HarRequest request = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if ("request".equals(name) && json.peek() == '{') {
+                    request = readRequest();
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+
+            if (request != null) return request;
+        }
+
+        //the rest of the archive (pages, creator etc.) is not needed
+        finished = true;
+        return null;
+    }
+
+    /**
+     * Moves to the first element of log.entries. Returns false if there is none.
+     */
+    private boolean seekEntries() throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (!"log".equals(name) || json.peek() != '{') {
+                json.skipValue();
+                continue;
+            }
+
+            json.beginObject();
+            while (json.hasNext()) {
+                String logName = json.nextName();
+                if ("entries".equals(logName) && json.peek() == '[') {
+                    json.beginArray();
+                    return true;
+                }
+                json.skipValue();
+            }
+            json.endObject();
+        }
+        return false;
+    }
+
+    private HarRequest readRequest() throws IOException {
+        HarRequest request = new HarRequest();
+
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            switch (name) {
+                case "method":
+                    request.method = json.nextString();
+                    break;
+                case "url":
+                    request.url = json.nextString();
+                    break;
+                case "headers":
+                    readHeaders(request.headers);
+                    break;
+                case "postData":
+                    request.body = readPostData();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+
+        return request;
+    }
+
+    private void readHeaders(List<CurlHeader> headers) throws IOException {
+        if (json.peek() != '[') {
+            json.skipValue();
+            return;
+        }
+
+        json.beginArray();
+        while (json.hasNext()) {
+            if (json.peek() != '{') {
+                json.skipValue();
+                continue;
+            }
+
+            String name = null;
+            String value = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                String field = json.nextName();
+                if ("name".equals(field)) {
+                    name = json.nextString();
+                } else if ("value".equals(field)) {
+                    value = json.nextString();
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+
+            //HTTP/2 pseudo-headers such as :authority are carried by the request line and Host header
+            if (name != null && !name.isEmpty() && name.charAt(0) != ':') {
+                headers.add(new CurlHeader(name, value != null ? value : ""));
+            }
+        }
+        json.endArray();
+    }
+
+    private String readPostData() throws IOException {
+        if (json.peek() != '{') {
+            json.skipValue();
+            return null;
+        }
+
+        String text = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if ("text".equals(name)) {
+                text = json.nextString();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return text;
+    }
+
+    private static class HarRequest {
+        String method;
+        String url;
+        String body;
+        final List<CurlHeader> headers = new ArrayList<>();
+
+        CurlParser.CurlRequest toCurlRequest() {
+            UrlSpan span = url != null ? UrlSpan.parse(url) : null;
+            if (span == null) throw new CurlParseException(FailureReason.INVALID_URL, "Invalid URL in HAR entry: " + Log.excerpt(url));
+
+            String verb = method != null && !method.isEmpty() ? method : "GET";
+            return new CurlParser.CurlRequest(verb, span, headers, body != null ? body : "");
+        }
+    }
+}
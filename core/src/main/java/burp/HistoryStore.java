@@ -0,0 +1,19 @@
+package burp;
+
+/**
+ * Key-value storage for PasteHistory, e.g. the extension data saved in the
+ * Burp project file.
+ *
+ * @author August Detlefsen
+ */
+public interface HistoryStore {
+
+    /**
+     * @return the value stored under <code>key</code>, or null
+     */
+    byte[] get(String key);
+
+    void put(String key, byte[] value);
+
+    void remove(String key);
+}
@@ -0,0 +1,152 @@
+package burp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the shell words of a cURL command up to date as the text is edited,
+ * re-reading only the part of the command around each change.
+ *
+ * Every token starts where the lexer is outside any quote, so lexing can
+ * restart at the token before an edit. Once the new tokens line up with an
+ * old token start past the edit, everything after that point is unchanged
+ * and the old tokens are kept, only shifted. Editing a header next to a
+ * multi-MB body therefore does not re-read the body.
+ *
+ * Not thread-safe.
+ *
+ * @author August Detlefsen
+ */
+public class IncrementalLexer {
+
+    private String text;
+    private List<Token> tokens = new ArrayList<>();
+    private final StringBuilder scratch = new StringBuilder();
+
+    private int lastRelexed;
+
+    public IncrementalLexer(String text) {
+        setText(text);
+    }
+
+    /**
+     * Replaces the whole text and lexes it from scratch
+     */
+    public void setText(String text) {
+        this.text = text;
+        tokens.clear();
+        lastRelexed = relex(0, text.length(), null, 0, 0, tokens);
+    }
+
+    /**
+     * Applies an edit: <code>removed</code> characters at <code>offset</code>
+     * are replaced with <code>inserted</code>.
+     */
+    public void replace(int offset, int removed, String inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > text.length()) {
+            throw new IndexOutOfBoundsException("Edit " + offset + "+" + removed + " outside text of length " + text.length());
+        }
+        text = text.substring(0, offset) + inserted + text.substring(offset + removed);
+        int delta = inserted.length() - removed;
+
+        //restart at the last token starting at or before the edit, since the edit may extend it
+        int first = lastTokenAtOrBefore(offset);
+        int restart = first >= 0 ? tokens.get(first).start : 0;
+        if (first < 0) first = 0;
+
+        List<Token> updated = new ArrayList<>(tokens.size() + 4);
+        updated.addAll(tokens.subList(0, first));
+        lastRelexed = relex(restart, offset + inserted.length(), tokens, first, delta, updated);
+        tokens = updated;
+    }
+
+    private int lastTokenAtOrBefore(int offset) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (tokens.get(mid).start <= offset) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return the current shell words
+     */
+    public List<String> getTokens() {
+        List<String> values = new ArrayList<>(tokens.size());
+        for (Token token : tokens) values.add(token.value);
+        return values;
+    }
+
+    /**
+     * @return start offset of each token in the current text, for tests and highlighting
+     */
+    public int[] getTokenStarts() {
+        int[] starts = new int[tokens.size()];
+        for (int i = 0; i < starts.length; i++) starts[i] = tokens.get(i).start;
+        return starts;
+    }
+
+    /**
+     * @return number of characters read by the last update
+     */
+    public int getLastRelexed() {
+        return lastRelexed;
+    }
+
+    /**
+     * Lexes from <code>from</code>, adding tokens to <code>out</code>. Once at or past
+     * <code>editEnd</code>, stops at the first token start that matches an old
+     * token (shifted by <code>delta</code>) and copies the old tokens from there.
+     *
+     * @return number of characters read
+     */
+    private int relex(int from, int editEnd, List<Token> old, int oldIndex, int delta, List<Token> out) {
+        int len = text.length();
+        int i = CurlLexer.skipSeparators(text, from);
+        while (i < len) {
+            if (old != null && i >= editEnd) {
+                //old token starts are in the old text's coordinates
+                while (oldIndex < old.size() && old.get(oldIndex).start + delta < i) oldIndex++;
+                if (oldIndex < old.size() && old.get(oldIndex).start + delta == i) {
+                    for (int k = oldIndex; k < old.size(); k++) {
+                        Token token = old.get(k);
+                        out.add(new Token(token.start + delta, token.value));
+                    }
+                    return i - from;
+                }
+            }
+
+            int start = i;
+            i = CurlLexer.readToken(text, i, scratch);
+            out.add(new Token(start, scratch.toString()));
+            scratch.setLength(0);
+            //don't hold on to the space used by one very large token
+            if (scratch.capacity() > 64 * 1024) scratch.trimToSize();
+
+            i = CurlLexer.skipSeparators(text, i);
+        }
+        return len - from;
+    }
+
+    private static final class Token {
+        final int start;
+        final String value;
+
+        Token(int start, String value) {
+            this.start = start;
+            this.value = value;
+        }
+    }
+}
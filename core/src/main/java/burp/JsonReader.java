@@ -0,0 +1,211 @@
+package burp;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal pull parser for JSON, reading one value at a time from a stream.
+ * Values that are not needed are skipped without being buffered, so a large
+ * document can be walked in constant memory.
+ *
+ * The parser is lenient: commas and colons are treated as whitespace and the
+ * structure is not validated beyond matching brackets.
+ *
+ * @author August Detlefsen
+ */
+class JsonReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final int maxStringLength;
+    private final FailureReason malformed;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder string = new StringBuilder();
+
+    private int position;
+    private int limit;
+
+    /**
+     * @param malformed the reason given when the input is not valid JSON, so
+     *                  that failures are counted against the format being read
+     */
+    JsonReader(Reader reader, int maxStringLength, FailureReason malformed) {
+        this.reader = reader;
+        this.maxStringLength = maxStringLength;
+        this.malformed = malformed;
+    }
+
+    void beginObject() throws IOException {
+        expect('{');
+    }
+
+    void endObject() throws IOException {
+        expect('}');
+    }
+
+    void beginArray() throws IOException {
+        expect('[');
+    }
+
+    void endArray() throws IOException {
+        expect(']');
+    }
+
+    /**
+     * @return true if the current object or array has another member
+     */
+    boolean hasNext() throws IOException {
+        int c = peek();
+        return c != '}' && c != ']' && c != -1;
+    }
+
+    /**
+     * @return the next character that starts a value, or -1 at the end of input
+     */
+    int peek() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) return -1;
+
+            char c = buffer[position];
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == ',' || c == ':' || c == '\uFEFF') {
+                position++;
+            } else {
+                return c;
+            }
+        }
+    }
+
+    String nextName() throws IOException {
+        String name = nextString();
+        return name != null ? name : "";
+    }
+
+    /**
+     * Reads a string, or the literal text of a number or boolean. Returns null
+     * for a JSON null, and skips an object or array and returns null.
+     */
+    String nextString() throws IOException {
+        int c = peek();
+        if (c == '{' || c == '[') {
+            skipValue();
+            return null;
+        }
+        if (c != '"') {
+            String literal = readLiteral();
+            return literal.equals("null") ? null : literal;
+        }
+        position++;
+
+        string.setLength(0);
+        while (true) {
+            int next = read();
+            if (next == -1) throw new CurlParseException(malformed, "Unterminated JSON string");
+            if (next == '"') break;
+            if (next == '\\') next = readEscape();
+
+            if (string.length() >= maxStringLength) {
+                throw new CurlParseException(FailureReason.TOO_LARGE, "JSON string exceeds " + maxStringLength + " characters");
+            }
+            string.append((char) next);
+        }
+        String result = string.toString();
+        //don't hold on to the space used by one very large string
+        if (string.capacity() > BUFFER_SIZE) {
+            string.setLength(0);
+            string.trimToSize();
+        }
+        return result;
+    }
+
+    /**
+     * Skips the next value, including any nested objects and arrays
+     */
+    void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            int c = peek();
+            if (c == -1) return;
+
+            if (c == '"') {
+                position++;
+                skipString();
+            } else if (c == '{' || c == '[') {
+                position++;
+                depth++;
+            } else if (c == '}' || c == ']') {
+                position++;
+                depth--;
+            } else {
+                readLiteral();
+            }
+        } while (depth > 0);
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1 || c == '"') return;
+            if (c == '\\') read();
+        }
+    }
+
+    private int readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) throw new CurlParseException(malformed, "Invalid JSON unicode escape");
+                    value = value * 16 + digit;
+                }
+                return value;
+            case -1:
+                throw new CurlParseException(malformed, "Unterminated JSON string");
+            default:
+                return c;
+        }
+    }
+
+    private String readLiteral() throws IOException {
+        string.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) break;
+
+            char c = buffer[position];
+            if (c == ',' || c == ':' || c == '}' || c == ']' || c == ' ' || c == '\t' || c == '\n' || c == '\r') break;
+            if (string.length() >= maxStringLength) throw new CurlParseException(FailureReason.TOO_LARGE, "JSON value too long");
+            string.append(c);
+            position++;
+        }
+        if (string.length() == 0) throw new CurlParseException(malformed, "Unexpected character in JSON");
+        return string.toString();
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peek();
+        if (c != expected) {
+            throw new CurlParseException(malformed, "Expected '" + expected + "' in JSON but found " + (c == -1 ? "end of input" : "'" + (char) c + "'"));
+        }
+        position++;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+package burp;
+
+import java.util.function.Supplier;
+
+/**
+ * Level-gated logging. Messages are passed as suppliers and only built when
+ * their level is enabled, so disabled debug output costs nothing even when it
+ * would include a multi-MB command.
+ *
+ * Output goes to the given LogSink, or to stdout/stderr when it is null. The level defaults to INFO and can be set with
+ * the <code>pastecurl.log.level</code> system property or {@link #setLevel}.
+ *
+ * @author August Detlefsen
+ */
+public class Log {
+
+    public enum Level { DEBUG, INFO, ERROR, OFF }
+
+    /**
+     * Longest message text included from user input, e.g. a pasted command
+     */
+    public static final int MAX_EXCERPT = 500;
+
+    private static volatile Level level = initialLevel();
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static boolean isEnabled(Level candidate) {
+        return candidate != Level.OFF && candidate.compareTo(level) >= 0;
+    }
+
+    public static void debug(LogSink sink, Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) output(sink, message.get());
+    }
+
+    public static void info(LogSink sink, Supplier<String> message) {
+        if (isEnabled(Level.INFO)) output(sink, message.get());
+    }
+
+    public static void error(LogSink sink, Supplier<String> message) {
+        if (isEnabled(Level.ERROR)) error(sink, message.get(), null);
+    }
+
+    public static void error(LogSink sink, Throwable t) {
+        if (isEnabled(Level.ERROR)) error(sink, null, t);
+    }
+
+    /**
+     * Shortens user input to at most MAX_EXCERPT characters for logging
+     */
+    public static String excerpt(String text) {
+        if (text == null || text.length() <= MAX_EXCERPT) return text;
+
+        return text.substring(0, MAX_EXCERPT) + "... (" + text.length() + " chars)";
+    }
+
+    private static void output(LogSink sink, String message) {
+        (sink != null ? sink : LogSink.CONSOLE).output(message);
+    }
+
+    private static void error(LogSink sink, String message, Throwable t) {
+        (sink != null ? sink : LogSink.CONSOLE).error(message, t);
+    }
+
+    private static Level initialLevel() {
+        String property = System.getProperty("pastecurl.log.level");
+        if (property != null) {
+            try {
+                return Level.valueOf(property.trim().toUpperCase());
+            } catch (IllegalArgumentException ignored) {
+                //fall back to the default
+            }
+        }
+        return Level.INFO;
+    }
+}
@@ -0,0 +1,35 @@
+package burp;
+
+/**
+ * Destination for log output, so the parser can log without depending on
+ * where it runs: Burp's extension output panes, or stdout/stderr on the
+ * command line.
+ *
+ * @author August Detlefsen
+ */
+public interface LogSink {
+
+    /**
+     * Writes to standard output
+     */
+    LogSink CONSOLE = new LogSink() {
+        @Override
+        public void output(String message) {
+            System.out.println(message);
+        }
+
+        @Override
+        public void error(String message, Throwable t) {
+            if (message != null) System.err.println(message);
+            if (t != null) t.printStackTrace(System.err);
+        }
+    };
+
+    void output(String message);
+
+    /**
+     * @param message error text, or null if there is only an exception
+     * @param t       cause of the error, or null
+     */
+    void error(String message, Throwable t);
+}
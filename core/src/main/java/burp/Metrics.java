@@ -0,0 +1,126 @@
+package burp;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for what the extension does and what it costs: commands parsed,
+ * characters of input read, latency of each parse phase, of parsing as a
+ * whole, of building and of sending, and failures by reason. Updates are
+ * lock-free and cheap enough to record on every command.
+ *
+ * @author August Detlefsen
+ */
+public class Metrics {
+
+    /**
+     * What is timed. TOKENIZE, URL, HEADERS and BODY are the phases of a parse,
+     * PARSE the whole of it.
+     */
+    public enum Operation { TOKENIZE, URL, HEADERS, BODY, PARSE, BUILD, SEND }
+
+    private static final Metrics GLOBAL = new Metrics();
+
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder inputChars = new LongAdder();
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final LongAdder[] failures = new LongAdder[FailureReason.values().length];
+
+    public Metrics() {
+        for (int i = 0; i < latencies.length; i++) latencies[i] = new LatencyHistogram();
+        for (int i = 0; i < failures.length; i++) failures[i] = new LongAdder();
+    }
+
+    /**
+     * Counters shared by the whole extension
+     */
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Records a successful parse of <code>chars</code> characters that started
+     * at <code>startNanos</code>
+     */
+    public void parsed(long chars, long startNanos) {
+        commands.increment();
+        inputChars.add(chars);
+        record(Operation.PARSE, startNanos);
+    }
+
+    /**
+     * Records one run of an operation that started at <code>startNanos</code>
+     * and returns the current time
+     */
+    public long record(Operation operation, long startNanos) {
+        long now = System.nanoTime();
+        latencies[operation.ordinal()].record(now - startNanos);
+        return now;
+    }
+
+    public void recordNanos(Operation operation, long nanos) {
+        latencies[operation.ordinal()].record(nanos);
+    }
+
+    public void failed(FailureReason reason) {
+        failures[reason.ordinal()].increment();
+    }
+
+    public long getCommands() {
+        return commands.sum();
+    }
+
+    public long getInputChars() {
+        return inputChars.sum();
+    }
+
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    public long getFailures(FailureReason reason) {
+        return failures[reason.ordinal()].sum();
+    }
+
+    public void reset() {
+        commands.reset();
+        inputChars.reset();
+        for (LatencyHistogram latency : latencies) latency.reset();
+        for (LongAdder failure : failures) failure.reset();
+    }
+
+    /**
+     * One line per operation: runs and latency percentiles, for the extension log
+     */
+    public String summary() {
+        StringBuilder builder = new StringBuilder("Timings:");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram latency = getLatency(operation);
+            builder.append("\n  ").append(operation.name().toLowerCase())
+                   .append(": ").append(latency.getCount()).append(" runs, ")
+                   .append(latency.percentile(0.5) / 1_000).append(" us p50, ")
+                   .append(latency.percentile(0.99) / 1_000).append(" us p99");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * All counters as CSV, one metric per row, with latencies in microseconds
+     */
+    public String toCsv() {
+        StringBuilder csv = new StringBuilder(512);
+        csv.append("metric,count,p50_us,p99_us,max_us\n");
+        csv.append("commands,").append(getCommands()).append(",,,\n");
+        csv.append("input_chars,").append(getInputChars()).append(",,,\n");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram latency = getLatency(operation);
+            csv.append(operation.name().toLowerCase()).append(',').append(latency.getCount())
+               .append(',').append(latency.percentile(0.5) / 1_000)
+               .append(',').append(latency.percentile(0.99) / 1_000)
+               .append(',').append(latency.getMax() / 1_000).append('\n');
+        }
+        for (FailureReason reason : FailureReason.values()) {
+            csv.append("failure.").append(reason.name().toLowerCase()).append(',').append(getFailures(reason)).append(",,,\n");
+        }
+        return csv.toString();
+    }
+}
@@ -0,0 +1,297 @@
+package burp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A multipart/form-data body built from curl's <code>-F</code>,
+ * <code>--form</code> and <code>--form-string</code> options.
+ *
+ * The body is a list of parts rather than a rendered buffer. File content is
+ * read through a FileChannel straight into the message when the request is
+ * rendered, so each file is loaded once, into the array that becomes the
+ * request.
+ *
+ * The boundary is derived from the parts, so the same command always renders
+ * the same bytes.
+ *
+ * @author August Detlefsen
+ */
+public class MultipartBody {
+
+    private static final String DEFAULT_FILE_TYPE = "application/octet-stream";
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final List<Part> parts;
+    private final String boundary;
+
+    public MultipartBody(List<Part> parts) {
+        this.parts = List.copyOf(parts);
+
+        RequestHasher hasher = new RequestHasher();
+        for (Part part : this.parts) hasher.body(part.toString());
+        this.boundary = "------------------------" + String.format("%016x", hasher.finish());
+    }
+
+    public List<Part> getParts() {
+        return parts;
+    }
+
+    public String getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * Value for the Content-Type header
+     */
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    /**
+     * Size of the rendered body in bytes, including the size of every file part
+     */
+    public long length() throws IOException {
+        long length = 0;
+        for (Part part : parts) {
+            length += 2 + boundary.length() + 2 + part.header().length + contentLength(part) + 2;
+        }
+        return length + 2 + boundary.length() + 4;
+    }
+
+    /**
+     * Renders the body into <code>dest</code> at <code>offset</code>, which
+     * must leave room for {@link #length()} bytes. Returns the offset just past
+     * the body.
+     */
+    public int writeTo(byte[] dest, int offset) throws IOException {
+        byte[] delimiter = ("--" + boundary + "\r\n").getBytes(StandardCharsets.UTF_8);
+        for (Part part : parts) {
+            offset = put(delimiter, dest, offset);
+            offset = put(part.header(), dest, offset);
+            if (part.file != null) {
+                offset = readFile(part.file, dest, offset);
+            } else {
+                offset = put(RequestBody.encode(part.value), dest, offset);
+            }
+            offset = put(CRLF, dest, offset);
+        }
+        return put(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8), dest, offset);
+    }
+
+    private static int put(byte[] bytes, byte[] dest, int offset) {
+        System.arraycopy(bytes, 0, dest, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    private static int readFile(String path, byte[] dest, int offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(dest, offset, (int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new IOException("File changed while reading: " + path);
+            }
+            return buffer.position();
+        }
+    }
+
+    private static long contentLength(Part part) throws IOException {
+        return part.file != null ? Files.size(Path.of(part.file)) : RequestBody.utf8Length(part.value);
+    }
+
+    /**
+     * Parses the argument of a form option.
+     *
+     * <code>name=value</code> is a text field, <code>name=@path</code> uploads a
+     * file and <code>name=&lt;path</code> sends a file's content as a text field.
+     * <code>;type=</code> and <code>;filename=</code> may follow the value.
+     * With <code>literal</code> (--form-string) the value is taken as-is.
+     *
+     * @throws CurlParseException if there is no '=', or a file upload names
+     *                             no file and gives no <code>filename=</code>
+     */
+    public static Part parsePart(String spec, boolean literal) {
+        int equals = spec.indexOf('=');
+        if (equals < 0) throw new CurlParseException(FailureReason.INVALID_FORM, "Illegal form field, no '=': " + Log.excerpt(spec));
+
+        String name = spec.substring(0, equals);
+        String rest = spec.substring(equals + 1);
+        if (literal) return new Part(name, rest, null, null, null);
+
+        char kind = rest.isEmpty() ? 0 : rest.charAt(0);
+        boolean fromFile = kind == '@' || kind == '<';
+        if (fromFile) rest = rest.substring(1);
+
+        //the value may be double quoted, so that it can contain ';'
+        StringBuilder value = new StringBuilder(rest.length());
+        int i = 0;
+        if (rest.startsWith("\"")) {
+            for (i = 1; i < rest.length() && rest.charAt(i) != '"'; i++) {
+                if (rest.charAt(i) == '\\' && i + 1 < rest.length()) i++;
+                value.append(rest.charAt(i));
+            }
+            i = rest.indexOf(';', i);
+        } else {
+            i = attributeStart(rest, 0);
+            value.append(rest, 0, i < 0 ? rest.length() : i);
+        }
+
+        String type = null;
+        String filename = null;
+        while (i >= 0 && i < rest.length()) {
+            int next = attributeStart(rest, i + 1);
+            String attribute = rest.substring(i + 1, next < 0 ? rest.length() : next).trim();
+            if (attribute.startsWith("type=")) {
+                type = attribute.substring(5);
+            } else if (attribute.startsWith("filename=")) {
+                filename = unquote(attribute.substring(9));
+            }
+            //headers= and encoder= are not supported and are dropped
+            i = next;
+        }
+
+        if (kind == '@') {
+            String file = value.toString();
+            if (filename == null) filename = fileName(file);
+            if (type == null) type = guessType(file);
+            return new Part(name, null, file, filename, type);
+        }
+        if (kind == '<') return new Part(name, null, value.toString(), null, type);
+        return new Part(name, value.toString(), null, null, type);
+    }
+
+    /**
+     * The last element of an upload's path, as curl sends it for the filename
+     */
+    private static String fileName(String file) {
+        Path name;
+        try {
+            name = Path.of(file).getFileName();
+        } catch (InvalidPathException e) {
+            name = null;
+        }
+        if (name == null) throw new CurlParseException(FailureReason.INVALID_FORM, "Illegal form field, no file name in: " + Log.excerpt(file));
+        return name.toString();
+    }
+
+    /**
+     * Finds the next ';' that starts one of curl's form attributes, or -1.
+     * Other semicolons are part of the value.
+     */
+    private static int attributeStart(String spec, int from) {
+        int i = spec.indexOf(';', from);
+        while (i >= 0) {
+            int start = i + 1;
+            while (start < spec.length() && spec.charAt(start) == ' ') start++;
+            if (spec.startsWith("type=", start) || spec.startsWith("filename=", start)
+                    || spec.startsWith("headers=", start) || spec.startsWith("encoder=", start)) {
+                return i;
+            }
+            i = spec.indexOf(';', i + 1);
+        }
+        return -1;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) return value.substring(1, value.length() - 1);
+        return value;
+    }
+
+    /**
+     * Content type for a file, from its extension, as curl guesses it
+     */
+    static String guessType(String file) {
+        String lower = file.toLowerCase();
+        int dot = lower.lastIndexOf('.');
+        String extension = dot < 0 ? "" : lower.substring(dot + 1);
+        return switch (extension) {
+            case "gif" -> "image/gif";
+            case "jpg", "jpeg" -> "image/jpeg";
+            case "png" -> "image/png";
+            case "svg" -> "image/svg+xml";
+            case "txt" -> "text/plain";
+            case "htm", "html" -> "text/html";
+            case "json" -> "application/json";
+            case "pdf" -> "application/pdf";
+            case "xml" -> "application/xml";
+            default -> DEFAULT_FILE_TYPE;
+        };
+    }
+
+    /**
+     * One form field. Either <code>value</code> or <code>file</code> is set; a
+     * file part with a filename is an upload, one without is a text field
+     * read from the file.
+     */
+    public static final class Part {
+        private final String name;
+        private final String value;
+        private final String file;
+        private final String filename;
+        private final String type;
+
+        public Part(String name, String value, String file, String filename, String type) {
+            this.name = name;
+            this.value = value;
+            this.file = file;
+            this.filename = filename;
+            this.type = type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * Content-Disposition and Content-Type lines and the blank line after them
+         */
+        private byte[] header() {
+            StringBuilder header = new StringBuilder(96);
+            header.append("Content-Disposition: form-data; name=\"").append(escape(name)).append('"');
+            if (filename != null) header.append("; filename=\"").append(escape(filename)).append('"');
+            header.append("\r\n");
+            if (type != null) header.append("Content-Type: ").append(type).append("\r\n");
+            return RequestBody.encode(header.append("\r\n").toString());
+        }
+
+        private static String escape(String value) {
+            return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+        }
+
+        /**
+         * The part written back in curl's -F syntax
+         */
+        @Override
+        public String toString() {
+            StringBuilder spec = new StringBuilder(name).append('=');
+            if (file != null) spec.append(filename != null ? '@' : '<').append(file);
+            else spec.append(value);
+            if (filename != null) spec.append(";filename=").append(filename);
+            if (type != null) spec.append(";type=").append(type);
+            return spec.toString();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package burp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the results of recent parses, so that pasting the same command
+ * again returns the request that was already built.
+ *
+ * Entries are looked up by a 64-bit hash and the length of the input text,
+ * and keep the text so that a lookup only hits when the text is equal; two
+ * texts whose hashes collide share a slot rather than each other's results.
+ * The cache is bounded by the total weight of its entries, roughly their
+ * size in bytes including the text, and evicts the least recently used
+ * entries first.
+ *
+ * Thread-safe. Callers parse outside the cache, so two threads missing on
+ * the same text at once may both parse it.
+ *
+ * @author August Detlefsen
+ */
+public class ParseCache<V> {
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ParseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached result for <code>text</code>, or null, counting a hit or a miss
+     */
+    public V get(String text) {
+        Key key = new Key(hash(text), text.length());
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.text.equals(text)) {
+                hits.increment();
+                return entry.value;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches the result of parsing <code>text</code>
+     *
+     * @param weight roughly the size of the value in bytes; the text is added to it
+     */
+    public void put(String text, V value, long weight) {
+        weight += 2L * text.length();
+        //a single entry larger than the whole cache would just evict everything else
+        if (value == null || weight > maxBytes) return;
+
+        Key key = new Key(hash(text), text.length());
+        synchronized (this) {
+            Entry<V> previous = entries.put(key, new Entry<>(text, value, weight));
+            if (previous != null) bytes -= previous.weight;
+            bytes += weight;
+
+            Iterator<Map.Entry<Key, Entry<V>>> eldest = entries.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<Key, Entry<V>> next = eldest.next();
+                bytes -= next.getValue().weight;
+                eldest.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Total weight of the cached entries
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * One line describing how well the cache is doing, for the extension log
+     */
+    public String summary() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return String.format("Parse cache: %d hits, %d misses (%.0f%% hit rate), %d entries, %d KB",
+                hitCount, total - hitCount, total == 0 ? 0.0 : hitCount * 100.0 / total, size(), getBytes() / 1024);
+    }
+
+    /**
+     * 64-bit hash of text, reading four characters per step
+     */
+    static long hash(String text) {
+        long h = 0x9e3779b97f4a7c15L ^ text.length();
+        int len = text.length();
+        int i = 0;
+        for (; i + 4 <= len; i += 4) {
+            long block = text.charAt(i) | (long) text.charAt(i + 1) << 16 | (long) text.charAt(i + 2) << 32 | (long) text.charAt(i + 3) << 48;
+            h = Long.rotateLeft(h ^ block * 0xc2b2ae3d27d4eb4fL, 31) * 0x9e3779b97f4a7c15L;
+        }
+        for (; i < len; i++) {
+            h = Long.rotateLeft(h ^ text.charAt(i) * 0x165667b19e3779f9L, 23) * 0x9e3779b97f4a7c15L;
+        }
+        return RequestHasher.finalizer(h);
+    }
+
+    private static final class Key {
+        private final long hash;
+        private final int length;
+
+        private Key(long hash, int length) {
+            this.hash = hash;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).hash == hash && ((Key) o).length == length;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) hash;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final String text;
+        private final V value;
+        private final long weight;
+
+        private Entry(String text, V value, long weight) {
+            this.text = text;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package burp;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Size and time budget for parsing a single cURL command.
+ *
+ * Parsing is linear in the length of the input, so the budget is a safety
+ * net: a truncated or hostile multi-MB paste fails fast with a
+ * CurlParseException instead of tying up a thread.
+ *
+ * @author August Detlefsen
+ */
+public class ParseLimits {
+
+    /**
+     * Limits for a command pasted from the clipboard, and for each string in a
+     * HAR archive or dataset read with them
+     */
+    public static final ParseLimits DEFAULT = new ParseLimits(32 * 1024 * 1024, 30_000);
+
+    /**
+     * Limits for importing a file of commands, where a single request may carry
+     * a body far larger than anything pasted
+     */
+    public static final ParseLimits BULK = new ParseLimits(512 * 1024 * 1024, 30_000);
+
+    private final int maxInputLength;
+    private final long maxParseMillis;
+
+    /**
+     * @param maxInputLength largest command accepted, in characters
+     * @param maxParseMillis longest a single parse may run, in milliseconds
+     */
+    public ParseLimits(int maxInputLength, long maxParseMillis) {
+        this.maxInputLength = maxInputLength;
+        this.maxParseMillis = maxParseMillis;
+    }
+
+    public int getMaxInputLength() {
+        return maxInputLength;
+    }
+
+    public long getMaxParseMillis() {
+        return maxParseMillis;
+    }
+
+    /**
+     * Rejects input longer than the size budget and returns the deadline for
+     * parsing it, in System.nanoTime() units.
+     */
+    long start(String input) {
+        return start(input.length());
+    }
+
+    /**
+     * As {@link #start(String)}, for a command of <code>length</code> characters
+     */
+    long start(int length) {
+        if (length > maxInputLength) {
+            throw new CurlParseException(FailureReason.TOO_LARGE, "cURL command is " + length + " characters, limit is " + maxInputLength);
+        }
+        return System.nanoTime() + maxParseMillis * 1_000_000L;
+    }
+
+    /**
+     * The length of a command already split into words, counting one
+     * separator between each, saturating at Integer.MAX_VALUE
+     */
+    static int length(List<String> words) {
+        long length = Math.max(0, words.size() - 1);
+        for (String word : words) length += word.length();
+        return (int) Math.min(length, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Fails if the deadline has passed or the calling thread was interrupted
+     */
+    static void check(long deadline) {
+        if (System.nanoTime() - deadline > 0) {
+            throw new CurlParseException(FailureReason.TIMEOUT, "cURL command took too long to parse");
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Parsing interrupted");
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package burp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Every pasted request, kept in a HistoryStore so that it survives with the
+ * Burp project.
+ *
+ * Each request is stored under its own key in RequestCodec's binary
+ * encoding, and is only decoded when it is recalled. An index of the time,
+ * method, host and path of every entry is stored in segments of
+ * {@value #SEGMENT_SIZE} entries; adding an entry rewrites only the last
+ * segment. Only the index is read at startup, and searches run against it in
+ * memory, using a list of entries per host to skip the entries for other
+ * hosts.
+ *
+ * Entries are numbered from 0 in the order they were added. If an index
+ * segment cannot be read while entries after it are still stored, the
+ * history is damaged: what could be read stays searchable, but nothing more
+ * is added, so that the stored entries are not overwritten. Clearing the
+ * history deletes everything and makes it usable again. Thread-safe.
+ *
+ * @author August Detlefsen
+ */
+public class PasteHistory {
+
+    /**
+     * Requests with larger inline bodies are not recorded, to keep the project file small
+     */
+    public static final int MAX_BODY_BYTES = 1024 * 1024;
+
+    static final int SEGMENT_SIZE = 128;
+
+    /**
+     * Format of the index segments, separate from the RequestCodec version of
+     * the entries
+     */
+    static final int INDEX_VERSION = 1;
+
+    /**
+     * Index segments were first stamped with the entry codec version, which was
+     * 2 for a while; those segments have the same layout as version 1
+     */
+    private static final int LEGACY_INDEX_VERSION = 2;
+
+    private static final String INDEX_PREFIX = "history.index.";
+    private static final String ENTRY_PREFIX = "history.entry.";
+
+    private final HistoryStore store;
+
+    //the index, one slot per entry
+    private long[] times = new long[SEGMENT_SIZE];
+    private int[] methods = new int[SEGMENT_SIZE];
+    private int[] hosts = new int[SEGMENT_SIZE];
+    private String[] paths = new String[SEGMENT_SIZE];
+    private int size;
+    private boolean damaged;
+
+    //methods and hosts are interned, and each host lists its entries in order
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final Map<Integer, Postings> byHost = new HashMap<>();
+
+    /**
+     * Reads the index from the store. An unreadable index segment ends the
+     * history there; if entries past that point are stored, the history is
+     * damaged and {@link #add} refuses to record more.
+     */
+    public PasteHistory(HistoryStore store) {
+        this.store = store;
+
+        for (int segment = 0; ; segment++) {
+            byte[] bytes = store.get(INDEX_PREFIX + segment);
+            if (bytes == null) break;
+
+            int before = size;
+            try {
+                readSegment(bytes);
+            } catch (IllegalArgumentException e) {
+                size = before;
+                damaged = store.get(ENTRY_PREFIX + size) != null;
+                break;
+            }
+            if (size - before < SEGMENT_SIZE) break;
+        }
+        for (int i = 0; i < size; i++) byHost.computeIfAbsent(hosts[i], key -> new Postings()).add(i);
+    }
+
+    /**
+     * Records a request
+     *
+     * @return the new entry's number, or -1 if its body is too large to record
+     * @throws IOException if the history is damaged, or the store fails
+     */
+    public synchronized int add(CurlParser.CurlRequest request, long timestamp) throws IOException {
+        if (damaged) {
+            throw new IOException("Paste history index is unreadable after entry " + size
+                    + "; not recording, so that stored entries are not overwritten. Clear the history to start again.");
+        }
+
+        long bodyLength = request.getRequestBody().length();
+        for (DataPart part : request.getDataParts()) {
+            if (part.getBody() != null) bodyLength += part.getBody().length();
+        }
+        if (bodyLength > MAX_BODY_BYTES) return -1;
+
+        int entry = size;
+        store.put(ENTRY_PREFIX + entry, RequestCodec.encode(request));
+
+        ensureCapacity(size + 1);
+        times[entry] = timestamp;
+        methods[entry] = intern(request.getMethod().toUpperCase(Locale.ROOT));
+        hosts[entry] = intern(request.getHost().toLowerCase(Locale.ROOT));
+        paths[entry] = request.getPath();
+        size++;
+        byHost.computeIfAbsent(hosts[entry], key -> new Postings()).add(entry);
+
+        int segment = entry / SEGMENT_SIZE;
+        store.put(INDEX_PREFIX + segment, writeSegment(segment));
+        return entry;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * True if part of the index could not be read and entries past it are
+     * still stored, see {@link #add}
+     */
+    public synchronized boolean isDamaged() {
+        return damaged;
+    }
+
+    /**
+     * Finds entries, newest first. Each filter is ignored when empty.
+     *
+     * @param host   part of the host name, case insensitive
+     * @param method the method, case insensitive
+     * @param path   part of the path, case sensitive
+     * @return matching entry numbers
+     */
+    public synchronized int[] find(String host, String method, String path) {
+        int methodId = -1;
+        if (!method.isEmpty()) {
+            Integer id = nameIds.get(method.toUpperCase(Locale.ROOT));
+            if (id == null) return new int[0];
+            methodId = id;
+        }
+
+        //candidates, in ascending order
+        int[] candidates;
+        int count;
+        if (host.isEmpty()) {
+            candidates = null;
+            count = size;
+        } else {
+            String needle = host.toLowerCase(Locale.ROOT);
+            candidates = new int[0];
+            count = 0;
+            for (Map.Entry<Integer, Postings> hostEntries : byHost.entrySet()) {
+                if (!names.get(hostEntries.getKey()).contains(needle)) continue;
+
+                Postings postings = hostEntries.getValue();
+                if (count + postings.size > candidates.length) candidates = Arrays.copyOf(candidates, count + postings.size);
+                System.arraycopy(postings.entries, 0, candidates, count, postings.size);
+                count += postings.size;
+            }
+            Arrays.sort(candidates, 0, count);
+        }
+
+        int[] matches = new int[count];
+        int found = 0;
+        for (int k = count - 1; k >= 0; k--) {
+            int entry = candidates == null ? k : candidates[k];
+            if (methodId >= 0 && methods[entry] != methodId) continue;
+            if (!path.isEmpty() && !paths[entry].contains(path)) continue;
+            matches[found++] = entry;
+        }
+        return Arrays.copyOf(matches, found);
+    }
+
+    /**
+     * The indexed fields of an entry, without reading the stored request
+     */
+    public synchronized Summary summary(int entry) {
+        checkEntry(entry);
+        return new Summary(entry, times[entry], names.get(methods[entry]), names.get(hosts[entry]), paths[entry]);
+    }
+
+    /**
+     * Reads and decodes a stored request
+     *
+     * @throws IllegalArgumentException if the entry is missing or cannot be decoded
+     */
+    public CurlParser.CurlRequest load(int entry) {
+        synchronized (this) {
+            checkEntry(entry);
+        }
+        byte[] bytes = store.get(ENTRY_PREFIX + entry);
+        if (bytes == null) throw new IllegalArgumentException("History entry " + entry + " is missing");
+        return RequestCodec.decode(bytes);
+    }
+
+    /**
+     * Deletes every entry and the index, including entries a damaged index
+     * no longer lists
+     */
+    public synchronized void clear() {
+        int entry = 0;
+        for (; entry < size; entry++) store.remove(ENTRY_PREFIX + entry);
+        while (damaged && store.get(ENTRY_PREFIX + entry) != null) store.remove(ENTRY_PREFIX + entry++);
+
+        int segments = (entry + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+        for (int segment = 0; segment < segments; segment++) store.remove(INDEX_PREFIX + segment);
+
+        size = 0;
+        damaged = false;
+        names.clear();
+        nameIds.clear();
+        byHost.clear();
+    }
+
+    private void checkEntry(int entry) {
+        if (entry < 0 || entry >= size) throw new IllegalArgumentException("No history entry " + entry);
+    }
+
+    private int intern(String name) {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            nameIds.put(name, id);
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= times.length) return;
+
+        int length = Math.max(capacity, times.length * 2);
+        times = Arrays.copyOf(times, length);
+        methods = Arrays.copyOf(methods, length);
+        hosts = Arrays.copyOf(hosts, length);
+        paths = Arrays.copyOf(paths, length);
+    }
+
+    private byte[] writeSegment(int segment) {
+        int start = segment * SEGMENT_SIZE;
+        int end = Math.min(size, start + SEGMENT_SIZE);
+
+        RequestCodec.Output out = new RequestCodec.Output((end - start) * 48);
+        out.writeVarint(INDEX_VERSION);
+        for (int entry = start; entry < end; entry++) {
+            out.writeLong(times[entry]);
+            out.writeString(names.get(methods[entry]));
+            out.writeString(names.get(hosts[entry]));
+            out.writeString(paths[entry]);
+        }
+        return out.toByteArray();
+    }
+
+    private void readSegment(byte[] bytes) {
+        RequestCodec.Input in = new RequestCodec.Input(bytes);
+        int version = (int) in.readVarint();
+        if (version != INDEX_VERSION && version != LEGACY_INDEX_VERSION) {
+            throw new IllegalArgumentException("Unknown history index version " + version);
+        }
+
+        while (in.hasRemaining()) {
+            long time = in.readLong();
+            String method = in.readString();
+            String host = in.readString();
+            String path = in.readString();
+            if (method == null || host == null || path == null) throw new IllegalArgumentException("Incomplete history index entry");
+
+            ensureCapacity(size + 1);
+            times[size] = time;
+            methods[size] = intern(method);
+            hosts[size] = intern(host);
+            paths[size] = path;
+            size++;
+        }
+    }
+
+    /**
+     * Growable list of entry numbers
+     */
+    private static final class Postings {
+        private int[] entries = new int[8];
+        private int size;
+
+        void add(int entry) {
+            if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+            entries[size++] = entry;
+        }
+    }
+
+    /**
+     * The indexed fields of one entry
+     */
+    public static final class Summary {
+        private final int entry;
+        private final long timestamp;
+        private final String method;
+        private final String host;
+        private final String path;
+
+        Summary(int entry, long timestamp, String method, String host, String path) {
+            this.entry = entry;
+            this.timestamp = timestamp;
+            this.method = method;
+            this.host = host;
+            this.path = path;
+        }
+
+        public int getEntry() {
+            return entry;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package burp;
+
+import java.io.IOException;
+
+/**
+ * Receives a rendered request in pieces, so that a caller can copy it into
+ * its own buffer type without the whole message being held in a byte array
+ * first.
+ *
+ * @author August Detlefsen
+ * @see CurlParser.CurlRequest#writeRawRequest(RawRequestSink)
+ */
+public interface RawRequestSink {
+
+    /**
+     * Called once, before any bytes, with the length of the whole message
+     */
+    void start(int length) throws IOException;
+
+    /**
+     * Appends <code>length</code> bytes of <code>bytes</code> from
+     * <code>offset</code>. The array may be reused once this returns, unless
+     * it holds the whole message, in which case the sink may keep it.
+     */
+    void write(byte[] bytes, int offset, int length) throws IOException;
+}
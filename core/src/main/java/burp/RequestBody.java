@@ -0,0 +1,271 @@
+package burp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The inline body of a request, held as UTF-8 bytes.
+ *
+ * Bodies are encoded once, straight from the parsed text into an array of
+ * the exact size. Bodies larger than the spill threshold are encoded in
+ * chunks to a temporary file instead, so they take no heap until the request
+ * is rendered. The file is deleted once the body is no longer referenced.
+ *
+ * Immutable and safe to share between threads.
+ *
+ * @author August Detlefsen
+ */
+public class RequestBody {
+
+    public static final RequestBody EMPTY = new RequestBody(new byte[0], null, 0);
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final byte[] bytes;
+    private final Path file;
+    private final long length;
+
+    private RequestBody(byte[] bytes, Path file, long length) {
+        this.bytes = bytes;
+        this.file = file;
+        this.length = length;
+    }
+
+    public static RequestBody of(String text) {
+        if (text.isEmpty()) return EMPTY;
+
+        byte[] bytes = encode(text);
+        return new RequestBody(bytes, null, bytes.length);
+    }
+
+    /**
+     * Wraps bytes that are already encoded, without copying them. The caller
+     * must not modify the array afterwards.
+     */
+    static RequestBody wrap(byte[] bytes) {
+        return bytes.length == 0 ? EMPTY : new RequestBody(bytes, null, bytes.length);
+    }
+
+    /**
+     * Encodes data values joined with '&amp;', as curl does for repeated data
+     * options, spilling to a temporary file above <code>spillThreshold</code> bytes.
+     */
+    public static RequestBody join(List<String> parts, long spillThreshold) throws IOException {
+        if (parts.isEmpty()) return EMPTY;
+
+        long length = parts.size() - 1;
+        for (String part : parts) length += utf8Length(part);
+        if (length == 0) return EMPTY;
+
+        if (length <= spillThreshold && length <= FileBody.MAX_SIZE) {
+            ByteBuffer out = ByteBuffer.allocate((int) length);
+            for (int i = 0; i < parts.size(); i++) {
+                if (i > 0) out.put((byte) '&');
+                encode(parts.get(i), out, null);
+            }
+            return new RequestBody(out.array(), null, length);
+        }
+
+        Path file = Files.createTempFile("paste-curl-body", ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer out = ByteBuffer.allocate(CHUNK_SIZE);
+            for (int i = 0; i < parts.size(); i++) {
+                if (i > 0) {
+                    if (!out.hasRemaining()) flush(out, channel);
+                    out.put((byte) '&');
+                }
+                encode(parts.get(i), out, channel);
+            }
+            flush(out, channel);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        RequestBody body = new RequestBody(null, file, length);
+        CLEANER.register(body, new Delete(file));
+        return body;
+    }
+
+    /**
+     * Encodes text as UTF-8, the same way bodies are encoded
+     */
+    static byte[] encode(String text) {
+        ByteBuffer out = ByteBuffer.allocate((int) Math.min(utf8Length(text), Integer.MAX_VALUE));
+        try {
+            encode(text, out, null);
+        } catch (IOException e) {
+            //no channel, nothing to write to
+            throw new UncheckedIOException(e);
+        }
+        return out.array();
+    }
+
+    /**
+     * Encodes text into <code>out</code>, writing full buffers to
+     * <code>channel</code> if there is one.
+     *
+     * Unpaired surrogates that {@link AnsiCUnescaper} uses for raw bytes are
+     * written as those bytes; any other unpaired surrogate becomes '?'.
+     */
+    private static void encode(String text, ByteBuffer out, FileChannel channel) throws IOException {
+        int len = text.length();
+        for (int i = 0; i < len; i++) {
+            char c = text.charAt(i);
+            int codePoint = c;
+            int size;
+            if (c < 0x80) {
+                size = 1;
+            } else if (c < 0x800) {
+                size = 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(text.charAt(i + 1))) {
+                codePoint = Character.toCodePoint(c, text.charAt(++i));
+                size = 4;
+            } else if (Character.isSurrogate(c)) {
+                size = 0;
+            } else {
+                size = 3;
+            }
+
+            if (out.remaining() < Math.max(size, 1)) {
+                if (channel == null) throw new IllegalStateException("Body longer than its computed length");
+                flush(out, channel);
+            }
+            switch (size) {
+                case 0 -> out.put(AnsiCUnescaper.isRawByte(c) ? (byte) (c - AnsiCUnescaper.RAW_BYTE_BASE) : (byte) '?');
+                case 1 -> out.put((byte) c);
+                case 2 -> out.put((byte) (0xc0 | c >> 6)).put((byte) (0x80 | c & 0x3f));
+                case 3 -> out.put((byte) (0xe0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3f)).put((byte) (0x80 | c & 0x3f));
+                default -> out.put((byte) (0xf0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3f))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3f)).put((byte) (0x80 | codePoint & 0x3f));
+            }
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Length of text encoded as UTF-8, counting an unpaired surrogate as the
+     * one byte the encoder writes for it
+     */
+    static long utf8Length(String text) {
+        long length = 0;
+        int len = text.length();
+        for (int i = 0; i < len; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return length in bytes
+     */
+    public long length() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * True if the body is held in a temporary file rather than on the heap
+     */
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * Copies the body into <code>dest</code> at <code>offset</code>, reading it
+     * from its file if it was spilled
+     */
+    public void copyTo(byte[] dest, int offset) throws IOException {
+        if (file == null) {
+            System.arraycopy(bytes, 0, dest, offset, bytes.length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(dest, offset, (int) length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new IOException("Body file truncated: " + file);
+            }
+        } finally {
+            //the file is deleted once this body is unreachable
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Opens the body for reading
+     */
+    public InputStream open() throws IOException {
+        return file == null ? new ByteArrayInputStream(bytes) : Files.newInputStream(file);
+    }
+
+    /**
+     * Decodes the body as text. For a spilled body this reads the whole file.
+     */
+    @Override
+    public String toString() {
+        if (file == null) return new String(bytes, StandardCharsets.UTF_8);
+
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Deletes a spilled body's file. Holds only the path, so that it does not
+     * keep the body reachable.
+     */
+    private static final class Delete implements Runnable {
+        private final Path file;
+
+        private Delete(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                //the temp directory is cleaned up eventually
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package burp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding of a parsed request, for PasteHistory.
+ *
+ * Lengths and counts are unsigned varints and strings are UTF-8, prefixed
+ * with their length plus one so that 0 can mean null. Body files and form
+ * file parts are stored as paths, not content. The first byte is a version;
+ * version 1 entries, which held at most one body file after the inline data,
+ * are still read.
+ *
+ * @author August Detlefsen
+ */
+final class RequestCodec {
+
+    static final int VERSION = 2;
+
+    private RequestCodec() {
+    }
+
+    static byte[] encode(CurlParser.CurlRequest request) throws IOException {
+        RequestBody body = request.getRequestBody();
+        Output out = new Output(64 + request.getUrl().getSource().length() + (int) Math.min(body.length(), Integer.MAX_VALUE / 2));
+        out.writeVarint(VERSION);
+        out.writeString(request.getMethod());
+        out.writeString(request.getUrl().getSource());
+
+        List<CurlHeader> headers = request.getHeaders();
+        out.writeVarint(headers.size());
+        for (CurlHeader header : headers) {
+            out.writeString(header.name());
+            out.writeString(header.value());
+        }
+
+        writeBody(out, body);
+        List<DataPart> data = request.getDataParts();
+        out.writeVarint(data.size());
+        for (DataPart part : data) {
+            //the kind, and whether a '&' comes before the part
+            out.writeVarint(part.getKind().ordinal() << 1 | (part.isSeparated() ? 1 : 0));
+            if (part.getKind() == DataPart.Kind.INLINE) {
+                writeBody(out, part.getBody());
+            } else {
+                if (part.getKind() == DataPart.Kind.URLENCODED_FILE) out.writeString(part.getName());
+                out.writeString(part.getFile());
+            }
+        }
+
+        MultipartBody multipart = request.getMultipart();
+        out.writeVarint(multipart == null ? 0 : multipart.getParts().size() + 1);
+        if (multipart != null) {
+            for (MultipartBody.Part part : multipart.getParts()) {
+                out.writeString(part.getName());
+                out.writeString(part.getValue());
+                out.writeString(part.getFile());
+                out.writeString(part.getFilename());
+                out.writeString(part.getType());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeBody(Output out, RequestBody body) throws IOException {
+        out.writeVarint(body.length());
+        try (InputStream in = body.open()) {
+            out.writeBytes(in, (int) body.length());
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not an encoded request
+     */
+    static CurlParser.CurlRequest decode(byte[] bytes) {
+        Input in = new Input(bytes);
+        int version = (int) in.readVarint();
+        if (version != VERSION && version != 1) throw new IllegalArgumentException("Unknown history entry version " + version);
+
+        String method = in.readString();
+        String source = in.readString();
+        UrlSpan url = source == null ? null : UrlSpan.parse(source);
+        if (url == null) throw new IllegalArgumentException("History entry has no valid URL");
+
+        int headerCount = in.readCount();
+        List<CurlHeader> headers = new ArrayList<>(headerCount);
+        for (int i = 0; i < headerCount; i++) {
+            headers.add(new CurlHeader(in.readString(), in.readString()));
+        }
+
+        RequestBody body = RequestBody.wrap(in.readBytes(in.readCount()));
+        List<DataPart> data = version == 1 ? readLegacyBodyFile(in, body) : readDataParts(in);
+        if (!data.isEmpty()) body = RequestBody.EMPTY;
+
+        MultipartBody multipart = null;
+        //one more than the number of parts, each of which takes at least five bytes
+        int partCount = (int) Math.min(in.readVarint(), Integer.MAX_VALUE);
+        if (partCount > 0) {
+            if (partCount - 1 > bytes.length / 5) throw new IllegalArgumentException("Count out of range: " + partCount);
+            List<MultipartBody.Part> parts = new ArrayList<>(partCount - 1);
+            for (int i = 1; i < partCount; i++) {
+                parts.add(new MultipartBody.Part(in.readString(), in.readString(), in.readString(), in.readString(), in.readString()));
+            }
+            multipart = new MultipartBody(parts);
+        }
+        return new CurlParser.CurlRequest(method, url, headers, body, data, multipart);
+    }
+
+    private static List<DataPart> readDataParts(Input in) {
+        int count = in.readCount();
+        List<DataPart> data = new ArrayList<>(count);
+        DataPart.Kind[] kinds = DataPart.Kind.values();
+        for (int i = 0; i < count; i++) {
+            long flags = in.readVarint();
+            long ordinal = flags >>> 1;
+            boolean separated = (flags & 1) != 0;
+            if (ordinal >= kinds.length) throw new IllegalArgumentException("Unknown data part kind " + ordinal);
+
+            DataPart.Kind kind = kinds[(int) ordinal];
+            if (kind == DataPart.Kind.INLINE) {
+                data.add(DataPart.inline(RequestBody.wrap(in.readBytes(in.readCount())), separated));
+                continue;
+            }
+            String name = kind == DataPart.Kind.URLENCODED_FILE ? in.readString() : null;
+            String file = in.readString();
+            if (file == null) throw new IllegalArgumentException("Data part has no file");
+            data.add(kind == DataPart.Kind.URLENCODED_FILE ? DataPart.urlEncodedFile(name, file) : DataPart.file(kind, file, separated));
+        }
+        return data;
+    }
+
+    /**
+     * Version 1 kept one body file, sent after the inline data
+     */
+    private static List<DataPart> readLegacyBodyFile(Input in, RequestBody body) {
+        String bodyFile = in.readString();
+        DataPart.Kind kind = in.readVarint() != 0 ? DataPart.Kind.TEXT_FILE : DataPart.Kind.BINARY_FILE;
+        if (bodyFile == null) return List.of();
+
+        return body.isEmpty()
+                ? List.of(DataPart.file(kind, bodyFile, true))
+                : List.of(DataPart.inline(body, true), DataPart.file(kind, bodyFile, true));
+    }
+
+    /**
+     * Growable output buffer
+     */
+    static final class Output {
+        private byte[] buffer;
+        private int position;
+
+        Output(int capacity) {
+            buffer = new byte[Math.max(16, capacity)];
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7fL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) buffer[position++] = (byte) (value >>> shift);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeBytes(InputStream in, int length) throws IOException {
+            ensure(length);
+            int read = in.readNBytes(buffer, position, length);
+            if (read != length) throw new IOException("Body shorter than its length");
+            position += length;
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(position + extra, buffer.length * 2));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    /**
+     * Reads what Output wrote, failing with IllegalArgumentException on truncated input
+     */
+    static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        boolean hasRemaining() {
+            return position < bytes.length;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = next();
+                value |= (long) (b & 0x7f) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        /**
+         * A varint that must fit in what is left of the input
+         */
+        int readCount() {
+            long count = readVarint();
+            if (count < 0 || count > bytes.length - position) throw new IllegalArgumentException("Count out of range: " + count);
+            return (int) count;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) value = value << 8 | (next() & 0xff);
+            return value;
+        }
+
+        String readString() {
+            long length = readVarint() - 1;
+            if (length < 0) return null;
+            if (length > bytes.length - position) throw new IllegalArgumentException("Truncated history entry");
+
+            String value = new String(bytes, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+
+        byte[] readBytes(int length) {
+            if (length > bytes.length - position) throw new IllegalArgumentException("Truncated history entry");
+            byte[] out = Arrays.copyOfRange(bytes, position, position + length);
+            position += length;
+            return out;
+        }
+
+        private byte next() {
+            if (position >= bytes.length) throw new IllegalArgumentException("Truncated history entry");
+            return bytes[position++];
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package burp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers request hashes to detect duplicates in a bulk import, in bounded
+ * memory however many requests go through it.
+ *
+ * The most recent hashes are kept exactly, with a count of how many times
+ * each was seen. Older hashes are only kept in a Bloom filter, so once a
+ * request has dropped out of the recent set there is a small chance (the
+ * configured false positive rate) that a different request is taken for a
+ * duplicate of it.
+ *
+ * @author August Detlefsen
+ */
+public class RequestDeduplicator {
+
+    public static final int DEFAULT_EXPECTED_REQUESTS = 1_000_000;
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 1e-6;
+    public static final int DEFAULT_RECENT = 10_000;
+
+    /**
+     * Smallest filter size used by {@link #forRequests}
+     */
+    private static final int MIN_EXPECTED_REQUESTS = 1024;
+
+    private final long[] bloom;
+    private final long bloomBits;
+    private final int bloomHashes;
+    private final Map<Long, int[]> recent;
+
+    private long unique;
+    private long duplicates;
+
+    public RequestDeduplicator() {
+        this(DEFAULT_EXPECTED_REQUESTS, DEFAULT_FALSE_POSITIVE_RATE, DEFAULT_RECENT);
+    }
+
+    /**
+     * @param expectedRequests  number of distinct requests the Bloom filter is sized for
+     * @param falsePositiveRate chance of a false duplicate at that number
+     * @param recentLimit       number of hashes kept exactly
+     */
+    public RequestDeduplicator(int expectedRequests, double falsePositiveRate, int recentLimit) {
+        //standard Bloom filter sizing: m = -n ln p / (ln 2)^2, k = m/n ln 2
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedRequests * Math.log(falsePositiveRate) / (ln2 * ln2));
+        bits = Math.max(64, (bits + 63) / 64 * 64);
+
+        this.bloom = new long[(int) (bits / 64)];
+        this.bloomBits = bits;
+        this.bloomHashes = Math.max(1, (int) Math.round((double) bits / expectedRequests * ln2));
+        this.recent = new LinkedHashMap<>(Math.min(recentLimit, 1 << 16), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return size() > recentLimit;
+            }
+        };
+    }
+
+    /**
+     * A deduplicator sized for a known number of requests, e.g. one paste
+     */
+    public static RequestDeduplicator forRequests(int requests) {
+        return new RequestDeduplicator(Math.max(MIN_EXPECTED_REQUESTS, requests), DEFAULT_FALSE_POSITIVE_RATE, DEFAULT_RECENT);
+    }
+
+    /**
+     * Records a request hash. Returns true the first time it is seen and
+     * false for a duplicate.
+     */
+    public synchronized boolean add(long hash) {
+        int[] count = recent.get(hash);
+        if (count != null) {
+            count[0]++;
+            duplicates++;
+            return false;
+        }
+
+        boolean seen = true;
+        long h1 = hash;
+        long h2 = RequestHasher.finalizer(hash) | 1;
+        for (int i = 0; i < bloomHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bloomBits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((bloom[word] & mask) == 0) {
+                seen = false;
+                bloom[word] |= mask;
+            }
+        }
+
+        //an older duplicate has been seen at least twice
+        recent.put(hash, new int[]{seen ? 2 : 1});
+        if (seen) {
+            duplicates++;
+        } else {
+            unique++;
+        }
+        return !seen;
+    }
+
+    /**
+     * How many times a hash has been seen, if it is still in the recent set;
+     * otherwise 0
+     */
+    public synchronized int getCount(long hash) {
+        int[] count = recent.get(hash);
+        return count != null ? count[0] : 0;
+    }
+
+    public synchronized long getUnique() {
+        return unique;
+    }
+
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+}
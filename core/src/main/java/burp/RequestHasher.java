@@ -0,0 +1,185 @@
+package burp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Builds a 64-bit content hash of a request for duplicate detection.
+ *
+ * The request is normalized as it is hashed: the method is upper-cased, the
+ * scheme and host are lower-cased and a default port is dropped, header names
+ * are lower-cased and header order does not matter. Content-Length is left
+ * out since it follows from the body.
+ *
+ * Not thread-safe; use one hasher per request, or call {@link #reset} between
+ * requests.
+ *
+ * @author August Detlefsen
+ */
+public class RequestHasher {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Separates fields so that e.g. a path ending in a header name hashes differently
+     */
+    private static final int SEPARATOR = 0x1f;
+
+    private long hash;
+    private long headers;
+
+    public RequestHasher() {
+        reset();
+    }
+
+    /**
+     * Hashes a parsed cURL request
+     */
+    public static long hash(CurlParser.CurlRequest request) {
+        RequestHasher hasher = new RequestHasher()
+                .method(request.getMethod())
+                .url(request.getUrl());
+        List<CurlHeader> headers = request.getHeaders();
+        for (int i = 0; i < headers.size(); i++) {
+            hasher.header(headers.get(i).name(), headers.get(i).value());
+        }
+        hasher.body(request.getRequestBody());
+        for (DataPart part : request.getDataParts()) {
+            //how the part joins the one before it and what it reads; inline data is hashed as bytes
+            hasher.body((part.isSeparated() ? "&" : "") + part.getKind() + (part.getFile() != null ? ":" + part : ""));
+            if (part.getBody() != null) hasher.body(part.getBody());
+        }
+        if (request.getMultipart() != null) {
+            for (MultipartBody.Part part : request.getMultipart().getParts()) hasher.body(part.toString());
+        }
+        return hasher.finish();
+    }
+
+    public RequestHasher reset() {
+        hash = FNV_OFFSET;
+        headers = 0;
+        return this;
+    }
+
+    public RequestHasher method(String method) {
+        for (int i = 0; i < method.length(); i++) {
+            mix(Character.toUpperCase(method.charAt(i)));
+        }
+        mix(SEPARATOR);
+        return this;
+    }
+
+    /**
+     * Hashes a URL, normalizing it if it can be parsed
+     */
+    public RequestHasher url(String url) {
+        UrlSpan span = UrlSpan.parse(url);
+        if (span != null) return url(span);
+
+        mixText(url);
+        mix(SEPARATOR);
+        return this;
+    }
+
+    public RequestHasher url(UrlSpan url) {
+        mixLowerCase(url.getScheme());
+        mix(SEPARATOR);
+        mixLowerCase(url.getHost());
+        mix(SEPARATOR);
+        if (!url.isDefaultPort()) mixText(Integer.toString(url.getPort()));
+        mix(SEPARATOR);
+        mixText(url.getPath().isEmpty() ? "/" : url.getPath());
+        mix(SEPARATOR);
+        if (url.getQuery() != null) mixText(url.getQuery());
+        mix(SEPARATOR);
+        return this;
+    }
+
+    /**
+     * Adds a header. Headers are combined by addition, so their order does
+     * not affect the hash but repeated headers still do.
+     */
+    public RequestHasher header(String name, String value) {
+        if (name.equalsIgnoreCase("Content-Length")) return this;
+
+        long h = FNV_OFFSET;
+        for (int i = 0; i < name.length(); i++) {
+            h = (h ^ Character.toLowerCase(name.charAt(i))) * FNV_PRIME;
+        }
+        h = (h ^ SEPARATOR) * FNV_PRIME;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * FNV_PRIME;
+        }
+        headers += finalizer(h);
+        return this;
+    }
+
+    public RequestHasher body(String body) {
+        mixText(body);
+        mix(SEPARATOR);
+        return this;
+    }
+
+    public RequestHasher body(byte[] body, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            mix(body[i] & 0xff);
+        }
+        mix(SEPARATOR);
+        return this;
+    }
+
+    /**
+     * Hashes a body as its bytes, the same as {@link #body(byte[], int, int)}
+     * would, reading a spilled body from its file in chunks
+     */
+    public RequestHasher body(RequestBody body) {
+        try (InputStream in = body.open()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    mix(buffer[i] & 0xff);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        mix(SEPARATOR);
+        return this;
+    }
+
+    public long finish() {
+        return finalizer(hash ^ finalizer(headers));
+    }
+
+    private void mixText(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            mix(text.charAt(i));
+        }
+    }
+
+    private void mixLowerCase(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            mix(Character.toLowerCase(text.charAt(i)));
+        }
+    }
+
+    private void mix(int value) {
+        hash = (hash ^ value) * FNV_PRIME;
+    }
+
+    /**
+     * MurmurHash3 fmix64, to spread FNV's weak low bits
+     */
+    static long finalizer(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
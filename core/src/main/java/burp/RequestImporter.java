@@ -0,0 +1,266 @@
+package burp;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Streams requests out of a file of cURL commands or a HAR archive, one at a
+ * time. The format is detected from the first character of the file: a HAR
+ * archive is a JSON object, anything else is read as cURL commands.
+ *
+ * With more than one thread, cURL commands are read ahead of the caller and
+ * parsed on a pool of workers, and handed back in file order.
+ *
+ * @author August Detlefsen
+ */
+public class RequestImporter implements Closeable {
+
+    public enum Format { CURL, HAR }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * How far to look for the first non-blank character when detecting the format
+     */
+    private static final int DETECT_LIMIT = 4096;
+
+    /**
+     * Commands read ahead per worker thread
+     */
+    private static final int READ_AHEAD_PER_THREAD = 8;
+
+    private final CountingInputStream stream;
+    private final BufferedReader reader;
+    private final CurlParser parser;
+    private final Format format;
+
+    private CommandReader commands;
+    private HarReader har;
+    private int index;
+
+    private ForkJoinPool pool;
+    private int readAhead;
+    private final Deque<ForkJoinTask<Entry>> ahead = new ArrayDeque<>();
+    private boolean exhausted;
+    private Exception readFailure;
+
+    public RequestImporter(InputStream in, CurlParser parser) throws IOException {
+        this(in, parser, 1);
+    }
+
+    /**
+     * @param threads number of threads parsing cURL commands; 1 parses on the calling thread
+     */
+    public RequestImporter(InputStream in, CurlParser parser, int threads) throws IOException {
+        this.stream = new CountingInputStream(in);
+        this.reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.parser = parser;
+        this.format = detect(reader);
+
+        int maxLength = parser.getConfig().getLimits().getMaxInputLength();
+        if (format == Format.HAR) {
+            har = new HarReader(reader, maxLength);
+        } else {
+            commands = new CommandReader(reader, maxLength, parser.getConfig().getDialect());
+            if (threads > 1) {
+                pool = BulkParser.newPool(threads, "Paste cURL import parser");
+                readAhead = threads * READ_AHEAD_PER_THREAD;
+            }
+        }
+    }
+
+    public static RequestImporter open(Path file, CurlParser parser) throws IOException {
+        return open(file, parser, 1);
+    }
+
+    public static RequestImporter open(Path file, CurlParser parser, int threads) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        try {
+            return new RequestImporter(in, parser, threads);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * @return bytes consumed from the underlying stream so far, for progress reporting
+     */
+    public long getBytesRead() {
+        return stream.getCount();
+    }
+
+    /**
+     * Returns the next request or failure, or null at the end of the input
+     *
+     * @throws CurlParseException if the input cannot be read any further,
+     *                            e.g. a single command exceeds the size limit
+     */
+    public Entry next() throws IOException {
+        return format == Format.HAR ? nextHar() : nextCurl();
+    }
+
+    private Entry nextCurl() throws IOException {
+        if (pool == null) {
+            String command = commands.next();
+            if (command == null) return null;
+            return parse(index++, command);
+        }
+
+        while (!exhausted && readFailure == null && ahead.size() < readAhead) {
+            String command;
+            try {
+                command = commands.next();
+            } catch (IOException | RuntimeException e) {
+                //hand back the commands before it first
+                readFailure = e;
+                break;
+            }
+            if (command == null) {
+                exhausted = true;
+                break;
+            }
+            int current = index++;
+            ahead.add(pool.submit(() -> parse(current, command)));
+        }
+
+        ForkJoinTask<Entry> head = ahead.poll();
+        if (head != null) return head.join();
+
+        if (readFailure instanceof IOException) throw (IOException) readFailure;
+        if (readFailure != null) throw (RuntimeException) readFailure;
+        return null;
+    }
+
+    private Entry parse(int current, String command) {
+        if (!CurlParser.isCurlCommand(command)) {
+            return new Entry(current, null, new BulkParser.Failure(current, command, "not a cURL command"));
+        }
+        try {
+            CurlParser.CurlRequest request = parser.parse(command);
+            if (request != null) return new Entry(current, request, null);
+
+            return new Entry(current, null, new BulkParser.Failure(current, command, "not a valid cURL command"));
+        } catch (CancellationException ce) {
+            throw ce;
+        } catch (RuntimeException re) {
+            return new Entry(current, null, new BulkParser.Failure(current, command, String.valueOf(re)));
+        }
+    }
+
+    private Entry nextHar() throws IOException {
+        int current = index;
+        try {
+            CurlParser.CurlRequest request = har.next();
+            if (request == null) return null;
+
+            index++;
+            return new Entry(current, request, null);
+        } catch (CurlParseException e) {
+            //the bad entry has been consumed, so reading carries on with the next one
+            index++;
+            return new Entry(current, null, new BulkParser.Failure(current, "HAR entry " + (current + 1), e.getMessage()));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (pool != null) pool.shutdownNow();
+        reader.close();
+    }
+
+    private static Format detect(BufferedReader reader) throws IOException {
+        reader.mark(DETECT_LIMIT);
+        try {
+            for (int i = 0; i < DETECT_LIMIT; i++) {
+                int c = reader.read();
+                if (c == -1) break;
+                if (Character.isWhitespace(c) || c == '\uFEFF') continue;
+
+                return c == '{' ? Format.HAR : Format.CURL;
+            }
+            return Format.CURL;
+        } finally {
+            reader.reset();
+        }
+    }
+
+    /**
+     * One imported request, or the reason it could not be imported
+     */
+    public static class Entry {
+        private final int index;
+        private final CurlParser.CurlRequest request;
+        private final BulkParser.Failure failure;
+
+        Entry(int index, CurlParser.CurlRequest request, BulkParser.Failure failure) {
+            this.index = index;
+            this.request = request;
+            this.failure = failure;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return the request, or null if this entry failed
+         */
+        public CurlParser.CurlRequest getRequest() {
+            return request;
+        }
+
+        public BulkParser.Failure getFailure() {
+            return failure;
+        }
+    }
+
+    static class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package burp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A request compiled once from a cURL command, with <code>{{name}}</code>
+ * placeholders that are filled in from each row of a dataset.
+ *
+ * Compiling renders the command to its raw message and cuts the message into
+ * literal byte segments and placeholder references: one list for the request
+ * line and headers, including cookies, one for the body and one for the base
+ * URL. Rendering a row encodes each value once, sizes the message exactly and
+ * copies the segments into a single array, so nothing is parsed again and a
+ * row costs one allocation for the message.
+ *
+ * Values are inserted as written. A value going into the URL must already be
+ * URL-encoded, and the port cannot be a placeholder since the command would
+ * not parse. Content-Length is recomputed for every row.
+ *
+ * Immutable and safe to share between threads.
+ *
+ * @author August Detlefsen
+ */
+public class RequestTemplate {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] CONTENT_LENGTH = "Content-Length: ".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Distinct placeholder names, in order of first use
+     */
+    private final List<String> placeholders;
+    private final Segments baseUrl;
+    private final Segments head;
+    private final Segments body;
+
+    private RequestTemplate(List<String> placeholders, Segments baseUrl, Segments head, Segments body) {
+        this.placeholders = placeholders;
+        this.baseUrl = baseUrl;
+        this.head = head;
+        this.body = body;
+    }
+
+    /**
+     * Compiles a parsed command. Body files are read once, here, and
+     * placeholders in their content are filled in like any others.
+     */
+    public static RequestTemplate compile(CurlParser.CurlRequest request) throws IOException {
+        byte[] raw = request.toRawRequest();
+        int headEnd = indexOf(raw, new byte[]{'\r', '\n', '\r', '\n'});
+        if (headEnd < 0) throw new IllegalStateException("Rendered request has no blank line");
+
+        List<String> names = new ArrayList<>();
+        Segments baseUrl = Segments.compile(request.getBaseUrl().getBytes(StandardCharsets.UTF_8), 0, -1, names);
+        Segments head = Segments.compile(withoutContentLength(raw, headEnd + 2), 0, -1, names);
+        Segments body = Segments.compile(raw, headEnd + 4, raw.length, names);
+        return new RequestTemplate(List.copyOf(names), baseUrl, head, body);
+    }
+
+    /**
+     * The request line and headers, each ending in CRLF, without the blank line
+     * or the Content-Length header the renderer added
+     */
+    private static byte[] withoutContentLength(byte[] raw, int end) {
+        byte[] out = new byte[end];
+        int length = 0;
+        int line = 0;
+        while (line < end) {
+            int next = indexOf(raw, CRLF, line, end) + 2;
+            if (!startsWithIgnoreCase(raw, line, CONTENT_LENGTH)) {
+                System.arraycopy(raw, line, out, length, next - line);
+                length += next - line;
+            }
+            line = next;
+        }
+        return Arrays.copyOf(out, length);
+    }
+
+    public List<String> getPlaceholders() {
+        return placeholders;
+    }
+
+    /**
+     * Resolves each placeholder to its column in the dataset
+     *
+     * @throws IllegalArgumentException if a placeholder has no column
+     */
+    public Renderer bind(List<String> columns) {
+        int[] columnOf = new int[placeholders.size()];
+        for (int i = 0; i < columnOf.length; i++) {
+            columnOf[i] = columns.indexOf(placeholders.get(i));
+            if (columnOf[i] < 0) {
+                throw new IllegalArgumentException("No column for placeholder {{" + placeholders.get(i) + "}}, columns are " + columns);
+            }
+        }
+        return new Renderer(columnOf);
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target) {
+        return indexOf(bytes, target, 0, bytes.length);
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target, int from, int to) {
+        outer:
+        for (int i = from; i <= to - target.length; i++) {
+            for (int k = 0; k < target.length; k++) {
+                if (bytes[i + k] != target[k]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static boolean startsWithIgnoreCase(byte[] bytes, int offset, byte[] prefix) {
+        if (offset + prefix.length > bytes.length) return false;
+        for (int k = 0; k < prefix.length; k++) {
+            if (Character.toLowerCase(bytes[offset + k]) != Character.toLowerCase(prefix[k])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Renders rows of one dataset. Holds the values of the row being rendered,
+     * so each thread needs its own.
+     */
+    public final class Renderer {
+        private final int[] columnOf;
+        private final byte[][] values;
+
+        private Renderer(int[] columnOf) {
+            this.columnOf = columnOf;
+            this.values = new byte[columnOf.length][];
+        }
+
+        /**
+         * Renders a row. A missing or null value renders as an empty string.
+         *
+         * @throws CurlParseException if the message would be too large for one array
+         */
+        public Rendered render(String[] row) {
+            for (int i = 0; i < columnOf.length; i++) {
+                int column = columnOf[i];
+                String value = column < row.length ? row[column] : null;
+                values[i] = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            long bodyLength = body.length(values);
+            byte[] contentLength = bodyLength > 0 ? Long.toString(bodyLength).getBytes(StandardCharsets.US_ASCII) : null;
+            long size = head.length(values) + bodyLength + CRLF.length
+                    + (contentLength == null ? 0 : CONTENT_LENGTH.length + contentLength.length + CRLF.length);
+            if (size > FileBody.MAX_SIZE) throw new CurlParseException(FailureReason.TOO_LARGE, "Request too large: " + size + " bytes");
+
+            byte[] message = new byte[(int) size];
+            int offset = head.writeTo(values, message, 0);
+            if (contentLength != null) {
+                offset = put(CONTENT_LENGTH, message, offset);
+                offset = put(contentLength, message, offset);
+                offset = put(CRLF, message, offset);
+            }
+            offset = put(CRLF, message, offset);
+            body.writeTo(values, message, offset);
+
+            byte[] url = new byte[(int) baseUrl.length(values)];
+            baseUrl.writeTo(values, url, 0);
+            return new Rendered(new String(url, StandardCharsets.UTF_8), message);
+        }
+    }
+
+    /**
+     * One rendered request: where to send it and the raw message
+     */
+    public static final class Rendered {
+        private final String baseUrl;
+        private final byte[] message;
+
+        Rendered(String baseUrl, byte[] message) {
+            this.baseUrl = baseUrl;
+            this.message = message;
+        }
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public byte[] getMessage() {
+            return message;
+        }
+    }
+
+    private static int put(byte[] bytes, byte[] dest, int offset) {
+        System.arraycopy(bytes, 0, dest, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    /**
+     * Literal byte runs with a placeholder between each pair:
+     * <code>literals[0] values[refs[0]] literals[1] ... literals[n]</code>
+     */
+    private static final class Segments {
+        private final byte[][] literals;
+        private final int[] refs;
+        private final long literalLength;
+
+        private Segments(byte[][] literals, int[] refs) {
+            this.literals = literals;
+            this.refs = refs;
+            long length = 0;
+            for (byte[] literal : literals) length += literal.length;
+            this.literalLength = length;
+        }
+
+        /**
+         * Cuts <code>bytes[from, to)</code> at each placeholder, adding new
+         * placeholder names to <code>names</code>. A <code>to</code> of -1
+         * means the end of the array.
+         */
+        static Segments compile(byte[] bytes, int from, int to, List<String> names) {
+            if (to < 0) to = bytes.length;
+            List<byte[]> literals = new ArrayList<>();
+            List<Integer> refs = new ArrayList<>();
+
+            int literalStart = from;
+            int i = from;
+            while (i < to - 1) {
+                if (bytes[i] != '{' || bytes[i + 1] != '{') {
+                    i++;
+                    continue;
+                }
+                int nameEnd = i + 2;
+                while (nameEnd < to && isNameByte(bytes[nameEnd])) nameEnd++;
+                if (nameEnd == i + 2 || nameEnd + 1 >= to || bytes[nameEnd] != '}' || bytes[nameEnd + 1] != '}') {
+                    i++;
+                    continue;
+                }
+
+                String name = new String(bytes, i + 2, nameEnd - i - 2, StandardCharsets.US_ASCII);
+                int ref = names.indexOf(name);
+                if (ref < 0) {
+                    ref = names.size();
+                    names.add(name);
+                }
+                literals.add(Arrays.copyOfRange(bytes, literalStart, i));
+                refs.add(ref);
+                i = nameEnd + 2;
+                literalStart = i;
+            }
+            literals.add(Arrays.copyOfRange(bytes, literalStart, to));
+
+            int[] refArray = new int[refs.size()];
+            for (int k = 0; k < refArray.length; k++) refArray[k] = refs.get(k);
+            return new Segments(literals.toArray(new byte[0][]), refArray);
+        }
+
+        private static boolean isNameByte(byte b) {
+            return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_' || b == '-' || b == '.';
+        }
+
+        long length(byte[][] values) {
+            long length = literalLength;
+            for (int ref : refs) length += values[ref].length;
+            return length;
+        }
+
+        int writeTo(byte[][] values, byte[] dest, int offset) {
+            offset = put(literals[0], dest, offset);
+            for (int k = 0; k < refs.length; k++) {
+                offset = put(values[refs[k]], dest, offset);
+                offset = put(literals[k + 1], dest, offset);
+            }
+            return offset;
+        }
+    }
+}
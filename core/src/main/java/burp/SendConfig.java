@@ -0,0 +1,52 @@
+package burp;
+
+/**
+ * Immutable settings for a BulkSender: how many requests may be in flight in
+ * total and per host, and an optional cap on the request rate.
+ *
+ * @author August Detlefsen
+ */
+public class SendConfig {
+
+    public static final SendConfig DEFAULT = new SendConfig(16, 4, 0);
+
+    private final int maxConcurrency;
+    private final int maxPerHost;
+    private final double requestsPerSecond;
+
+    /**
+     * @param requestsPerSecond rate limit across all hosts; 0 for no limit
+     */
+    public SendConfig(int maxConcurrency, int maxPerHost, double requestsPerSecond) {
+        if (maxConcurrency < 1 || maxPerHost < 1) throw new IllegalArgumentException("Concurrency must be at least 1");
+        if (requestsPerSecond < 0) throw new IllegalArgumentException("Rate limit must not be negative");
+
+        this.maxConcurrency = maxConcurrency;
+        this.maxPerHost = maxPerHost;
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getMaxPerHost() {
+        return maxPerHost;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public SendConfig withMaxConcurrency(int maxConcurrency) {
+        return new SendConfig(maxConcurrency, maxPerHost, requestsPerSecond);
+    }
+
+    public SendConfig withMaxPerHost(int maxPerHost) {
+        return new SendConfig(maxConcurrency, maxPerHost, requestsPerSecond);
+    }
+
+    public SendConfig withRequestsPerSecond(double requestsPerSecond) {
+        return new SendConfig(maxConcurrency, maxPerHost, requestsPerSecond);
+    }
+}
@@ -0,0 +1,560 @@
+package burp;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Table-driven lexer for the shell a cURL command was copied for. Each
+ * {@link Dialect} has its own transition table, indexed by lexer state and
+ * character class, whose entries give the next state and what to do with the
+ * character. Tokenizing and splitting input into commands both run the same
+ * table in a single pass, so the two always agree on quoting.
+ *
+ * A token starts when the lexer leaves the gap state and ends when it returns
+ * there. A few states hold back a character (a <code>$</code>, or a CR after
+ * an escape) until the next character shows what it means; "retry" actions
+ * then read that next character again in the new state.
+ *
+ * @author August Detlefsen
+ */
+final class ShellLexer {
+
+    /**
+     * The state between tokens and at the start of a command
+     */
+    static final int START = 0;
+
+    /**
+     * Returned by {@link #step} for an unquoted character that ends a command
+     */
+    static final int SPLIT = -1;
+
+    //character classes, shared by every dialect; the tables give them meaning
+    private static final int SPACE = 0;
+    private static final int LF = 1;
+    private static final int CR = 2;
+    private static final int BACKSLASH = 3;
+    private static final int SINGLE_QUOTE = 4;
+    private static final int DOUBLE_QUOTE = 5;
+    private static final int DOLLAR = 6;
+    private static final int BACKTICK = 7;
+    private static final int CARET = 8;
+    private static final int SEMICOLON = 9;
+    private static final int AMPERSAND = 10;
+    private static final int OTHER = 11;
+    private static final int END = 12;
+    private static final int CLASSES = 13;
+
+    private static final byte[] CLASS_OF = new byte[128];
+
+    static {
+        Arrays.fill(CLASS_OF, (byte) OTHER);
+        CLASS_OF[' '] = SPACE;
+        CLASS_OF['\t'] = SPACE;
+        CLASS_OF['\n'] = LF;
+        CLASS_OF['\r'] = CR;
+        CLASS_OF['\\'] = BACKSLASH;
+        CLASS_OF['\''] = SINGLE_QUOTE;
+        CLASS_OF['"'] = DOUBLE_QUOTE;
+        CLASS_OF['$'] = DOLLAR;
+        CLASS_OF['`'] = BACKTICK;
+        CLASS_OF['^'] = CARET;
+        CLASS_OF[';'] = SEMICOLON;
+        CLASS_OF['&'] = AMPERSAND;
+    }
+
+    //actions
+    private static final int SKIP = 0;
+    private static final int APPEND = 1;
+    /** remember the character, to be written or dropped once the next one is seen */
+    private static final int HOLD = 2;
+    /** add one more to a run of held backslashes */
+    private static final int COUNT = 3;
+    private static final int FLUSH = 4;
+    private static final int FLUSH_APPEND = 5;
+    private static final int FLUSH_RETRY = 6;
+    private static final int RETRY = 7;
+    /** write half of the held backslashes, which escaped each other before a quote */
+    private static final int HALVE = 8;
+    private static final int HALVE_APPEND = 9;
+    /** append the character an escape sequence stands for */
+    private static final int ESCAPE = 10;
+    /** decode a bash <code>$'...'</code> string */
+    private static final int ANSI_C = 11;
+
+    //modes of run()
+    private static final int ALL = 0;
+    private static final int TOKEN_START = 1;
+    private static final int TOKEN_END = 2;
+
+    static final ShellLexer BASH = bash();
+    static final ShellLexer POWERSHELL = powerShell();
+    static final ShellLexer CMD = cmd();
+
+    private final short[] table;
+    private final boolean[] inToken;
+    private final boolean[] splits;
+    private final boolean[] separators;
+    /** the state after each state and class when splitting, with retries followed, or SPLIT */
+    private final byte[] splitTable;
+    private final char continuation;
+    private final char[] escapes;
+    private final int afterAnsi;
+
+    private ShellLexer(Table table, char continuation, char[] escapes, int afterAnsi, int... separators) {
+        this.table = table.entries;
+        this.inToken = table.inToken;
+        this.splits = table.splits;
+        this.separators = new boolean[CLASSES];
+        this.separators[LF] = true;
+        for (int separator : separators) this.separators[separator] = true;
+
+        int states = inToken.length;
+        this.splitTable = new byte[states * CLASSES];
+        for (int state = 0; state < states; state++) {
+            for (int cls = 0; cls < CLASSES; cls++) splitTable[state * CLASSES + cls] = (byte) resolveSplit(state, cls);
+        }
+        this.continuation = continuation;
+        this.escapes = escapes;
+        this.afterAnsi = afterAnsi;
+    }
+
+    /**
+     * The lexer for a dialect, which must not be {@link Dialect#AUTO}
+     */
+    static ShellLexer of(Dialect dialect) {
+        switch (dialect) {
+            case BASH: return BASH;
+            case POWERSHELL: return POWERSHELL;
+            case CMD: return CMD;
+            default: throw new IllegalArgumentException("No lexer for " + dialect);
+        }
+    }
+
+    /**
+     * Adds the shell words of <code>command</code> to <code>tokens</code>,
+     * using <code>token</code> (which must be empty) as the working buffer.
+     *
+     * @throws CurlParseException if <code>System.nanoTime()</code> passes <code>deadline</code>
+     */
+    void tokenize(String command, long deadline, List<String> tokens, StringBuilder token) {
+        run(command, 0, tokens, token, deadline, ALL);
+    }
+
+    /**
+     * Reads the token that begins at <code>start</code> into <code>token</code>,
+     * returning the index just past it.
+     */
+    int readToken(String command, int start, StringBuilder token) {
+        return run(command, start, null, token, 0, TOKEN_END);
+    }
+
+    /**
+     * Skips whitespace and line continuations from <code>start</code>, returning
+     * the index where the next token begins, or the length of the command if
+     * there are no more.
+     */
+    int skipSeparators(String command, int start) {
+        return run(command, start, null, null, 0, TOKEN_START);
+    }
+
+    /**
+     * Advances the lexer over one character for splitting commands, returning
+     * the new state, or {@link #SPLIT} if the character ends the command, in
+     * which case the next command starts in {@link #START}.
+     */
+    int step(int state, char c) {
+        return splitTable[state * CLASSES + classOf(c)];
+    }
+
+    /**
+     * Returns the first index from <code>from</code> up to <code>limit</code>
+     * whose character would move the splitting lexer out of <code>state</code>,
+     * so runs of quoted or plain text are passed over in a tight loop
+     */
+    int skipRun(String input, int state, int from, int limit) {
+        byte[] splitTable = this.splitTable;
+        int row = state * CLASSES;
+        int i = from;
+        while (i < limit && splitTable[row + classOf(input.charAt(i))] == state) i++;
+        return i;
+    }
+
+    private int resolveSplit(int state, int cls) {
+        while (true) {
+            if (separators[cls] && splits[state]) return SPLIT;
+
+            int entry = table[state * CLASSES + cls];
+            int action = entry >>> 8;
+            state = entry & 0xFF;
+            if (action != RETRY && action != FLUSH_RETRY) return state;
+        }
+    }
+
+    /**
+     * True if the newline at <code>newline</code> continues the line before
+     * it, judging only by the character in front of it
+     */
+    boolean continuesLine(String input, int newline) {
+        int i = newline - 1;
+        if (i >= 0 && input.charAt(i) == '\r') i--;
+        return i >= 0 && input.charAt(i) == continuation;
+    }
+
+    private static int classOf(char c) {
+        return c < 128 ? CLASS_OF[c] : OTHER;
+    }
+
+    /**
+     * Runs the table from the gap state at <code>start</code>. In ALL mode every
+     * token is added to <code>tokens</code>; TOKEN_END stops after one token,
+     * leaving it in <code>token</code>; TOKEN_START stops where a token begins.
+     */
+    private int run(String text, int start, List<String> tokens, StringBuilder token, long deadline, int mode) {
+        short[] table = this.table;
+        int len = text.length();
+        int state = START;
+        int mark = start;
+        char held = 0;
+        int count = 0;
+
+        int i = start;
+        while (true) {
+            char c = 0;
+            int cls = END;
+            if (i < len) {
+                c = text.charAt(i);
+                cls = classOf(c);
+            }
+            if (state == START) mark = i;
+
+            int entry = table[state * CLASSES + cls];
+            int action = entry >>> 8;
+            int next = entry & 0xFF;
+
+            if (mode == TOKEN_START && !inToken[state]) {
+                if (inToken[next] || (cls == END && action != SKIP)) return mark;
+                if (cls == END) return len;
+            }
+
+            boolean retry = false;
+            switch (action) {
+                case APPEND:
+                    //copy a run of characters that stay in the same state in one go
+                    int loop = (APPEND << 8) | next;
+                    int row = next * CLASSES;
+                    int end = i + 1;
+                    while (end < len && table[row + classOf(text.charAt(end))] == loop) end++;
+                    token.append(text, i, end);
+                    i = end - 1;
+                    break;
+                case HOLD:
+                    held = c;
+                    count = 1;
+                    break;
+                case COUNT:
+                    held = c;
+                    count++;
+                    break;
+                case FLUSH:
+                    append(token, held, count);
+                    count = 0;
+                    break;
+                case FLUSH_APPEND:
+                    append(token, held, count);
+                    count = 0;
+                    token.append(c);
+                    break;
+                case FLUSH_RETRY:
+                    append(token, held, count);
+                    count = 0;
+                    retry = true;
+                    break;
+                case RETRY:
+                    retry = true;
+                    break;
+                case HALVE:
+                    append(token, held, count / 2);
+                    count = 0;
+                    break;
+                case HALVE_APPEND:
+                    append(token, held, count / 2);
+                    count = 0;
+                    token.append(c);
+                    break;
+                case ESCAPE:
+                    token.append(c < 128 ? escapes[c] : c);
+                    break;
+                case ANSI_C:
+                    i = AnsiCUnescaper.readQuoted(text, i + 1, token) - 1;
+                    next = afterAnsi;
+                    break;
+                default:
+            }
+
+            if (cls == END) {
+                if (mode == ALL && (inToken[state] || token.length() > 0)) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    ParseLimits.check(deadline);
+                }
+                return len;
+            }
+
+            boolean wasInToken = inToken[state];
+            state = next;
+            if (wasInToken && !inToken[state]) {
+                if (mode == TOKEN_END) return i;
+
+                tokens.add(token.toString());
+                token.setLength(0);
+                ParseLimits.check(deadline);
+            }
+            if (!retry) i++;
+        }
+    }
+
+    private static void append(StringBuilder token, char c, int count) {
+        for (int k = 0; k < count; k++) token.append(c);
+    }
+
+    /**
+     * POSIX shells: backslash escapes, literal single quotes, double quotes
+     * that honour backslash before <code>$ ` " \</code> and newline, and
+     * <code>$'...'</code> and <code>$"..."</code> strings.
+     */
+    private static ShellLexer bash() {
+        final int gap = START, gapEscape = 1, gapEscapeCr = 2, word = 3, escape = 4, escapeCr = 5,
+                single = 6, dbl = 7, dblEscape = 8, dollar = 9, ansi = 10, ansiEscape = 11;
+
+        Table t = new Table(12);
+        t.state(gap, false, true, APPEND, word)
+                .on(gap, SKIP, gap, SPACE, LF, CR, END)
+                .on(gap, SKIP, gapEscape, BACKSLASH)
+                .on(gap, SKIP, single, SINGLE_QUOTE)
+                .on(gap, SKIP, dbl, DOUBLE_QUOTE)
+                .on(gap, HOLD, dollar, DOLLAR);
+        t.state(gapEscape, false, false, APPEND, word)
+                .on(gapEscape, SKIP, gap, LF, END)
+                .on(gapEscape, HOLD, gapEscapeCr, CR);
+        t.state(gapEscapeCr, false, false, FLUSH_RETRY, word)
+                .on(gapEscapeCr, SKIP, gap, LF)
+                .on(gapEscapeCr, FLUSH, gap, END);
+        t.state(word, true, true, APPEND, word)
+                .on(word, SKIP, gap, SPACE, LF, CR, END)
+                .on(word, SKIP, escape, BACKSLASH)
+                .on(word, SKIP, single, SINGLE_QUOTE)
+                .on(word, SKIP, dbl, DOUBLE_QUOTE)
+                .on(word, HOLD, dollar, DOLLAR);
+        t.state(escape, true, false, APPEND, word)
+                .on(escape, SKIP, word, LF)
+                .on(escape, HOLD, escapeCr, CR)
+                .on(escape, SKIP, gap, END);
+        t.state(escapeCr, true, false, FLUSH_RETRY, word)
+                .on(escapeCr, SKIP, word, LF)
+                .on(escapeCr, FLUSH, gap, END);
+        t.state(single, true, false, APPEND, single)
+                .on(single, SKIP, word, SINGLE_QUOTE)
+                .on(single, SKIP, gap, END);
+        t.state(dbl, true, false, APPEND, dbl)
+                .on(dbl, SKIP, word, DOUBLE_QUOTE)
+                .on(dbl, HOLD, dblEscape, BACKSLASH)
+                .on(dbl, SKIP, gap, END);
+        t.state(dblEscape, true, false, FLUSH_APPEND, dbl)
+                .on(dblEscape, SKIP, dbl, LF)
+                .on(dblEscape, APPEND, dbl, DOUBLE_QUOTE, BACKSLASH, DOLLAR, BACKTICK)
+                .on(dblEscape, FLUSH, gap, END);
+        t.state(dollar, true, false, FLUSH_RETRY, word)
+                .on(dollar, ANSI_C, ansi, SINGLE_QUOTE)
+                .on(dollar, SKIP, dbl, DOUBLE_QUOTE)
+                .on(dollar, FLUSH, gap, END);
+        //only reached when splitting; tokenizing decodes the whole string at once
+        t.state(ansi, true, false, APPEND, ansi)
+                .on(ansi, SKIP, word, SINGLE_QUOTE)
+                .on(ansi, SKIP, ansiEscape, BACKSLASH)
+                .on(ansi, SKIP, gap, END);
+        t.state(ansiEscape, true, false, SKIP, ansi)
+                .on(ansiEscape, SKIP, gap, END);
+
+        return new ShellLexer(t, '\\', null, word, SEMICOLON, AMPERSAND);
+    }
+
+    /**
+     * PowerShell: backtick escapes and continuations, single quotes with
+     * <code>''</code> for a quote, and double quotes with backtick escapes
+     * and <code>""</code> for a quote. Variables are not expanded.
+     */
+    private static ShellLexer powerShell() {
+        final int gap = START, gapEscape = 1, gapEscapeCr = 2, word = 3, escape = 4, escapeCr = 5,
+                single = 6, singleEnd = 7, dbl = 8, dblEscape = 9, dblEnd = 10;
+
+        Table t = new Table(11);
+        t.state(gap, false, true, APPEND, word)
+                .on(gap, SKIP, gap, SPACE, LF, CR, END)
+                .on(gap, SKIP, gapEscape, BACKTICK)
+                .on(gap, SKIP, single, SINGLE_QUOTE)
+                .on(gap, SKIP, dbl, DOUBLE_QUOTE);
+        t.state(gapEscape, false, false, ESCAPE, word)
+                .on(gapEscape, SKIP, gap, LF, END)
+                .on(gapEscape, HOLD, gapEscapeCr, CR);
+        t.state(gapEscapeCr, false, false, FLUSH_RETRY, word)
+                .on(gapEscapeCr, SKIP, gap, LF)
+                .on(gapEscapeCr, FLUSH, gap, END);
+        t.state(word, true, true, APPEND, word)
+                .on(word, SKIP, gap, SPACE, LF, CR, END)
+                .on(word, SKIP, escape, BACKTICK)
+                .on(word, SKIP, single, SINGLE_QUOTE)
+                .on(word, SKIP, dbl, DOUBLE_QUOTE);
+        t.state(escape, true, false, ESCAPE, word)
+                .on(escape, SKIP, word, LF)
+                .on(escape, HOLD, escapeCr, CR)
+                .on(escape, SKIP, gap, END);
+        t.state(escapeCr, true, false, FLUSH_RETRY, word)
+                .on(escapeCr, SKIP, word, LF)
+                .on(escapeCr, FLUSH, gap, END);
+        t.state(single, true, false, APPEND, single)
+                .on(single, SKIP, singleEnd, SINGLE_QUOTE)
+                .on(single, SKIP, gap, END);
+        t.state(singleEnd, true, false, RETRY, word)
+                .on(singleEnd, APPEND, single, SINGLE_QUOTE)
+                .on(singleEnd, SKIP, gap, END);
+        t.state(dbl, true, false, APPEND, dbl)
+                .on(dbl, SKIP, dblEnd, DOUBLE_QUOTE)
+                .on(dbl, SKIP, dblEscape, BACKTICK)
+                .on(dbl, SKIP, gap, END);
+        t.state(dblEscape, true, false, ESCAPE, dbl)
+                .on(dblEscape, SKIP, gap, END);
+        t.state(dblEnd, true, false, RETRY, word)
+                .on(dblEnd, APPEND, dbl, DOUBLE_QUOTE)
+                .on(dblEnd, SKIP, gap, END);
+
+        char[] escapes = new char[128];
+        for (char c = 0; c < 128; c++) escapes[c] = c;
+        escapes['0'] = 0;
+        escapes['a'] = 7;
+        escapes['b'] = '\b';
+        escapes['e'] = 27;
+        escapes['f'] = '\f';
+        escapes['n'] = '\n';
+        escapes['r'] = '\r';
+        escapes['t'] = '\t';
+        escapes['v'] = 11;
+
+        return new ShellLexer(t, '`', escapes, word, SEMICOLON);
+    }
+
+    /**
+     * Windows cmd, as written by "Copy as cURL (cmd)". Two parsers run in turn:
+     * cmd removes <code>^</code> escapes (which are literal inside its own
+     * double quotes) and joins lines ending in <code>^</code>, escaping the
+     * first character of the next line; then curl.exe's C runtime splits the
+     * arguments, where double quotes group and a run of backslashes before a
+     * quote is halved, an odd one leaving a literal quote. The table is the
+     * product of the two: a runtime state times a cmd state.
+     */
+    private static ShellLexer cmd() {
+        //runtime states
+        final int gap = 0, word = 1, quoted = 2, bsOdd = 3, bsEven = 4, quotedBsOdd = 5, quotedBsEven = 6;
+        final int runtimeStates = 7;
+        //cmd states
+        final int normal = 0, caret = 1, caretNewline = 2, cmdQuoted = 3;
+        final int cmdStates = 4;
+
+        Table runtime = new Table(runtimeStates);
+        runtime.state(gap, false, false, APPEND, word)
+                .on(gap, SKIP, gap, SPACE, LF, CR, END)
+                .on(gap, SKIP, quoted, DOUBLE_QUOTE)
+                .on(gap, COUNT, bsOdd, BACKSLASH);
+        runtime.state(word, true, false, APPEND, word)
+                .on(word, SKIP, gap, SPACE, LF, CR, END)
+                .on(word, SKIP, quoted, DOUBLE_QUOTE)
+                .on(word, COUNT, bsOdd, BACKSLASH);
+        runtime.state(quoted, true, false, APPEND, quoted)
+                .on(quoted, SKIP, word, DOUBLE_QUOTE)
+                .on(quoted, COUNT, quotedBsOdd, BACKSLASH)
+                .on(quoted, SKIP, gap, END);
+        runtime.state(bsOdd, true, false, FLUSH_APPEND, word)
+                .on(bsOdd, COUNT, bsEven, BACKSLASH)
+                .on(bsOdd, HALVE_APPEND, word, DOUBLE_QUOTE)
+                .on(bsOdd, FLUSH, gap, SPACE, LF, CR, END);
+        runtime.state(bsEven, true, false, FLUSH_APPEND, word)
+                .on(bsEven, COUNT, bsOdd, BACKSLASH)
+                .on(bsEven, HALVE, quoted, DOUBLE_QUOTE)
+                .on(bsEven, FLUSH, gap, SPACE, LF, CR, END);
+        runtime.state(quotedBsOdd, true, false, FLUSH_APPEND, quoted)
+                .on(quotedBsOdd, COUNT, quotedBsEven, BACKSLASH)
+                .on(quotedBsOdd, HALVE_APPEND, quoted, DOUBLE_QUOTE)
+                .on(quotedBsOdd, FLUSH, gap, END);
+        runtime.state(quotedBsEven, true, false, FLUSH_APPEND, quoted)
+                .on(quotedBsEven, COUNT, quotedBsOdd, BACKSLASH)
+                .on(quotedBsEven, HALVE, word, DOUBLE_QUOTE)
+                .on(quotedBsEven, FLUSH, gap, END);
+
+        Table t = new Table(runtimeStates * cmdStates);
+        for (int r = 0; r < runtimeStates; r++) {
+            for (int c = 0; c < cmdStates; c++) {
+                int state = r * cmdStates + c;
+                t.inToken[state] = runtime.inToken[r];
+                t.splits[state] = c == normal;
+
+                for (int cls = 0; cls < CLASSES; cls++) {
+                    int cmdNext = c == cmdQuoted ? cmdQuoted : normal;
+                    int seen = cls;
+                    if (c == normal && cls == CARET) {
+                        t.entries[state * CLASSES + cls] = entry(SKIP, r * cmdStates + caret);
+                        continue;
+                    }
+                    if ((c == caret && (cls == LF || cls == CR)) || (c == caretNewline && cls == CR)) {
+                        t.entries[state * CLASSES + cls] = entry(SKIP, r * cmdStates + (cls == LF ? caretNewline : c));
+                        continue;
+                    }
+                    //an unescaped quote is also seen by cmd, which toggles its own quoting
+                    if (cls == DOUBLE_QUOTE && c == normal) cmdNext = cmdQuoted;
+                    if (cls == DOUBLE_QUOTE && c == cmdQuoted) cmdNext = normal;
+
+                    int inner = runtime.entries[r * CLASSES + seen];
+                    t.entries[state * CLASSES + cls] = entry(inner >>> 8, (inner & 0xFF) * cmdStates + cmdNext);
+                }
+            }
+        }
+
+        return new ShellLexer(t, '^', null, word * cmdStates, AMPERSAND);
+    }
+
+    private static short entry(int action, int next) {
+        return (short) ((action << 8) | next);
+    }
+
+    /**
+     * A transition table under construction
+     */
+    private static final class Table {
+        private final short[] entries;
+        private final boolean[] inToken;
+        private final boolean[] splits;
+
+        Table(int states) {
+            entries = new short[states * CLASSES];
+            inToken = new boolean[states];
+            splits = new boolean[states];
+        }
+
+        /**
+         * Declares a state, sending every class to <code>next</code> with <code>action</code>
+         *
+         * @param inToken true if the state is inside a token
+         * @param splits  true if an unquoted command separator ends the command in this state
+         */
+        Table state(int state, boolean inToken, boolean splits, int action, int next) {
+            this.inToken[state] = inToken;
+            this.splits[state] = splits;
+            for (int cls = 0; cls < CLASSES; cls++) entries[state * CLASSES + cls] = entry(action, next);
+            return this;
+        }
+
+        Table on(int state, int action, int next, int... classes) {
+            for (int cls : classes) entries[state * CLASSES + cls] = entry(action, next);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnsiCUnescaperTest {
+
+    @Test
+    public void noBackslashReturnsSameString() {
+        String value = "{\"a\": 1}";
+        assertSame(value, AnsiCUnescaper.unescape(value));
+    }
+
+    @Test
+    public void simpleEscapes() {
+        assertEquals("a\nb\tc\u001b\u0007'\"\\?", AnsiCUnescaper.unescape("a\\nb\\tc\\e\\a\\'\\\"\\\\\\?"));
+        assertEquals("\\q\\", AnsiCUnescaper.unescape("\\q\\"));
+    }
+
+    @Test
+    public void numericEscapes() {
+        assertEquals("AB\u0000C", AnsiCUnescaper.unescape("\\x41\\102\\0C"));
+        assertEquals("é€😀", AnsiCUnescaper.unescape("\\u00e9\\u20AC\\U0001F600"));
+        assertEquals("\\xg", AnsiCUnescaper.unescape("\\xg"));
+        assertEquals("\u0001", AnsiCUnescaper.unescape("\\ca"));
+    }
+
+    @Test
+    public void byteRunsDecodeAsUtf8WhenValid() {
+        assertEquals("é", AnsiCUnescaper.unescape("\\xc3\\xa9"));
+    }
+
+    @Test
+    public void invalidByteRunsReachTheBodyAsRawBytes() throws Exception {
+        CurlParser.CurlRequest request = CurlParser.parseCurlCommand("curl http://example.com --data-binary $'\\xff\\xfe\\x00\\x01'");
+
+        byte[] body = new byte[(int) request.getRequestBody().length()];
+        request.getRequestBody().copyTo(body, 0);
+        assertArrayEquals(new byte[]{(byte) 0xff, (byte) 0xfe, 0x00, 0x01}, body);
+
+        byte[] raw = request.toRawRequest();
+        assertArrayEquals(body, Arrays.copyOfRange(raw, raw.length - 4, raw.length));
+    }
+
+    @Test
+    public void readQuotedStopsAtClosingQuote() {
+        StringBuilder out = new StringBuilder();
+        String input = "$'it\\'s\\n' rest";
+
+        int end = AnsiCUnescaper.readQuoted(input, 2, out);
+
+        assertEquals("it's\n", out.toString());
+        assertEquals(' ', input.charAt(end));
+    }
+}
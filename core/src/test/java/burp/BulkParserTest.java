@@ -0,0 +1,80 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkParserTest {
+
+    @Test
+    public void splitDevToolsCopyAll() {
+        List<String> commands = CurlLexer.splitCommands(
+                "curl 'https://a.co/1' \\\n  -H 'x: 1' ;\n" +
+                "curl 'https://a.co/2' --data-raw 'a;b&c\nd' ;\n" +
+                "curl 'https://a.co/3'");
+
+        assertEquals(3, commands.size());
+        assertEquals("curl 'https://a.co/1' \\\n  -H 'x: 1'", commands.get(0));
+        assertEquals("curl 'https://a.co/2' --data-raw 'a;b&c\nd'", commands.get(1));
+        assertEquals("curl 'https://a.co/3'", commands.get(2));
+    }
+
+    @Test
+    public void parseAllKeepsOrderAndCountsFailures() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            input.append("curl 'https://example.com/item/").append(i).append("' -H 'X-Index: ").append(i).append("' ;\n");
+        }
+        input.append("echo not curl\n");
+        input.append("curl -H 'X-No-Url: 1'\n");
+
+        BulkParser.Result<CurlParser.CurlRequest> result = BulkParser.parseAll(input.toString(), CurlParser::parseCurlCommand, 4);
+
+        assertEquals(52, result.getTotal());
+        assertEquals(50, result.getParsed().size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("/item/" + i, result.getParsed().get(i).getPath());
+        }
+
+        assertEquals(2, result.getFailures().size());
+        assertEquals(50, result.getFailures().get(0).getIndex());
+        assertEquals(51, result.getFailures().get(1).getIndex());
+        assertEquals("Imported 50 of 52 cURL commands, 2 failed", result.getSummary());
+    }
+
+    @Test
+    public void sharedParserAcrossThreads() {
+        CurlParser parser = new CurlParser(CurlParserConfig.DEFAULT);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            input.append("curl 'https://example.com/").append(i).append("' -H 'X-Index: ").append(i)
+                 .append("' -b 'id=").append(i).append("' --data-raw '").append("x".repeat(i * 200)).append("'\n");
+        }
+
+        BulkParser.Result<CurlParser.CurlRequest> result = BulkParser.parseAll(input.toString(), parser::parse, 8);
+
+        assertEquals(500, result.getParsed().size());
+        for (int i = 0; i < 500; i++) {
+            CurlParser.CurlRequest request = result.getParsed().get(i);
+            assertEquals("/" + i, request.getPath());
+            assertEquals(String.valueOf(i), request.getHeaders().get(0).value());
+            assertEquals("id=" + i, request.getHeaders().get(1).value());
+            assertEquals(i * 200, request.getBody().length());
+        }
+    }
+
+    @Test
+    public void removeDuplicatesKeepsFirst() {
+        String input = "curl https://a.co/1\ncurl https://a.co/2\ncurl -H 'X: y' https://a.co/1\ncurl https://A.co/1\n";
+        BulkParser.Result<CurlParser.CurlRequest> result = BulkParser.parseAll(input, CurlParser::parseCurlCommand, 2);
+
+        result.removeDuplicates(RequestHasher::hash, RequestDeduplicator.forRequests(result.getTotal()));
+
+        assertEquals(3, result.getParsed().size());
+        assertEquals("/2", result.getParsed().get(1).getPath());
+        assertEquals(1, result.getDuplicates());
+        assertEquals("Imported 3 of 4 cURL commands, 0 failed, 1 duplicates skipped", result.getSummary());
+    }
+}
@@ -0,0 +1,94 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkSenderTest {
+
+    @Test
+    public void respectsConcurrencyLimits() {
+        List<String> hosts = new ArrayList<>();
+        for (int i = 0; i < 60; i++) hosts.add(i % 3 == 0 ? "a" : "b" + (i % 3));
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Map<String, AtomicInteger> perHost = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> maxPerHost = new ConcurrentHashMap<>();
+        String[] results = new String[hosts.size()];
+
+        new BulkSender(new SendConfig(4, 2, 0)).sendAll(hosts, host -> host, host -> {
+            AtomicInteger hostCount = perHost.computeIfAbsent(host, key -> new AtomicInteger());
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            maxPerHost.computeIfAbsent(host, key -> new AtomicInteger()).accumulateAndGet(hostCount.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            hostCount.decrementAndGet();
+            inFlight.decrementAndGet();
+            return "sent " + host;
+        }, (index, host, result, error, nanos) -> results[index] = result);
+
+        assertTrue(maxInFlight.get() <= 4);
+        maxPerHost.values().forEach(max -> assertTrue(max.get() <= 2));
+        for (int i = 0; i < hosts.size(); i++) assertEquals("sent " + hosts.get(i), results[i]);
+    }
+
+    @Test
+    public void reportsErrors() {
+        List<Throwable> errors = new ArrayList<>();
+
+        new BulkSender(SendConfig.DEFAULT).sendAll(List.of("x"), host -> host, host -> {
+            throw new IllegalStateException("refused");
+        }, (index, host, result, error, nanos) -> errors.add(error));
+
+        assertEquals(1, errors.size());
+        assertEquals("refused", errors.get(0).getMessage());
+    }
+
+    @Test
+    public void pullsFromIteratorAsSlotsFree() {
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        Iterator<Integer> items = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return produced.get() < 500;
+            }
+
+            @Override
+            public Integer next() {
+                //never more than the thread count taken ahead of what has completed
+                maxAhead.accumulateAndGet(produced.get() - completed.get(), Math::max);
+                return produced.getAndIncrement();
+            }
+        };
+
+        new BulkSender(new SendConfig(4, 4, 0)).sendAll(items, item -> "host", item -> item,
+                (index, item, result, error, nanos) -> completed.incrementAndGet());
+
+        assertEquals(500, completed.get());
+        assertTrue(maxAhead.get() <= 4);
+    }
+
+    @Test
+    public void rateLimited() {
+        long start = System.nanoTime();
+
+        new BulkSender(SendConfig.DEFAULT.withRequestsPerSecond(100)).sendAll(List.of(1, 2, 3, 4, 5, 6), item -> "h",
+                item -> item, (index, item, result, error, nanos) -> {});
+
+        //six starts at 10 ms spacing take at least 50 ms
+        assertTrue(System.nanoTime() - start >= 50_000_000L);
+    }
+}
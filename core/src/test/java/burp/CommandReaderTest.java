@@ -0,0 +1,71 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandReaderTest {
+
+    @Test
+    public void matchesSplitCommands() throws IOException {
+        String input = "curl a.co; curl 'b;c' &\n\ncurl \"d\\\"&\" \\\n -H x\r\n"
+                + "curl $'e\\'f;g' \\\r\n -L\ncurl \\$'h;i'\n  \n";
+
+        assertEquals(CurlLexer.splitCommands(input), readAll(new CommandReader(new StringReader(input))));
+    }
+
+    @Test
+    public void caretContinuesLine() throws IOException {
+        String input = "curl.exe a.co ^\r\n -H x ^\n -L\ncurl b^c.co\n";
+
+        List<String> commands = readAll(new CommandReader(new StringReader(input)));
+
+        assertEquals(CurlLexer.splitCommands(input), commands);
+        assertEquals(2, commands.size());
+    }
+
+    @Test
+    public void detectsDialectPastShortFirstRead() throws IOException {
+        String input = "curl.exe a.co ^\r\n -H x ^\n -L\ncurl b^c.co\n";
+        //hands out one character per read, as a slow pipe might
+        Reader trickle = new FilterReader(new StringReader(input)) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 1));
+            }
+        };
+
+        assertEquals(CurlLexer.splitCommands(input), readAll(new CommandReader(trickle)));
+    }
+
+    @Test
+    public void commandsSpanBufferRefills() throws IOException {
+        String body = "x".repeat(20_000);
+        String input = "curl -d '" + body + "' a.co\ncurl b.co";
+
+        List<String> commands = readAll(new CommandReader(new StringReader(input)));
+
+        assertEquals(List.of("curl -d '" + body + "' a.co", "curl b.co"), commands);
+    }
+
+    @Test
+    public void rejectsOversizedCommand() {
+        CommandReader reader = new CommandReader(new StringReader("curl " + "x".repeat(100)), 50);
+
+        assertThrows(CurlParseException.class, reader::next);
+    }
+
+    private static List<String> readAll(CommandReader reader) throws IOException {
+        List<String> commands = new ArrayList<>();
+        String command;
+        while ((command = reader.next()) != null) commands.add(command);
+        return commands;
+    }
+}
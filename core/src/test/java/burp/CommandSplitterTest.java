@@ -0,0 +1,105 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandSplitterTest {
+
+    private static final String[] BASH = {
+            "curl https://a.co/x -H 'X-A: 1'\n",
+            "curl https://a.co/y \\\n  -H 'X-B: 2'\n",
+            "curl https://a.co/z \\\r\n  -H \"X-C: 3\"\r\n",
+            "curl -d 'line one\ncurl https://inside.quote/\nline three' https://a.co/q\n",
+            "curl -d \"esc \\\" ;\ncurl https://inside.double/\" https://a.co/d; curl https://a.co/e &\n",
+            "curl $'ansi \\' \ncurl https://inside.ansi/' https://a.co/s\n",
+            "echo not curl\n",
+            "\n",
+            "/usr/bin/curl https://a.co/p\n",
+    };
+
+    private static final String[] CMD = {
+            "curl ^\"https://a.co/x^\" ^\n  -H ^\"X-A: 1^\"\n",
+            "curl ^\"https://a.co/y^\" ^\r\n  -H ^\"X-B: a;b^\"\r\n",
+            "curl ^\"https://a.co/q^\" --data-raw ^\"one^\n\ncurl https://inside.body/^\"\n",
+            "curl \"https://a.co/d?a=1&b\" & curl ^\"https://a.co/e^\"\n",
+            "\n",
+    };
+
+    private static final String[] POWERSHELL = {
+            "curl.exe 'https://a.co/x' `\n  -H 'X-A: 1'\n",
+            "curl.exe \"https://a.co/y\" `\r\n  -H \"X-B: `\"b`\"\"; curl.exe https://a.co/z\r\n",
+            "curl.exe -d 'it''s\ncurl.exe https://inside.quote/' https://a.co/q\n",
+            "\n",
+    };
+
+    @Test
+    public void splitsBash() {
+        assertEquals(List.of("curl a", "curl 'b;c'", "curl b \\\n -L", "curl c ^", "-L"),
+                CommandSplitter.split("curl a; curl 'b;c' &\n\ncurl b \\\n -L\ncurl c ^\n -L\n"));
+    }
+
+    @Test
+    public void splitsCmd() {
+        assertEquals(List.of("curl ^\"a;b^\" ^\n -L", "curl \"c&d\"", "curl e"),
+                CommandSplitter.split("curl ^\"a;b^\" ^\n -L\ncurl \"c&d\" & curl e\n"));
+    }
+
+    @Test
+    public void splitsPowerShell() {
+        assertEquals(List.of("curl.exe 'a&b' `\n -L", "curl.exe c"),
+                CommandSplitter.split("curl.exe 'a&b' `\n -L; curl.exe c\n"));
+    }
+
+    @Test
+    public void parallelSplitMatchesSequential() throws InterruptedException {
+        Random random = new Random(42);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String[] pieces : List.of(BASH, CMD, POWERSHELL)) {
+                for (int round = 0; round < 30; round++) {
+                    StringBuilder input = new StringBuilder(pieces[0]);
+                    int count = 20 + random.nextInt(200);
+                    for (int i = 0; i < count; i++) input.append(pieces[random.nextInt(pieces.length)]);
+                    String text = input.toString();
+
+                    List<String> expected = CommandSplitter.split(text);
+                    for (int chunk : new int[]{1, 7, 64, 500}) {
+                        assertEquals(expected, CommandSplitter.split(text, Dialect.AUTO, pool, chunk), "round " + round + ", chunk " + chunk);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void quotedBodyOpenAcrossChunks() throws InterruptedException {
+        //an unterminated quote swallows every later curl line
+        String text = "curl -d 'open\n" + "curl https://a.co/\n".repeat(200);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<String> commands = CommandSplitter.split(text, Dialect.BASH, pool, 16);
+            assertEquals(1, commands.size());
+            assertEquals(CommandSplitter.split(text), commands);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void resyncSkipsContinuedLines() {
+        String text = "curl a \\\ncurl b\nx\n  curl c\n";
+        assertEquals(0, CommandSplitter.resync(text, ShellLexer.BASH, 0));
+        assertEquals(text.indexOf("  curl c"), CommandSplitter.resync(text, ShellLexer.BASH, 1));
+        assertEquals(text.length(), CommandSplitter.resync(text, ShellLexer.BASH, text.length() - 2));
+
+        String cmd = "curl a ^\ncurl b\n";
+        assertEquals(cmd.length(), CommandSplitter.resync(cmd, ShellLexer.CMD, 1));
+    }
+}
@@ -0,0 +1,38 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CurlLexerTest {
+
+    @Test
+    public void tokenizeQuoting() {
+        List<String> tokens = CurlLexer.tokenize("curl 'https://a.co/x y' -H \"X-Test: \\\"q\\\"\" plain\\ word");
+
+        assertEquals(List.of("curl", "https://a.co/x y", "-H", "X-Test: \"q\"", "plain word"), tokens);
+    }
+
+    @Test
+    public void tokenizeContinuations() {
+        List<String> tokens = CurlLexer.tokenize("curl \\\n  -L \\\r\n  https://a.co");
+
+        assertEquals(List.of("curl", "-L", "https://a.co"), tokens);
+    }
+
+    @Test
+    public void tokenizeAdjacentQuotes() {
+        List<String> tokens = CurlLexer.tokenize("curl -d 'a'\"b\"c $'d\\'e'");
+
+        assertEquals(List.of("curl", "-d", "abc", "d'e"), tokens);
+    }
+
+    @Test
+    public void tokenizeUnterminatedQuote() {
+        List<String> tokens = CurlLexer.tokenize("curl 'https://a.co -H x");
+
+        assertEquals(List.of("curl", "https://a.co -H x"), tokens);
+    }
+}
@@ -0,0 +1,102 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CurlWriterTest {
+
+    private final CurlWriter writer = new CurlWriter(CurlWriter.DEFAULT_INLINE_LIMIT, null);
+
+    @Test
+    public void writesGetWithoutDefaults() throws IOException {
+        StringBuilder out = new StringBuilder();
+        writer.write(out, "GET", "https://a.co/p?q=1&r=2",
+                List.of(new CurlHeader("Host", "a.co"), new CurlHeader("X-Name", "O'Brien")), new byte[0], 0, 0);
+
+        assertEquals("curl 'https://a.co/p?q=1&r=2' \\\n  -H 'X-Name: O'\\''Brien'", out.toString());
+    }
+
+    @Test
+    public void writesTextBodyFromMessageSlice() throws IOException {
+        byte[] message = "HEAD\r\n\r\n{\"a\":\"é\"}".getBytes(StandardCharsets.UTF_8);
+        StringBuilder out = new StringBuilder();
+        writer.write(out, "PUT", "http://a.co:8080/x", List.of(new CurlHeader("Host", "a.co:8080"),
+                new CurlHeader("Content-Length", "11")), message, 8, message.length - 8);
+
+        assertEquals("curl http://a.co:8080/x \\\n  -X PUT \\\n  --data-raw '{\"a\":\"é\"}'", out.toString());
+    }
+
+    @Test
+    public void writesBinaryBodyAnsiQuoted() throws IOException {
+        StringBuilder out = new StringBuilder();
+        writer.write(out, "POST", "http://a.co/", List.of(), new byte[]{'a', 1, '\'', (byte) 0xff}, 0, 4);
+
+        assertEquals("curl http://a.co/ \\\n  --data-binary $'a\\x01\\'\\xff'", out.toString());
+    }
+
+    @Test
+    public void spillsBodyWithNulEvenWhenSmall(@TempDir Path dir) throws IOException {
+        byte[] body = {'a', 0, 'b'};
+        StringBuilder out = new StringBuilder();
+        new CurlWriter(CurlWriter.DEFAULT_INLINE_LIMIT, dir).write(out, "POST", "http://a.co/", List.of(), body, 0, body.length);
+
+        Path file = dir.resolve("body-1.bin");
+        assertEquals("curl http://a.co/ \\\n  --data-binary @" + file.toAbsolutePath(), out.toString());
+        assertArrayEquals(body, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void inlinesBodyWithNulWithoutDirectory() throws IOException {
+        byte[] body = {0, 1, 'a', (byte) 0xff};
+        StringBuilder out = new StringBuilder();
+        writer.write(out, "POST", "http://a.co/", List.of(), body, 0, body.length);
+
+        assertEquals("curl http://a.co/ \\\n  --data-binary $'\\x00\\x01a\\xff'", out.toString());
+        CurlParser.CurlRequest request = CurlParser.parseCurlCommand(out.toString());
+        assertNull(request.getBodyFile());
+        byte[] parsed = new byte[(int) request.getRequestBody().length()];
+        request.getRequestBody().copyTo(parsed, 0);
+        assertArrayEquals(body, parsed);
+    }
+
+    @Test
+    public void spillsLargeBodyToFile(@TempDir Path dir) throws IOException {
+        byte[] body = new byte[100];
+        CurlWriter spilling = new CurlWriter(10, dir);
+        StringBuilder out = new StringBuilder();
+        spilling.write(out, "POST", "http://a.co/", List.of(), body, 0, body.length);
+
+        Path file = dir.resolve("body-1.bin");
+        assertEquals("curl http://a.co/ \\\n  --data-binary @" + file.toAbsolutePath(), out.toString());
+        assertArrayEquals(body, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void writesHeadAsHeadOption() throws IOException {
+        StringBuilder out = new StringBuilder();
+        writer.write(out, "HEAD", "https://a.co/x", List.of(), new byte[0], 0, 0);
+
+        assertEquals("curl https://a.co/x \\\n  -I", out.toString());
+        assertEquals("HEAD", CurlParser.parseCurlCommand(out.toString()).getMethod());
+    }
+
+    @Test
+    public void roundTripsThroughParser() throws IOException {
+        StringBuilder out = new StringBuilder();
+        writer.write(out, "DELETE", "https://a.co/items/1", List.of(new CurlHeader("Authorization", "Bearer t")),
+                new byte[0], 0, 0);
+
+        CurlParser.CurlRequest request = CurlParser.parseCurlCommand(out.toString());
+        assertEquals("DELETE", request.getMethod());
+        assertEquals("/items/1", request.getPath());
+        assertEquals("Bearer t", request.getHeaders().get(0).value());
+    }
+}
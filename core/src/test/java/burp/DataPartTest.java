@@ -0,0 +1,77 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataPartTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String body(CurlParser.CurlRequest request) throws Exception {
+        String raw = new String(request.toRawRequest(), StandardCharsets.UTF_8);
+        return raw.substring(raw.indexOf("\r\n\r\n") + 4);
+    }
+
+    @Test
+    public void joinsInlineAndFileDataInArgumentOrder() throws Exception {
+        Path a = Files.writeString(tempDir.resolve("a.txt"), "a=1\n");
+        Path c = Files.writeString(tempDir.resolve("c.bin"), "c=3\n");
+
+        CurlParser.CurlRequest request = CurlParser.parseCurlCommand("curl https://a.co/ -d @" + a
+                + " -d b=2 --data-raw x=9 --data-binary @" + c);
+
+        assertEquals("a=1&b=2&x=9&c=3\n", body(request));
+        assertEquals(List.of(DataPart.Kind.TEXT_FILE, DataPart.Kind.INLINE, DataPart.Kind.BINARY_FILE),
+                request.getDataParts().stream().map(DataPart::getKind).toList());
+        assertEquals(a.toString(), request.getBodyFile());
+        assertTrue(request.isBodyFileText());
+    }
+
+    @Test
+    public void inlineDataBeforeAndAfterFile() throws Exception {
+        Path b = Files.writeString(tempDir.resolve("b.txt"), "b=2");
+
+        CurlParser.CurlRequest request = CurlParser.parseCurlCommand("curl https://a.co/ -d a=1 -d @" + b + " -d c=3");
+
+        assertEquals("a=1&b=2&c=3", body(request));
+        assertTrue(request.getRequestBody().isEmpty());
+        assertTrue(request.readsFiles());
+    }
+
+    @Test
+    public void inlineOnlyDataHasNoParts() throws Exception {
+        CurlParser.CurlRequest request = CurlParser.parseCurlCommand("curl https://a.co/ -d a=1 -d b=2");
+
+        assertEquals("a=1&b=2", body(request));
+        assertTrue(request.getDataParts().isEmpty());
+        assertFalse(request.readsFiles());
+    }
+
+    @Test
+    public void urlEncodesFileContent() throws Exception {
+        Path file = Files.write(tempDir.resolve("q.txt"), new byte[]{'a', ' ', '&', '\n', (byte) 0xff});
+
+        CurlParser.CurlRequest request = CurlParser.parseCurlCommand("curl https://a.co/ -d x=1 --data-urlencode q@" + file
+                + " --data-urlencode @" + file);
+
+        assertEquals("x=1&q=a%20%26%0A%FF&a%20%26%0A%FF", body(request));
+    }
+
+    @Test
+    public void appendsJsonWithoutSeparator() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("a.json"), "{\"a\":");
+
+        CurlParser.CurlRequest request = CurlParser.parseCurlCommand("curl https://a.co/ --json @" + file + " --json '1}'");
+
+        assertEquals("{\"a\":1}", body(request));
+        assertFalse(request.getDataParts().get(1).isSeparated());
+    }
+}
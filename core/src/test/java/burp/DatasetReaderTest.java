@@ -0,0 +1,102 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetReaderTest {
+
+    private static DatasetReader reader(String text) throws IOException {
+        return new DatasetReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), 1024);
+    }
+
+    @Test
+    public void readsCsv() throws IOException {
+        try (DatasetReader reader = reader("\uFEFFid,name,note\r\n1,plain,\r\n\r\n2,\"quoted, with comma\",\"two\nlines and \"\"quotes\"\"\"\n3,short\n")) {
+            assertEquals(DatasetReader.Format.CSV, reader.getFormat());
+            assertEquals(List.of("id", "name", "note"), reader.getColumns());
+
+            assertArrayEquals(new String[]{"1", "plain", ""}, reader.next());
+            assertArrayEquals(new String[]{"2", "quoted, with comma", "two\nlines and \"quotes\""}, reader.next());
+            assertArrayEquals(new String[]{"3", "short", null}, reader.next());
+            assertNull(reader.next());
+            assertEquals(3, reader.getRow());
+        }
+    }
+
+    @Test
+    public void unterminatedQuoteIsAnError() throws IOException {
+        try (DatasetReader reader = reader("a\n\"open\n")) {
+            CurlParseException e = assertThrows(CurlParseException.class, reader::next);
+            assertEquals(FailureReason.INVALID_DATASET, e.getReason());
+        }
+    }
+
+    @Test
+    public void readsJsonLines() throws IOException {
+        try (DatasetReader reader = reader("{\"id\": 1, \"name\": \"a\\u00e9\"}\n{\"name\":\"b\",\"extra\":{\"x\":1},\"id\":2}\n\n{\"id\":null}\n")) {
+            assertEquals(DatasetReader.Format.JSONL, reader.getFormat());
+            assertEquals(List.of("id", "name"), reader.getColumns());
+
+            assertArrayEquals(new String[]{"1", "aé"}, reader.next());
+            assertArrayEquals(new String[]{"2", "b"}, reader.next());
+            assertArrayEquals(new String[]{null, null}, reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void malformedJsonLineIsADatasetError() throws IOException {
+        try (DatasetReader reader = reader("{\"id\": 1}\n{\"id\": \"open\n")) {
+            assertArrayEquals(new String[]{"1"}, reader.next());
+            CurlParseException e = assertThrows(CurlParseException.class, reader::next);
+            assertEquals(FailureReason.INVALID_DATASET, e.getReason());
+        }
+    }
+
+    @Test
+    public void fieldLongerThanLimitIsAnError() throws IOException {
+        try (DatasetReader reader = reader("a\n" + "x".repeat(2000) + "\n")) {
+            CurlParseException e = assertThrows(CurlParseException.class, reader::next);
+            assertEquals(FailureReason.TOO_LARGE, e.getReason());
+        }
+    }
+
+    @Test
+    public void streamsManyRows() throws IOException {
+        int rows = 100_000;
+        //generates the file as it is read, so nothing holds the whole dataset
+        InputStream in = new InputStream() {
+            private byte[] line = "id,value\n".getBytes(StandardCharsets.US_ASCII);
+            private int position;
+            private int row;
+
+            @Override
+            public int read() {
+                if (position == line.length) {
+                    if (row == rows) return -1;
+                    line = (row + ",value-" + row++ + "\n").getBytes(StandardCharsets.US_ASCII);
+                    position = 0;
+                }
+                return line[position++];
+            }
+        };
+
+        RequestTemplate.Renderer renderer = RequestTemplate.compile(new CurlParser(CurlParserConfig.DEFAULT)
+                .parseOrThrow("curl https://a.co/items/{{id}} -d 'v={{value}}'")).bind(List.of("id", "value"));
+        try (DatasetReader reader = new DatasetReader(in, 1024)) {
+            String[] row;
+            long bytes = 0;
+            while ((row = reader.next()) != null) bytes += renderer.render(row).getMessage().length;
+
+            assertEquals(rows, reader.getRow());
+            assertTrue(bytes > rows * 50L);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DialectTest {
+
+    @Test
+    public void detectsFromContinuations() {
+        assertEquals(Dialect.BASH, Dialect.detect("curl 'https://a.co/' \\\n  -H 'a: b'"));
+        assertEquals(Dialect.CMD, Dialect.detect("curl \"https://a.co/\" ^\r\n  -H \"a: b\""));
+        assertEquals(Dialect.POWERSHELL, Dialect.detect("curl.exe 'https://a.co/' `\n  -H 'a: b'"));
+    }
+
+    @Test
+    public void detectsCaretQuotes() {
+        assertEquals(Dialect.CMD, Dialect.detect("curl ^\"https://a.co/^\" -H ^\"a: b^\""));
+        assertEquals(Dialect.BASH, Dialect.detect("curl https://a.co/"));
+        assertEquals(Dialect.BASH, Dialect.detect(""));
+    }
+
+    @Test
+    public void firstContinuationWins() {
+        assertEquals(Dialect.BASH, Dialect.detect("curl https://a.co/ -d '^\"' \\\n -L ^\n"));
+    }
+
+    @Test
+    public void onlyLooksAtTheStart() {
+        String late = "curl https://a.co/ -d '" + "x".repeat(Dialect.DETECT_LIMIT) + "' ^\n -L";
+        assertEquals(Dialect.BASH, Dialect.detect(late));
+        assertEquals(Dialect.CMD, Dialect.AUTO.resolve("curl a ^\n -L"));
+        assertEquals(Dialect.POWERSHELL, Dialect.POWERSHELL.resolve("curl a \\\n -L"));
+    }
+}
@@ -0,0 +1,33 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileBodyTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void readBinaryUnchanged() throws Exception {
+        byte[] content = {0, (byte) 0xff, '\r', '\n', (byte) 0xc3, 0x28};
+        Path file = Files.write(tempDir.resolve("dump.bin"), content);
+
+        assertArrayEquals(content, FileBody.read(file.toString(), false, new byte[0]));
+    }
+
+    @Test
+    public void readTextStripsNewlinesAfterPrefix() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("payload.txt"), "b=2\r\nc=3\n");
+
+        byte[] body = FileBody.read(file.toString(), true, "a=1\n&".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("a=1\n&b=2c=3", new String(body, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,55 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HarReaderTest {
+
+    private static final String HAR = "{\"log\":{\"version\":\"1.2\",\"creator\":{\"name\":\"x\"},\"entries\":["
+            + "{\"startedDateTime\":\"2024\",\"request\":{\"method\":\"POST\",\"url\":\"https://a.co/p?q=1\","
+            + "\"headers\":[{\"name\":\":authority\",\"value\":\"a.co\"},{\"name\":\"Content-Type\",\"value\":\"application/json\"}],"
+            + "\"postData\":{\"mimeType\":\"application/json\",\"text\":\"{\\\"a\\\":\\\"\\u00e9\\\\n\\\"}\"}},"
+            + "\"response\":{\"content\":{\"text\":\"" + "z".repeat(100_000) + "\"}}},"
+            + "{\"request\":{\"url\":\"not a url\",\"headers\":[]}},"
+            + "{\"request\":{\"headers\":[],\"method\":\"GET\",\"url\":\"http://b.co:8080/\"}}"
+            + "],\"pages\":[]}}";
+
+    @Test
+    public void readsRequests() throws IOException {
+        HarReader reader = new HarReader(new StringReader(HAR));
+
+        CurlParser.CurlRequest first = reader.next();
+        assertEquals("POST", first.getMethod());
+        assertEquals("https://a.co/p?q=1", first.getUrl().getSource());
+        assertEquals(1, first.getHeaders().size());
+        assertEquals("Content-Type", first.getHeaders().get(0).name());
+        assertEquals("{\"a\":\"é\\n\"}", first.getBody());
+
+        assertThrows(CurlParseException.class, reader::next);
+
+        CurlParser.CurlRequest third = reader.next();
+        assertEquals("GET", third.getMethod());
+        assertEquals(8080, third.getPort());
+        assertEquals("", third.getBody());
+
+        assertNull(reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void noEntries() throws IOException {
+        assertNull(new HarReader(new StringReader("{\"log\":{\"version\":\"1.2\"}}")).next());
+    }
+
+    @Test
+    public void malformedJsonEndsReading() throws IOException {
+        HarReader reader = new HarReader(new StringReader("{\"log\":{\"entries\":[{\"request\":{\"url\":\"http://a.co\"]]"));
+
+        assertThrows(CurlParseException.class, reader::next);
+        assertNull(reader.next());
+    }
+}
@@ -0,0 +1,54 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalLexerTest {
+
+    @Test
+    public void editHeaderWithoutRereadingBody() {
+        String body = "x".repeat(1_000_000);
+        String command = "curl https://a.co -H 'X-A: 1' \\\n  --data-raw '" + body + "'";
+        IncrementalLexer lexer = new IncrementalLexer(command);
+
+        int offset = command.indexOf("1'");
+        lexer.replace(offset, 1, "22");
+
+        assertEquals(CurlLexer.tokenize(lexer.getText()), lexer.getTokens());
+        assertEquals("X-A: 22", lexer.getTokens().get(3));
+        assertTrue(lexer.getLastRelexed() < 100, "relexed " + lexer.getLastRelexed());
+    }
+
+    @Test
+    public void quoteChangesRelexToEnd() {
+        IncrementalLexer lexer = new IncrementalLexer("curl a.co -H 'X: 1' -d b");
+
+        lexer.replace(5, 0, "'");
+        assertEquals(CurlLexer.tokenize(lexer.getText()), lexer.getTokens());
+
+        lexer.replace(5, 1, "");
+        assertEquals(CurlLexer.tokenize(lexer.getText()), lexer.getTokens());
+    }
+
+    @Test
+    public void randomEditsMatchFullTokenize() {
+        Random random = new Random(42);
+        String alphabet = "ab -'\"\\$\n\t";
+        IncrementalLexer lexer = new IncrementalLexer("curl https://a.co -H 'X: 1' -d \"a b\" $'c\\'d'");
+
+        for (int n = 0; n < 5_000; n++) {
+            String text = lexer.getText();
+            int offset = random.nextInt(text.length() + 1);
+            int removed = random.nextInt(Math.min(3, text.length() - offset) + 1);
+            StringBuilder inserted = new StringBuilder();
+            for (int k = random.nextInt(3); k > 0; k--) inserted.append(alphabet.charAt(random.nextInt(alphabet.length())));
+
+            lexer.replace(offset, removed, inserted.toString());
+
+            assertEquals(CurlLexer.tokenize(lexer.getText()), lexer.getTokens(), "after edit " + n + ": " + lexer.getText());
+        }
+    }
+}
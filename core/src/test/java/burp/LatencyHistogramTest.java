@@ -0,0 +1,40 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    public void percentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) histogram.record(i * 1_000);
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_000, histogram.percentile(0.5), 5_000_000 * 0.125);
+        assertEquals(9_900_000, histogram.percentile(0.99), 9_900_000 * 0.125);
+        assertEquals(10_000_000, histogram.percentile(1.0));
+    }
+
+    @Test
+    public void bucketsCoverTheirValues() {
+        for (long value : new long[]{0, 1, 7, 8, 15, 16, 1_000, 123_456_789, Long.MAX_VALUE / 4}) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(LatencyHistogram.upperBound(bucket) >= value, "value " + value);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < value, "value " + value);
+        }
+    }
+
+    @Test
+    public void emptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(0.5));
+
+        histogram.record(42);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+}
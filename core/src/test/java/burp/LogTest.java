@@ -0,0 +1,41 @@
+package burp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogTest {
+
+    private final Log.Level original = Log.getLevel();
+
+    @AfterEach
+    public void restoreLevel() {
+        Log.setLevel(original);
+    }
+
+    @Test
+    public void disabledLevelDoesNotBuildMessage() {
+        Log.setLevel(Log.Level.INFO);
+
+        Log.debug(null, () -> fail("debug message built while DEBUG disabled"));
+        assertFalse(Log.isEnabled(Log.Level.DEBUG));
+        assertTrue(Log.isEnabled(Log.Level.ERROR));
+    }
+
+    @Test
+    public void offDisablesEverything() {
+        Log.setLevel(Log.Level.OFF);
+
+        Log.error(null, () -> fail("error message built while logging off"));
+        assertFalse(Log.isEnabled(Log.Level.ERROR));
+    }
+
+    @Test
+    public void excerptShortensLongInput() {
+        String longText = "x".repeat(Log.MAX_EXCERPT * 2);
+
+        assertEquals("short", Log.excerpt("short"));
+        assertEquals("x".repeat(Log.MAX_EXCERPT) + "... (" + longText.length() + " chars)", Log.excerpt(longText));
+    }
+}
@@ -0,0 +1,46 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @Test
+    public void parseFailuresHaveReasons() {
+        CurlParser parser = new CurlParser(CurlParserConfig.DEFAULT);
+
+        assertEquals(FailureReason.NO_URL,
+                assertThrows(CurlParseException.class, () -> parser.parseOrThrow("curl -H 'A: b'")).getReason());
+        assertEquals(FailureReason.INVALID_URL,
+                assertThrows(CurlParseException.class, () -> parser.parseOrThrow("curl http:///path")).getReason());
+        assertEquals(FailureReason.INVALID_FORM,
+                assertThrows(CurlParseException.class, () -> parser.parseOrThrow("curl https://a.co -F x")).getReason());
+
+        //parse keeps returning null when there is no request
+        assertNull(parser.parse("curl -H 'A: b'"));
+    }
+
+    @Test
+    public void countsAndExportsCsv() {
+        Metrics metrics = new Metrics();
+        metrics.parsed(120, System.nanoTime() - 2_000_000);
+        metrics.recordNanos(Metrics.Operation.SEND, 5_000_000);
+        metrics.failed(FailureReason.NO_URL);
+        metrics.failed(FailureReason.NO_URL);
+
+        assertEquals(1, metrics.getCommands());
+        assertEquals(120, metrics.getInputChars());
+        assertEquals(2, metrics.getFailures(FailureReason.NO_URL));
+
+        String csv = metrics.toCsv();
+        assertTrue(csv.startsWith("metric,count,p50_us,p99_us,max_us\ncommands,1,,,\ninput_chars,120,,,\n"));
+        assertTrue(csv.contains("\nsend,1,"));
+        assertTrue(csv.contains("\nfailure.no_url,2,,,\n"));
+        assertTrue(metrics.summary().contains("\n  parse: 1 runs, "));
+
+        metrics.reset();
+        assertEquals(0, metrics.getCommands());
+        assertEquals(0, metrics.getLatency(Metrics.Operation.PARSE).getCount());
+    }
+}
@@ -0,0 +1,94 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartBodyTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void parsesPartSyntax() {
+        MultipartBody.Part text = MultipartBody.parsePart("name=a;b;type=text/x", false);
+        assertEquals("a;b", text.getValue());
+        assertEquals("text/x", text.getType());
+
+        MultipartBody.Part upload = MultipartBody.parsePart("f=@\"dir/my;file.png\";filename=x.png", false);
+        assertEquals("dir/my;file.png", upload.getFile());
+        assertEquals("x.png", upload.getFilename());
+        assertEquals("image/png", upload.getType());
+
+        MultipartBody.Part fromFile = MultipartBody.parsePart("f=<notes.txt", false);
+        assertEquals("notes.txt", fromFile.getFile());
+        assertNull(fromFile.getFilename());
+
+        MultipartBody.Part literal = MultipartBody.parsePart("s=@x;type=y", true);
+        assertEquals("@x;type=y", literal.getValue());
+
+        assertThrows(CurlParseException.class, () -> MultipartBody.parsePart("novalue", false));
+
+        CurlParseException noFileName = assertThrows(CurlParseException.class, () -> MultipartBody.parsePart("x=@/", false));
+        assertEquals(FailureReason.INVALID_FORM, noFileName.getReason());
+        assertEquals("/", MultipartBody.parsePart("x=@/;filename=root", false).getFile());
+    }
+
+    @Test
+    public void rendersFileParts() throws IOException {
+        Path file = dir.resolve("data.bin");
+        byte[] content = new byte[100_000];
+        for (int i = 0; i < content.length; i++) content[i] = (byte) i;
+        Files.write(file, content);
+
+        MultipartBody body = new MultipartBody(List.of(
+                MultipartBody.parsePart("a=1", false),
+                MultipartBody.parsePart("f=@" + file, false)));
+
+        byte[] rendered = new byte[(int) body.length()];
+        assertEquals(rendered.length, body.writeTo(rendered, 0));
+
+        String text = new String(rendered, StandardCharsets.ISO_8859_1);
+        String boundary = body.getBoundary();
+        assertTrue(text.startsWith("--" + boundary + "\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\n1\r\n"));
+        assertTrue(text.contains("Content-Disposition: form-data; name=\"f\"; filename=\"data.bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n"));
+        assertTrue(text.endsWith("\r\n--" + boundary + "--\r\n"));
+    }
+
+    @Test
+    public void parserBuildsMultipartRequest() throws IOException {
+        Path file = dir.resolve("a.txt");
+        Files.writeString(file, "hello");
+
+        CurlParser.CurlRequest request = CurlParser.parseCurlCommand(
+                "curl https://a.co/upload -F 'name=x' --form-string 'raw=@y' -F 'doc=@" + file + "'");
+
+        assertEquals("POST", request.getMethod());
+        MultipartBody multipart = request.getMultipart();
+        assertEquals(3, multipart.getParts().size());
+        assertEquals("Content-Type", request.getHeaders().get(0).name());
+        assertEquals(multipart.getContentType(), request.getHeaders().get(0).value());
+
+        String raw = new String(request.toRawRequest(), StandardCharsets.UTF_8);
+        assertTrue(raw.contains("Content-Length: " + multipart.length() + "\r\n"));
+        assertTrue(raw.contains("name=\"raw\"\r\n\r\n@y\r\n"));
+        assertTrue(raw.contains("filename=\"a.txt\"\r\nContent-Type: text/plain\r\n\r\nhello\r\n"));
+    }
+
+    @Test
+    public void addsBoundaryToGivenContentType() {
+        CurlParser.CurlRequest request = CurlParser.parseCurlCommand(
+                "curl https://a.co -H 'Content-Type: multipart/form-data' -F a=1");
+
+        assertEquals(1, request.getHeaders().size());
+        assertEquals("multipart/form-data; boundary=" + request.getMultipart().getBoundary(), request.getHeaders().get(0).value());
+    }
+}
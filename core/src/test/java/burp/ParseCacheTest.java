@@ -0,0 +1,54 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseCacheTest {
+
+    @Test
+    public void repeatReturnsCachedResult() {
+        ParseCache<CurlParser.CurlRequest> cache = new ParseCache<>(1024 * 1024);
+        String command = "curl https://a.co -d x=1";
+
+        assertNull(cache.get(command));
+        CurlParser.CurlRequest request = CurlParser.parseCurlCommand(command);
+        cache.put(command, request, command.length());
+
+        assertSame(request, cache.get(new String(command)));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        //the cached text counts towards the weight
+        assertEquals(3L * command.length(), cache.getBytes());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByBytes() {
+        ParseCache<String> cache = new ParseCache<>(65);
+        for (String text : new String[]{"a", "b"}) cache.put(text.repeat(10), text, 10);
+        cache.get("a".repeat(10));
+        cache.put("c".repeat(10), "c", 10);
+
+        assertEquals(2, cache.size());
+        assertEquals(60, cache.getBytes());
+        assertEquals("a", cache.get("a".repeat(10)));
+        assertNull(cache.get("b".repeat(10)));
+        assertEquals("c", cache.get("c".repeat(10)));
+    }
+
+    @Test
+    public void skipsNullAndOversizedResults() {
+        ParseCache<String> cache = new ParseCache<>(12);
+        cache.put("abc", null, 3);
+        cache.put("abcd", "ABCD", 5);
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    public void hashDependsOnEveryCharacter() {
+        assertNotEquals(ParseCache.hash("curl https://a.co/1"), ParseCache.hash("curl https://a.co/2"));
+        assertNotEquals(ParseCache.hash("abcd"), ParseCache.hash("abce"));
+    }
+}
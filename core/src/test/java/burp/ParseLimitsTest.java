@@ -0,0 +1,84 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Adversarial inputs that would take quadratic time or worse with a
+ * backtracking parser must finish quickly, and limits must fail fast.
+ */
+class ParseLimitsTest {
+
+    private static final int SIZE = 2_000_000;
+
+    private static final Duration BOUND = Duration.ofSeconds(5);
+
+    @Test
+    public void unterminatedQuotedBody() {
+        String cmd = "curl https://example.com --data-raw $'" + "a\\'".repeat(SIZE / 3);
+
+        CurlParser.CurlRequest request = assertTimeoutPreemptively(BOUND, () -> CurlParser.parseCurlCommand(cmd, null, ParseLimits.DEFAULT));
+        assertNotNull(request);
+        assertEquals("POST", request.getMethod());
+    }
+
+    @Test
+    public void manyUnterminatedQuotes() {
+        String cmd = "curl https://example.com" + " -H '\"".repeat(SIZE / 5);
+
+        assertTimeoutPreemptively(BOUND, () -> CurlParser.parseCurlCommand(cmd, null, ParseLimits.DEFAULT));
+    }
+
+    @Test
+    public void cookieOfSeparators() {
+        String cmd = "curl https://example.com -b '" + "; ".repeat(SIZE / 2) + "x'";
+
+        CurlParser.CurlRequest request = assertTimeoutPreemptively(BOUND, () -> CurlParser.parseCurlCommand(cmd, null, ParseLimits.DEFAULT));
+        assertTrue(request.getHeaders().get(0).value().endsWith("x"));
+    }
+
+    @Test
+    public void manyDataOptions() {
+        String cmd = "curl https://example.com" + " -d a=1".repeat(SIZE / 7);
+
+        CurlParser.CurlRequest request = assertTimeoutPreemptively(BOUND, () -> CurlParser.parseCurlCommand(cmd, null, ParseLimits.DEFAULT));
+        assertEquals(SIZE / 7 * 4 - 1, request.getBody().length());
+    }
+
+    @Test
+    public void splitManyQuotedSeparators() {
+        String input = "curl https://example.com -d '" + ";&\n".repeat(SIZE / 3) + "'";
+
+        assertEquals(1, assertTimeoutPreemptively(BOUND, () -> CurlLexer.splitCommands(input)).size());
+    }
+
+    @Test
+    public void inputLargerThanLimitFailsFast() {
+        ParseLimits limits = new ParseLimits(1024, 30_000);
+        String cmd = "curl https://example.com -d '" + "x".repeat(2048) + "'";
+
+        CurlParseException e = assertThrows(CurlParseException.class, () -> CurlParser.parseCurlCommand(cmd, null, limits));
+        assertTrue(e.getMessage().contains("limit is 1024"));
+    }
+
+    @Test
+    public void tokensLargerThanLimitFailFast() {
+        CurlParser parser = new CurlParser(new CurlParserConfig(Dialect.AUTO, new ParseLimits(1024, 30_000), null));
+        List<String> tokens = List.of("curl", "https://example.com", "-d", "x".repeat(2048));
+
+        CurlParseException e = assertThrows(CurlParseException.class, () -> parser.parse(tokens));
+        assertEquals(FailureReason.TOO_LARGE, e.getReason());
+    }
+
+    @Test
+    public void parseOverTimeBudgetFailsFast() {
+        ParseLimits limits = new ParseLimits(Integer.MAX_VALUE, 0);
+        String cmd = "curl https://example.com" + " -H 'a: b'".repeat(1000);
+
+        assertThrows(CurlParseException.class, () -> CurlParser.parseCurlCommand(cmd, null, limits));
+    }
+}
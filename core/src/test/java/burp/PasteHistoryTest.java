@@ -0,0 +1,148 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasteHistoryTest {
+
+    private final CurlParser parser = new CurlParser(CurlParserConfig.DEFAULT);
+
+    /**
+     * Counts reads, so tests can check what is loaded
+     */
+    private static class MemoryStore implements HistoryStore {
+        private final Map<String, byte[]> values = new HashMap<>();
+        private int reads;
+
+        @Override
+        public byte[] get(String key) {
+            reads++;
+            return values.get(key);
+        }
+
+        @Override
+        public void put(String key, byte[] value) {
+            values.put(key, value);
+        }
+
+        @Override
+        public void remove(String key) {
+            values.remove(key);
+        }
+    }
+
+    private int add(PasteHistory history, String command, long time) throws IOException {
+        return history.add(parser.parseOrThrow(command), time);
+    }
+
+    @Test
+    public void findsByHostMethodAndPath() throws IOException {
+        PasteHistory history = new PasteHistory(new MemoryStore());
+        add(history, "curl https://api.example.com/users/1", 1);
+        add(history, "curl https://API.example.com/users -d 'name=a'", 2);
+        add(history, "curl https://other.org/users/2 -X delete", 3);
+        add(history, "curl https://api.example.com/orders/9", 4);
+
+        assertArrayEquals(new int[]{3, 2, 1, 0}, history.find("", "", ""));
+        assertArrayEquals(new int[]{3, 1, 0}, history.find("example", "", ""));
+        assertArrayEquals(new int[]{1}, history.find("api.example.com", "post", ""));
+        assertArrayEquals(new int[]{2, 1, 0}, history.find("", "", "/users"));
+        assertArrayEquals(new int[]{2}, history.find("", "DELETE", ""));
+        assertArrayEquals(new int[0], history.find("", "PUT", ""));
+        assertArrayEquals(new int[0], history.find("nowhere", "", ""));
+
+        PasteHistory.Summary summary = history.summary(1);
+        assertEquals(2, summary.getTimestamp());
+        assertEquals("POST", summary.getMethod());
+        assertEquals("api.example.com", summary.getHost());
+        assertEquals("/users", summary.getPath());
+    }
+
+    @Test
+    public void reopensFromStoreReadingOnlyTheIndex() throws IOException {
+        MemoryStore store = new MemoryStore();
+        PasteHistory history = new PasteHistory(store);
+        int total = PasteHistory.SEGMENT_SIZE * 3 + 5;
+        for (int i = 0; i < total; i++) {
+            add(history, "curl https://h" + (i % 7) + ".example.com/item/" + i + " -H 'X-Row: " + i + "'", i);
+        }
+
+        store.reads = 0;
+        PasteHistory reopened = new PasteHistory(store);
+        //just the four index segments; the last one is partly full, so there is no need to look for a fifth
+        assertEquals(4, store.reads);
+        assertEquals(total, reopened.size());
+        assertEquals("/item/200", reopened.summary(200).getPath());
+        assertEquals("h" + (200 % 7) + ".example.com", reopened.summary(200).getHost());
+        assertEquals(total / 7 + 1, reopened.find("h3.", "", "").length);
+
+        CurlParser.CurlRequest loaded = reopened.load(200);
+        assertEquals("X-Row: 200", loaded.getHeaders().get(0).toString());
+
+        //adding to a reopened history carries on numbering
+        assertEquals(total, add(reopened, "curl https://new.example.com/", total));
+        assertEquals(total + 1, new PasteHistory(store).size());
+    }
+
+    @Test
+    public void skipsLargeBodies() throws IOException {
+        PasteHistory history = new PasteHistory(new MemoryStore());
+        CurlParser.CurlRequest large = new CurlParser.CurlRequest("POST", UrlSpan.parse("https://a.co/"), List.of(),
+                "x".repeat(PasteHistory.MAX_BODY_BYTES + 1));
+        assertEquals(-1, history.add(large, 0));
+        assertEquals(0, history.size());
+    }
+
+    @Test
+    public void corruptIndexEndsHistory() throws IOException {
+        MemoryStore store = new MemoryStore();
+        PasteHistory history = new PasteHistory(store);
+        for (int i = 0; i < PasteHistory.SEGMENT_SIZE + 3; i++) add(history, "curl https://a.co/" + i, i);
+
+        store.put("history.index.1", new byte[]{1, 5});
+        PasteHistory reopened = new PasteHistory(store);
+        assertEquals(PasteHistory.SEGMENT_SIZE, reopened.size());
+        assertTrue(reopened.isDamaged());
+
+        //entries past the unreadable segment are still stored, so nothing overwrites them
+        byte[] stored = store.values.get("history.entry." + PasteHistory.SEGMENT_SIZE);
+        assertThrows(IOException.class, () -> add(reopened, "curl https://b.co/", 0));
+        assertSame(stored, store.values.get("history.entry." + PasteHistory.SEGMENT_SIZE));
+        assertEquals(PasteHistory.SEGMENT_SIZE, new PasteHistory(store).size());
+
+        //clearing removes the unlisted entries too, and the history works again
+        reopened.clear();
+        assertTrue(store.values.isEmpty());
+        assertEquals(0, add(reopened, "curl https://b.co/", 0));
+    }
+
+    @Test
+    public void indexVersionIsIndependentOfEntryCodec() throws IOException {
+        MemoryStore store = new MemoryStore();
+        PasteHistory history = new PasteHistory(store);
+        add(history, "curl https://a.co/", 0);
+
+        assertEquals(PasteHistory.INDEX_VERSION, store.values.get("history.index.0")[0]);
+        //segments stamped with the entry codec version by earlier builds are still read
+        store.values.get("history.index.0")[0] = 2;
+        assertEquals(1, new PasteHistory(store).size());
+    }
+
+    @Test
+    public void clearRemovesEverything() throws IOException {
+        MemoryStore store = new MemoryStore();
+        PasteHistory history = new PasteHistory(store);
+        for (int i = 0; i < PasteHistory.SEGMENT_SIZE + 1; i++) add(history, "curl https://a.co/" + i, i);
+
+        history.clear();
+        assertTrue(store.values.isEmpty());
+        assertEquals(0, new PasteHistory(store).size());
+        assertThrows(IllegalArgumentException.class, () -> history.load(0));
+    }
+}
@@ -0,0 +1,58 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestBodyTest {
+
+    @Test
+    public void joinsPartsInMemory() throws IOException {
+        RequestBody body = RequestBody.join(List.of("a=1", "b=é"), 1024);
+
+        assertFalse(body.isSpilled());
+        assertEquals(8, body.length());
+        assertEquals("a=1&b=é", body.toString());
+    }
+
+    @Test
+    public void spillsAboveThreshold() throws IOException {
+        String part = "x😀é".repeat(50_000);
+        RequestBody body = RequestBody.join(List.of(part, part), 1024);
+
+        assertTrue(body.isSpilled());
+        byte[] expected = (part + "&" + part).getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected.length, body.length());
+
+        byte[] copy = new byte[expected.length + 2];
+        body.copyTo(copy, 2);
+        assertArrayEquals(expected, Arrays.copyOfRange(copy, 2, copy.length));
+        assertEquals(part + "&" + part, body.toString());
+    }
+
+    @Test
+    public void unpairedSurrogateCountsAsReplacement() throws IOException {
+        String text = "a\uD800b";
+        RequestBody body = RequestBody.join(List.of(text), 1024);
+
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), body.open().readAllBytes());
+    }
+
+    @Test
+    public void spilledBodyRendersTheSameRequest() throws IOException {
+        String command = "curl https://a.co/p -d 'a=" + "y".repeat(10_000) + "' -d b=2";
+        CurlParser inMemory = new CurlParser(CurlParserConfig.DEFAULT);
+        CurlParser spilling = new CurlParser(CurlParserConfig.DEFAULT.withBodySpillThreshold(100));
+
+        CurlParser.CurlRequest spilled = spilling.parse(command);
+
+        assertTrue(spilled.getRequestBody().isSpilled());
+        assertArrayEquals(inMemory.parse(command).toRawRequest(), spilled.toRawRequest());
+        assertEquals(RequestHasher.hash(inMemory.parse(command)), RequestHasher.hash(spilled));
+    }
+}
@@ -0,0 +1,77 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCodecTest {
+
+    private final CurlParser parser = new CurlParser(CurlParserConfig.DEFAULT);
+
+    private void assertRoundTrip(String command) throws IOException {
+        CurlParser.CurlRequest request = parser.parseOrThrow(command);
+        CurlParser.CurlRequest decoded = RequestCodec.decode(RequestCodec.encode(request));
+
+        assertEquals(request.getMethod(), decoded.getMethod());
+        assertEquals(request.getUrl().getSource(), decoded.getUrl().getSource());
+        assertEquals(request.getHeaders().toString(), decoded.getHeaders().toString());
+        assertEquals(request.getBody(), decoded.getBody());
+        assertEquals(request.getBodyFile(), decoded.getBodyFile());
+        assertEquals(request.isBodyFileText(), decoded.isBodyFileText());
+        assertEquals(request.getDataParts().toString(), decoded.getDataParts().toString());
+        assertEquals(String.valueOf(request.getMultipart() == null ? null : request.getMultipart().getParts()),
+                String.valueOf(decoded.getMultipart() == null ? null : decoded.getMultipart().getParts()));
+        if (!request.readsFiles()) assertArrayEquals(request.toRawRequest(), decoded.toRawRequest());
+    }
+
+    @Test
+    public void roundTrips() throws IOException {
+        assertRoundTrip("curl https://a.co/");
+        assertRoundTrip("curl 'https://user@[::1]:8443/p?q=1' -X PATCH -H 'X-A: é' -b 'a=1' --data-raw '{\"x\":\"ü\"}'");
+        assertRoundTrip("curl https://a.co/upload -F 'name=value' -F 'file=@/tmp/a b.png;type=image/png' --form-string 'raw=@x'");
+        assertRoundTrip("curl https://a.co/ --data-binary @/tmp/body.bin");
+        assertRoundTrip("curl https://a.co/ -d 'a=1' -d @/tmp/more.txt");
+        assertRoundTrip("curl https://a.co/ -d @/tmp/a.txt -d 'b=2' --data-binary @/tmp/c.bin -d 'd=4'");
+        assertRoundTrip("curl https://a.co/ --json @/tmp/a.json --json '}' --data-urlencode 'q@/tmp/q.txt'");
+    }
+
+    @Test
+    public void readsVersionOneBodyFile() throws IOException {
+        RequestCodec.Output out = new RequestCodec.Output(64);
+        out.writeVarint(1);
+        out.writeString("POST");
+        out.writeString("https://a.co/");
+        out.writeVarint(0);
+        out.writeVarint(3);
+        out.writeBytes(new ByteArrayInputStream(new byte[]{'a', '=', '1'}), 3);
+        out.writeString("/tmp/more.txt");
+        out.writeVarint(1);
+        out.writeVarint(0);
+
+        CurlParser.CurlRequest decoded = RequestCodec.decode(out.toByteArray());
+
+        assertEquals("[a=1, @/tmp/more.txt]", decoded.getDataParts().toString());
+        assertTrue(decoded.isBodyFileText());
+        assertTrue(decoded.getRequestBody().isEmpty());
+    }
+
+    @Test
+    public void isCompact() throws IOException {
+        CurlParser.CurlRequest request = parser.parseOrThrow("curl https://a.co/x -H 'Accept: */*'");
+        //one byte each for the version, lengths and counts
+        assertEquals(1 + (1 + 3) + (1 + 14) + 1 + (1 + 6) + (1 + 3) + 1 + 1 + 1, RequestCodec.encode(request).length);
+    }
+
+    @Test
+    public void rejectsTruncatedInput() throws IOException {
+        byte[] encoded = RequestCodec.encode(parser.parseOrThrow("curl https://a.co/ -H 'X-A: 1' -d body"));
+        for (int length = 0; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThrows(IllegalArgumentException.class, () -> RequestCodec.decode(truncated), "length " + length);
+        }
+    }
+}
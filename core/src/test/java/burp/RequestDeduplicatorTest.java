@@ -0,0 +1,60 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestDeduplicatorTest {
+
+    @Test
+    public void hashIgnoresHeaderOrderAndCase() {
+        long a = hash("curl -H 'Accept: */*' -H 'X-A: 1' HTTPS://Example.com:443/p?q=1");
+        long b = hash("curl -H 'x-a: 1' -H 'accept: */*' https://example.com/p?q=1");
+
+        assertEquals(a, b);
+    }
+
+    @Test
+    public void hashSeesEveryPart() {
+        long base = hash("curl -H 'X-A: 1' -d body https://a.co/p?q=1");
+
+        assertNotEquals(base, hash("curl -X PUT -H 'X-A: 1' -d body https://a.co/p?q=1"));
+        assertNotEquals(base, hash("curl -H 'X-A: 2' -d body https://a.co/p?q=1"));
+        assertNotEquals(base, hash("curl -H 'X-A: 1' -H 'X-A: 1' -d body https://a.co/p?q=1"));
+        assertNotEquals(base, hash("curl -H 'X-A: 1' -d other https://a.co/p?q=1"));
+        assertNotEquals(base, hash("curl -H 'X-A: 1' -d body https://a.co/p?q=2"));
+        assertNotEquals(base, hash("curl -H 'X-A: 1' -d body https://a.co:8443/p?q=1"));
+    }
+
+    @Test
+    public void countsDuplicates() {
+        RequestDeduplicator deduplicator = new RequestDeduplicator();
+        long a = hash("curl https://a.co/poll");
+        long b = hash("curl https://a.co/other");
+
+        assertTrue(deduplicator.add(a));
+        assertFalse(deduplicator.add(a));
+        assertTrue(deduplicator.add(b));
+        assertFalse(deduplicator.add(a));
+
+        assertEquals(3, deduplicator.getCount(a));
+        assertEquals(2, deduplicator.getUnique());
+        assertEquals(2, deduplicator.getDuplicates());
+    }
+
+    @Test
+    public void remembersBeyondRecentSet() {
+        RequestDeduplicator deduplicator = new RequestDeduplicator(10_000, 1e-6, 16);
+        for (long i = 0; i < 10_000; i++) {
+            assertTrue(deduplicator.add(RequestHasher.finalizer(i)), "unique " + i);
+        }
+        for (long i = 0; i < 10_000; i++) {
+            assertFalse(deduplicator.add(RequestHasher.finalizer(i)), "duplicate " + i);
+        }
+        assertEquals(10_000, deduplicator.getUnique());
+    }
+
+    private static long hash(String command) {
+        return RequestHasher.hash(CurlParser.parseCurlCommand(command));
+    }
+}
@@ -0,0 +1,93 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestImporterTest {
+
+    private final CurlParser parser = new CurlParser(CurlParserConfig.DEFAULT);
+
+    @Test
+    public void importsCurlCommands(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("commands.txt");
+        Files.writeString(file, "curl https://a.co/one \\\n  -H 'X-A: 1'\necho hi\ncurl https://a.co/two\n");
+
+        try (RequestImporter importer = RequestImporter.open(file, parser)) {
+            assertEquals(RequestImporter.Format.CURL, importer.getFormat());
+
+            RequestImporter.Entry first = importer.next();
+            assertEquals("/one", first.getRequest().getPath());
+            assertEquals(1, first.getRequest().getHeaders().size());
+
+            RequestImporter.Entry second = importer.next();
+            assertNull(second.getRequest());
+            assertEquals(1, second.getFailure().getIndex());
+
+            assertEquals("/two", importer.next().getRequest().getPath());
+            assertNull(importer.next());
+            assertEquals(Files.size(file), importer.getBytesRead());
+        }
+    }
+
+    @Test
+    public void parallelImportKeepsFileOrder(@TempDir Path dir) throws IOException {
+        StringBuilder commands = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            commands.append(i % 10 == 3 ? "echo " + i : "curl https://a.co/" + i + " -d 'n=" + i + "'").append('\n');
+        }
+        Path file = dir.resolve("commands.txt");
+        Files.writeString(file, commands);
+
+        try (RequestImporter importer = RequestImporter.open(file, parser, 4)) {
+            for (int i = 0; i < 500; i++) {
+                RequestImporter.Entry entry = importer.next();
+                assertEquals(i, entry.getIndex());
+                if (i % 10 == 3) {
+                    assertNotNull(entry.getFailure());
+                } else {
+                    assertEquals("/" + i, entry.getRequest().getPath());
+                }
+            }
+            assertNull(importer.next());
+        }
+    }
+
+    @Test
+    public void parallelImportReturnsCommandsBeforeOversizedOne(@TempDir Path dir) throws IOException {
+        CurlParser limited = new CurlParser(CurlParserConfig.DEFAULT.withLimits(new ParseLimits(100, 30_000)));
+        Path file = dir.resolve("commands.txt");
+        Files.writeString(file, "curl https://a.co/1\ncurl https://a.co/2\ncurl https://a.co/" + "x".repeat(200) + "\n");
+
+        try (RequestImporter importer = RequestImporter.open(file, limited, 4)) {
+            assertEquals("/1", importer.next().getRequest().getPath());
+            assertEquals("/2", importer.next().getRequest().getPath());
+            assertThrows(CurlParseException.class, importer::next);
+        }
+    }
+
+    @Test
+    public void detectsHar(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("export.har");
+        Files.write(file, ("\uFEFF\n {\"log\":{\"entries\":[{\"request\":{\"method\":\"GET\",\"url\":\"https://a.co/x\"}},"
+                + "{\"request\":{\"url\":\"\"}}]}}").getBytes(StandardCharsets.UTF_8));
+
+        try (RequestImporter importer = RequestImporter.open(file, parser)) {
+            assertEquals(RequestImporter.Format.HAR, importer.getFormat());
+
+            assertEquals("/x", importer.next().getRequest().getPath());
+
+            RequestImporter.Entry bad = importer.next();
+            assertEquals(1, bad.getIndex());
+            assertNotNull(bad.getFailure());
+
+            assertNull(importer.next());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTemplateTest {
+
+    private final CurlParser parser = new CurlParser(CurlParserConfig.DEFAULT);
+
+    private RequestTemplate compile(String command) throws IOException {
+        return RequestTemplate.compile(parser.parseOrThrow(command));
+    }
+
+    @Test
+    public void fillsPlaceholdersEverywhere() throws IOException {
+        RequestTemplate template = compile("curl https://{{host}}/users/{{id}}?q={{id}} -H 'X-Token: {{token}}' "
+                + "-b 'session={{token}}' -d '{\"name\":\"{{name}}\"}'");
+        assertEquals(List.of("host", "id", "token", "name"), template.getPlaceholders());
+
+        RequestTemplate.Rendered rendered = template.bind(List.of("name", "id", "token", "host"))
+                .render(new String[]{"Zoë", "42", "abc", "api.example.com"});
+
+        assertEquals("https://api.example.com/users/42?q=42", rendered.getBaseUrl());
+        String message = new String(rendered.getMessage(), StandardCharsets.UTF_8);
+        assertTrue(message.startsWith("POST /users/42?q=42 HTTP/1.1\r\nHost: api.example.com\r\n"), message);
+        assertTrue(message.contains("X-Token: abc\r\n"));
+        assertTrue(message.contains("Cookie: session=abc\r\n"));
+        assertTrue(message.endsWith("\r\n\r\n{\"name\":\"Zoë\"}"));
+        assertTrue(message.contains("Content-Length: 15\r\n"), message);
+    }
+
+    @Test
+    public void matchesParsingTheFilledInCommand() throws IOException {
+        RequestTemplate.Renderer renderer = compile("curl https://a.co/{{path}} -H 'Accept: {{type}}' --data-raw 'x={{x}}&y=2'")
+                .bind(List.of("path", "type", "x"));
+
+        for (String[] row : new String[][]{{"one", "text/html", "1"}, {"two/three", "*/*", "long value"}}) {
+            CurlParser.CurlRequest parsed = parser.parseOrThrow("curl https://a.co/" + row[0] + " -H 'Accept: " + row[1]
+                    + "' --data-raw 'x=" + row[2] + "&y=2'");
+            assertArrayEquals(parsed.toRawRequest(), renderer.render(row).getMessage());
+        }
+    }
+
+    @Test
+    public void emptyBodyHasNoContentLength() throws IOException {
+        RequestTemplate.Rendered rendered = compile("curl https://a.co/ -X POST -d '{{body}}'")
+                .bind(List.of("body"))
+                .render(new String[]{null});
+
+        assertEquals("POST / HTTP/1.1\r\nHost: a.co\r\n\r\n", new String(rendered.getMessage(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void leavesOtherBracesAlone() throws IOException {
+        RequestTemplate template = compile("curl https://a.co/ -d '{{}} {{not a name}} {\"a\":{\"b\":1}} {{x}'");
+        assertTrue(template.getPlaceholders().isEmpty());
+        assertEquals("{{}} {{not a name}} {\"a\":{\"b\":1}} {{x}",
+                new String(template.bind(List.of()).render(new String[0]).getMessage(), StandardCharsets.UTF_8).split("\r\n\r\n", 2)[1]);
+    }
+
+    @Test
+    public void missingColumnIsAnError() throws IOException {
+        RequestTemplate template = compile("curl https://a.co/{{id}}");
+        assertThrows(IllegalArgumentException.class, () -> template.bind(List.of("name")));
+    }
+}
@@ -0,0 +1,68 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShellLexerTest {
+
+    @Test
+    public void bashZshAnsiQuoting() {
+        List<String> tokens = CurlLexer.tokenize("curl -H $'X-A: tab\\there' -d $\"b\" a$b", Dialect.BASH);
+
+        assertEquals(List.of("curl", "-H", "X-A: tab\there", "-d", "b", "a$b"), tokens);
+    }
+
+    @Test
+    public void powerShellBacktickQuoting() {
+        String command = "curl.exe 'https://a.co/x' `\r\n  -H 'X-Name: it''s' `\n"
+                + "  -H \"X-Q: `\"q`\" and \"\"r\"\"\" -d \"a`tb\" C:\\tmp\\file";
+
+        List<String> tokens = CurlLexer.tokenize(command, Dialect.POWERSHELL);
+
+        assertEquals(List.of("curl.exe", "https://a.co/x", "-H", "X-Name: it's", "-H", "X-Q: \"q\" and \"r\"",
+                "-d", "a\tb", "C:\\tmp\\file"), tokens);
+    }
+
+    @Test
+    public void cmdCaretQuoting() {
+        //as written by "Copy as cURL (cmd)": every argument in ^"...^", specials escaped with ^
+        String command = "curl ^\"https://a.co/x?a=1^&b=2^\" ^\r\n"
+                + "  -H ^\"X-A: 100^%^\" ^\n"
+                + "  --data-raw ^\"^{^\\^\"k^\\^\":^\\^\"a^\\^\\b^\\^\"^}^\"";
+
+        List<String> tokens = CurlLexer.tokenize(command, Dialect.CMD);
+
+        assertEquals(List.of("curl", "https://a.co/x?a=1&b=2", "-H", "X-A: 100%", "--data-raw", "{\"k\":\"a\\\\b\"}"), tokens);
+    }
+
+    @Test
+    public void cmdCaretNewlineInsideQuotes() {
+        List<String> tokens = CurlLexer.tokenize("curl -d ^\"one^\n\ntwo^\" \"lit^eral\" a^&b^^c", Dialect.CMD);
+
+        assertEquals(List.of("curl", "-d", "one\ntwo", "lit^eral", "a&b^c"), tokens);
+    }
+
+    @Test
+    public void cmdBackslashesBeforeQuote() {
+        List<String> tokens = CurlLexer.tokenize("curl a\\\\b \"c\\\\\" \\\"d", Dialect.CMD);
+
+        assertEquals(List.of("curl", "a\\\\b", "c\\", "\"d"), tokens);
+    }
+
+    @Test
+    public void parserDetectsDialect() {
+        CurlParser parser = new CurlParser(CurlParserConfig.DEFAULT);
+
+        CurlParser.CurlRequest cmd = parser.parse("curl ^\"https://a.co/x^\" ^\n  -H ^\"X-A: 1^\" ^\n  --data-raw ^\"^{^\\^\"a^\\^\":1^}^\"");
+        assertEquals("/x", cmd.getPath());
+        assertEquals("X-A: 1", cmd.getHeaders().get(0).toString());
+        assertEquals("{\"a\":1}", cmd.getBody());
+
+        CurlParser.CurlRequest powerShell = parser.parse("curl.exe 'https://a.co/y' `\n  -H 'X-B: it''s'");
+        assertEquals("/y", powerShell.getPath());
+        assertEquals("X-B: it's", powerShell.getHeaders().get(0).toString());
+    }
+}
@@ -0,0 +1,67 @@
+package burp;
+
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.BurpExtension;
+import burp.api.montoya.MontoyaApi;
+
+import javax.swing.*;
+
+
+/**
+ * Paste cURL: A BurpSuite extension to allow pasting curl commands into a new tab in Repeater
+ *
+ * @author augustd
+ */
+public class BurpExtender implements BurpExtension {
+
+    public static final String EXTENSION_NAME = "Paste cURL";
+    private static BurpExtender instance;
+    private MontoyaApi api;
+
+    @Override
+    public void initialize(MontoyaApi api) {
+        this.api = api;
+
+        // set extension name
+        api.extension().setName(EXTENSION_NAME);
+
+        LogSink log = new MontoyaLogSink(api.logging());
+
+        //pasted requests are kept in the project file; only the index is read now
+        PasteHistory history = new PasteHistory(new MontoyaHistoryStore(api.persistence().extensionData()));
+        if (history.isDamaged()) {
+            Log.error(log, () -> "Paste history index is damaged after entry " + history.size()
+                    + "; new pastes will not be recorded until the history is cleared");
+        }
+        MenuItemsProvider menuItemsProvider = new MenuItemsProvider(api, log, history);
+        api.userInterface().registerContextMenuItemsProvider(menuItemsProvider);
+
+        //show requests as editable cURL commands in a tab of the request editor
+        api.userInterface().registerHttpRequestEditorProvider(new CurlEditorProvider(log, menuItemsProvider::parseCurlTokens));
+
+        //searchable paste history, and counters and latencies exportable as CSV
+        HistoryPanel historyPanel = new HistoryPanel(api, log, history, menuItemsProvider::toHttpRequest);
+        MetricsTab metricsTab = new MetricsTab(log, Metrics.global());
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("History", historyPanel.uiComponent());
+        tabs.addTab("Metrics", metricsTab.uiComponent());
+        api.userInterface().registerSuiteTab(EXTENSION_NAME, tabs);
+
+        api.extension().registerUnloadingHandler(() -> {
+            menuItemsProvider.shutdown();
+            historyPanel.shutdown();
+            metricsTab.shutdown();
+        });
+
+        instance = this;
+    }
+
+    public static BurpExtender getInstance() {
+        return instance;
+    }
+
+    public MontoyaApi getApi() {
+        return api;
+    }
+
+}
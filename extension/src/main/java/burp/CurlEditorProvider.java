@@ -0,0 +1,34 @@
+package burp;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.ui.editor.extension.EditorCreationContext;
+import burp.api.montoya.ui.editor.extension.EditorMode;
+import burp.api.montoya.ui.editor.extension.ExtensionProvidedHttpRequestEditor;
+import burp.api.montoya.ui.editor.extension.HttpRequestEditorProvider;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Adds a "cURL" tab to Burp's request editors
+ *
+ * @author August Detlefsen
+ */
+public class CurlEditorProvider implements HttpRequestEditorProvider {
+
+    private final LogSink log;
+    private final Function<List<String>, HttpRequest> parser;
+
+    /**
+     * @param parser converts the shell words of a cURL command into a request
+     */
+    public CurlEditorProvider(LogSink log, Function<List<String>, HttpRequest> parser) {
+        this.log = log;
+        this.parser = parser;
+    }
+
+    @Override
+    public ExtensionProvidedHttpRequestEditor provideHttpRequestEditor(EditorCreationContext creationContext) {
+        return new CurlRequestEditor(log, parser, creationContext.editorMode() != EditorMode.READ_ONLY);
+    }
+}
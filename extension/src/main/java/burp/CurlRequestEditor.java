@@ -0,0 +1,190 @@
+package burp;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.ui.Selection;
+import burp.api.montoya.ui.editor.extension.ExtensionProvidedHttpRequestEditor;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import java.awt.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Request editor tab that shows the request as a cURL command and turns
+ * edits to the command back into a request.
+ *
+ * Each keystroke is passed to an IncrementalLexer, which re-reads only the
+ * shell words around the change. The words are parsed into a request after a
+ * short pause in typing, to show whether the command is still valid, and
+ * again when Burp asks for the edited request.
+ *
+ * @author August Detlefsen
+ */
+public class CurlRequestEditor implements ExtensionProvidedHttpRequestEditor {
+
+    private static final int CHECK_DELAY_MILLIS = 300;
+
+    private final LogSink log;
+    private final Function<List<String>, HttpRequest> parser;
+
+    private final JPanel panel = new JPanel(new BorderLayout());
+    private final JTextArea text = new JTextArea();
+    private final JLabel status = new JLabel(" ");
+    private final Timer check = new Timer(CHECK_DELAY_MILLIS, e -> parseTokens());
+
+    private final IncrementalLexer lexer = new IncrementalLexer("");
+
+    private HttpRequest original;
+    private boolean modified;
+
+    /**
+     * Set while the text is replaced from a request, so that the change is not
+     * treated as an edit
+     */
+    private boolean loading;
+
+    public CurlRequestEditor(LogSink log, Function<List<String>, HttpRequest> parser, boolean editable) {
+        this.log = log;
+        this.parser = parser;
+
+        text.setEditable(editable);
+        text.setLineWrap(true);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, text.getFont().getSize()));
+        text.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                try {
+                    edited(e.getOffset(), 0, e.getDocument().getText(e.getOffset(), e.getLength()));
+                } catch (BadLocationException ble) {
+                    Log.error(log, ble);
+                }
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                edited(e.getOffset(), e.getLength(), "");
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                //attribute changes only
+            }
+        });
+        check.setRepeats(false);
+
+        status.setBorder(BorderFactory.createEmptyBorder(2, 4, 2, 4));
+        panel.add(new JScrollPane(text), BorderLayout.CENTER);
+        panel.add(status, BorderLayout.SOUTH);
+    }
+
+    private void edited(int offset, int removed, String inserted) {
+        if (loading) return;
+        lexer.replace(offset, removed, inserted);
+        modified = true;
+        check.restart();
+    }
+
+    @Override
+    public void setRequestResponse(HttpRequestResponse requestResponse) {
+        original = requestResponse.request();
+
+        String command;
+        try {
+            command = toCurl(original);
+        } catch (IOException | RuntimeException e) {
+            Log.error(log, e);
+            command = "";
+        }
+
+        loading = true;
+        try {
+            text.setText(command);
+            text.setCaretPosition(0);
+        } finally {
+            loading = false;
+        }
+        lexer.setText(command);
+        modified = false;
+        check.stop();
+        status.setText(" ");
+    }
+
+    /**
+     * Writes a request as a cURL command with every body inlined, NUL bytes
+     * included, since the command is the only thing that is edited and no
+     * body file should outlive it
+     */
+    private static String toCurl(HttpRequest request) throws IOException {
+        List<CurlHeader> headers = new ArrayList<>();
+        for (HttpHeader header : request.headers()) {
+            headers.add(new CurlHeader(header.name(), header.value()));
+        }
+        byte[] raw = request.toByteArray().getBytes();
+        int bodyOffset = Math.min(request.bodyOffset(), raw.length);
+
+        StringBuilder out = new StringBuilder(raw.length + 256);
+        new CurlWriter(Integer.MAX_VALUE, null).write(out, request.method(), request.url(), headers, raw, bodyOffset, raw.length - bodyOffset);
+        return out.toString();
+    }
+
+    /**
+     * Parses the current words, showing any error in the status line
+     *
+     * @return the request, or null if the command is not valid
+     */
+    private HttpRequest parseTokens() {
+        try {
+            HttpRequest request = parser.apply(lexer.getTokens());
+            status.setText(request != null ? " " : "Not a valid cURL command");
+            return request;
+        } catch (RuntimeException e) {
+            status.setText("Not a valid cURL command: " + e.getMessage());
+            Log.debug(log, () -> "Unable to parse edited cURL command: " + e);
+            return null;
+        }
+    }
+
+    @Override
+    public HttpRequest getRequest() {
+        if (!modified) return original;
+
+        check.stop();
+        HttpRequest request = parseTokens();
+        //keep the last good request rather than losing it to a half-typed edit
+        return request != null ? request : original;
+    }
+
+    @Override
+    public boolean isEnabledFor(HttpRequestResponse requestResponse) {
+        return requestResponse.request() != null;
+    }
+
+    @Override
+    public String caption() {
+        return "cURL";
+    }
+
+    @Override
+    public Component uiComponent() {
+        return panel;
+    }
+
+    @Override
+    public Selection selectedData() {
+        String selected = text.getSelectedText();
+        return selected != null ? Selection.selection(ByteArray.byteArray(selected)) : null;
+    }
+
+    @Override
+    public boolean isModified() {
+        return modified;
+    }
+}
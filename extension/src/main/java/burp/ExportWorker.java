@@ -0,0 +1,134 @@
+package burp;
+
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes selected Burp messages as cURL commands and copies them to the
+ * clipboard. The commands are built on a background thread; only the
+ * clipboard update runs on the Swing event dispatch thread.
+ *
+ * @author August Detlefsen
+ */
+public class ExportWorker extends SwingWorker<String, Void> {
+
+    private static final int CANCEL_POLL_MILLIS = 200;
+
+    /**
+     * Output buffers larger than this are not kept for the next export
+     */
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+    /**
+     * Command text reused across exports. Exports run one at a time on the
+     * paste executor, so each thread only ever needs one.
+     */
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private final LogSink log;
+    private final List<HttpRequestResponse> selected;
+    private final Path bodyDirectory;
+
+    private volatile int written;
+
+    private ProgressMonitor monitor;
+    private Timer cancelPoller;
+
+    /**
+     * @param bodyDirectory where bodies too large to inline are written
+     */
+    public ExportWorker(LogSink log, List<HttpRequestResponse> selected, Path bodyDirectory) {
+        this.log = log;
+        this.selected = selected;
+        this.bodyDirectory = bodyDirectory;
+    }
+
+    /**
+     * Shows the (initially hidden) progress monitor and runs the worker on the
+     * given executor. Must be called on the event dispatch thread.
+     */
+    public void start(Component parent, Executor executor) {
+        monitor = new ProgressMonitor(parent, "Copying as cURL", null, 0, 100);
+
+        addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) monitor.setProgress((Integer) event.getNewValue());
+        });
+
+        cancelPoller = new Timer(CANCEL_POLL_MILLIS, event -> {
+            if (monitor.isCanceled()) cancel(true);
+        });
+        cancelPoller.start();
+
+        executor.execute(this);
+    }
+
+    @Override
+    protected String doInBackground() throws IOException {
+        StringBuilder out = BUFFER.get();
+        //not pre-sized: sizing it would mean copying every message an extra time,
+        //and the buffer keeps its capacity for the next export
+        out.setLength(0);
+
+        try {
+            CurlWriter writer = new CurlWriter(CurlWriter.DEFAULT_INLINE_LIMIT, bodyDirectory);
+            List<CurlHeader> headers = new ArrayList<>();
+
+            for (HttpRequestResponse message : selected) {
+                if (isCancelled()) throw new CancellationException();
+
+                HttpRequest request = message.request();
+                if (request == null) continue;
+
+                headers.clear();
+                for (HttpHeader header : request.headers()) {
+                    headers.add(new CurlHeader(header.name(), header.value()));
+                }
+
+                //one copy of the message; the body is written straight from it
+                byte[] raw = request.toByteArray().getBytes();
+                int bodyOffset = Math.min(request.bodyOffset(), raw.length);
+
+                if (written > 0) out.append("\n\n");
+                writer.write(out, request.method(), request.url(), headers, raw, bodyOffset, raw.length - bodyOffset);
+                written++;
+                setProgress(written * 100 / selected.size());
+            }
+            out.append('\n');
+
+            return out.toString();
+        } finally {
+            out.setLength(0);
+            if (out.capacity() > MAX_RETAINED_BUFFER) BUFFER.remove();
+        }
+    }
+
+    @Override
+    protected void done() {
+        cancelPoller.stop();
+        monitor.close();
+
+        if (isCancelled()) {
+            Log.info(log, () -> "Copy as cURL cancelled");
+            return;
+        }
+
+        try {
+            Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(get()), null);
+            Log.info(log, () -> "Copied " + written + " requests as cURL commands");
+        } catch (InterruptedException | ExecutionException e) {
+            Log.error(log, e);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package burp;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates requests from a cURL command with <code>{{name}}</code>
+ * placeholders and a CSV or JSONL dataset, one request per row, and adds them
+ * to the site map, optionally sending each one first.
+ *
+ * The command is compiled once into a RequestTemplate. The dataset is
+ * streamed, and each row is rendered and built only when there is room for
+ * it: straight away when adding to the site map, or when the BulkSender has a
+ * free slot when sending. Memory use stays flat however many rows there are.
+ *
+ * @author August Detlefsen
+ */
+public class GenerateWorker extends SwingWorker<String, Void> {
+
+    private static final int CANCEL_POLL_MILLIS = 200;
+
+    private final MontoyaApi api;
+    private final LogSink log;
+    private final String command;
+    private final CurlParser parser;
+    private final Path dataset;
+    private final SendConfig sendConfig;
+
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger sendFailed = new AtomicInteger();
+
+    private ProgressMonitor monitor;
+    private Timer cancelPoller;
+
+    /**
+     * @param sendConfig limits for sending each request; null to add the requests to the site map without sending them
+     */
+    public GenerateWorker(MontoyaApi api, LogSink log, String command, CurlParser parser, Path dataset, SendConfig sendConfig) {
+        this.api = api;
+        this.log = log;
+        this.command = command;
+        this.parser = parser;
+        this.dataset = dataset;
+        this.sendConfig = sendConfig;
+    }
+
+    /**
+     * Shows the progress monitor and runs the worker on the given executor.
+     * Must be called on the event dispatch thread.
+     */
+    public void start(Component parent, Executor executor) {
+        monitor = new ProgressMonitor(parent, "Generating requests from " + dataset.getFileName(), null, 0, 100);
+
+        addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) monitor.setProgress((Integer) event.getNewValue());
+        });
+
+        cancelPoller = new Timer(CANCEL_POLL_MILLIS, event -> {
+            if (monitor.isCanceled()) cancel(true);
+        });
+        cancelPoller.start();
+
+        executor.execute(this);
+    }
+
+    @Override
+    protected String doInBackground() throws IOException {
+        RequestTemplate template = RequestTemplate.compile(parser.parseOrThrow(command));
+        if (template.getPlaceholders().isEmpty()) {
+            throw new IllegalArgumentException("The cURL command has no {{placeholders}} to fill in");
+        }
+
+        int maxFieldLength = parser.getConfig().getLimits().getMaxInputLength();
+        try (DatasetReader reader = DatasetReader.open(dataset, maxFieldLength)) {
+            Log.info(log, () -> "Generating requests from " + dataset + " as " + reader.getFormat() + ", columns " + reader.getColumns());
+            Requests requests = new Requests(reader, template.bind(reader.getColumns()), Math.max(1, Files.size(dataset)));
+
+            if (sendConfig == null) {
+                while (requests.hasNext()) {
+                    api.siteMap().add(HttpRequestResponse.httpRequestResponse(requests.next(), null));
+                }
+            } else {
+                new BulkSender(sendConfig).sendAll(requests, GenerateWorker::hostKey, api.http()::sendRequest,
+                        (index, request, response, error, nanos) -> {
+                            Metrics.global().recordNanos(Metrics.Operation.SEND, nanos);
+                            if (error != null) {
+                                sendFailed.incrementAndGet();
+                                Metrics.global().failed(FailureReason.SEND);
+                                Log.error(log, () -> "Request " + (index + 1) + " to " + request.url() + ": " + error);
+                            } else {
+                                sent.incrementAndGet();
+                                api.siteMap().add(response);
+                            }
+                        });
+            }
+            if (isCancelled()) throw new CancellationException();
+
+            return "Generated " + requests.built + " requests from " + requests.rows + " rows of " + dataset.getFileName()
+                    + (requests.failed > 0 ? ", " + requests.failed + " failed" : "")
+                    + (sendConfig != null ? ", sent " + sent.get() + (sendFailed.get() > 0 ? ", " + sendFailed.get() + " could not be sent" : "") : "")
+                    + ". The requests are in the site map.";
+        }
+    }
+
+    /**
+     * Reads, renders and builds one request per row, on the thread that
+     * iterates. A row that cannot be rendered or built is logged and skipped.
+     */
+    private class Requests implements Iterator<HttpRequest> {
+        private final DatasetReader reader;
+        private final RequestTemplate.Renderer renderer;
+        private final long size;
+
+        private HttpRequest next;
+        private int rows;
+        private int built;
+        private int failed;
+
+        //rows usually share a base URL, so the service is only rebuilt when it changes
+        private String lastBaseUrl;
+        private HttpService lastService;
+
+        Requests(DatasetReader reader, RequestTemplate.Renderer renderer, long size) {
+            this.reader = reader;
+            this.renderer = renderer;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !isCancelled()) {
+                String[] row;
+                try {
+                    row = reader.next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (row == null) return false;
+
+                rows++;
+                setProgress((int) Math.min(100, reader.getBytesRead() * 100 / size));
+                next = build(row);
+            }
+            return next != null;
+        }
+
+        @Override
+        public HttpRequest next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            HttpRequest request = next;
+            next = null;
+            return request;
+        }
+
+        private HttpRequest build(String[] row) {
+            long start = System.nanoTime();
+            try {
+                RequestTemplate.Rendered rendered = renderer.render(row);
+                if (!rendered.getBaseUrl().equals(lastBaseUrl)) {
+                    lastService = HttpService.httpService(rendered.getBaseUrl());
+                    lastBaseUrl = rendered.getBaseUrl();
+                }
+                HttpRequest request = HttpRequest.httpRequest(lastService, ByteArray.byteArray(rendered.getMessage()));
+                Metrics.global().record(Metrics.Operation.BUILD, start);
+                built++;
+                return request;
+            } catch (RuntimeException re) {
+                failed++;
+                Metrics.global().failed(re instanceof CurlParseException ? ((CurlParseException) re).getReason() : FailureReason.BUILD);
+                int current = rows;
+                Log.error(log, () -> "Row " + current + ": " + re);
+                return null;
+            }
+        }
+    }
+
+    @Override
+    protected void done() {
+        cancelPoller.stop();
+        monitor.close();
+
+        if (isCancelled()) {
+            Log.info(log, () -> "Request generation cancelled");
+            return;
+        }
+
+        String summary;
+        try {
+            summary = get();
+        } catch (InterruptedException | ExecutionException e) {
+            Log.error(log, e);
+            JOptionPane.showMessageDialog(api.userInterface().swingUtils().suiteFrame(), "Unable to generate requests: " + e.getCause().getMessage(),
+                    BurpExtender.EXTENSION_NAME, JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        Log.info(log, () -> summary);
+        JOptionPane.showMessageDialog(api.userInterface().swingUtils().suiteFrame(), summary, BurpExtender.EXTENSION_NAME,
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private static String hostKey(HttpRequest request) {
+        HttpService service = request.httpService();
+        return service.host() + ":" + service.port();
+    }
+}
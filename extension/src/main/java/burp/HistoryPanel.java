@@ -0,0 +1,177 @@
+package burp;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.ui.editor.EditorOptions;
+import burp.api.montoya.ui.editor.HttpRequestEditor;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.Function;
+
+/**
+ * Suite tab listing every pasted request, searchable by host, method and
+ * path. Selecting a row shows the request; double-clicking or "Send to
+ * Repeater" opens it in Repeater. The list is refreshed every second while
+ * the tab is visible, if anything has been pasted since.
+ *
+ * @author August Detlefsen
+ */
+public class HistoryPanel {
+
+    private static final int REFRESH_MILLIS = 1000;
+
+    private final MontoyaApi api;
+    private final LogSink log;
+    private final PasteHistory history;
+    private final Function<CurlParser.CurlRequest, HttpRequest> builder;
+
+    private final JPanel panel = new JPanel(new BorderLayout());
+    private final JTextField host = new JTextField(20);
+    private final JTextField method = new JTextField(6);
+    private final JTextField path = new JTextField(20);
+    private final JLabel count = new JLabel();
+    private final HistoryTableModel model;
+    private final JTable table;
+    private final HttpRequestEditor editor;
+    private final Timer refresher = new Timer(REFRESH_MILLIS, e -> refreshIfChanged());
+
+    private int shownSize = -1;
+
+    /**
+     * @param builder converts a stored request into a Burp request
+     */
+    public HistoryPanel(MontoyaApi api, LogSink log, PasteHistory history, Function<CurlParser.CurlRequest, HttpRequest> builder) {
+        this.api = api;
+        this.log = log;
+        this.history = history;
+        this.builder = builder;
+        this.model = new HistoryTableModel(history);
+        this.table = new JTable(model);
+        this.editor = api.userInterface().createHttpRequestEditor(EditorOptions.READ_ONLY);
+
+        DocumentListener search = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                refresh();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                refresh();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                refresh();
+            }
+        };
+        host.getDocument().addDocumentListener(search);
+        method.getDocument().addDocumentListener(search);
+        path.getDocument().addDocumentListener(search);
+
+        JButton repeater = new JButton("Send to Repeater");
+        repeater.addActionListener(e -> sendToRepeater());
+        JButton clear = new JButton("Clear history");
+        clear.addActionListener(e -> clearHistory());
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filters.add(new JLabel("Host"));
+        filters.add(host);
+        filters.add(new JLabel("Method"));
+        filters.add(method);
+        filters.add(new JLabel("Path"));
+        filters.add(path);
+        filters.add(repeater);
+        filters.add(clear);
+        filters.add(count);
+
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) showSelected();
+        });
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) sendToRepeater();
+            }
+        });
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(table), editor.uiComponent());
+        split.setResizeWeight(0.5);
+
+        panel.add(filters, BorderLayout.NORTH);
+        panel.add(split, BorderLayout.CENTER);
+
+        //only refresh while the tab is on screen
+        panel.addHierarchyListener(e -> {
+            if (panel.isShowing()) {
+                refreshIfChanged();
+                refresher.start();
+            } else {
+                refresher.stop();
+            }
+        });
+    }
+
+    public Component uiComponent() {
+        return panel;
+    }
+
+    /**
+     * Stops refreshing. Called when the extension is unloaded.
+     */
+    public void shutdown() {
+        refresher.stop();
+    }
+
+    private void refreshIfChanged() {
+        if (history.size() != shownSize) refresh();
+    }
+
+    private void refresh() {
+        shownSize = history.size();
+        int[] entries = history.find(host.getText().trim(), method.getText().trim(), path.getText().trim());
+        model.setEntries(entries);
+        count.setText(entries.length + " of " + shownSize + " requests");
+    }
+
+    /**
+     * The selected request, or null
+     */
+    private HttpRequest selectedRequest() {
+        int row = table.getSelectedRow();
+        if (row < 0) return null;
+
+        int entry = model.getEntry(table.convertRowIndexToModel(row));
+        try {
+            return builder.apply(history.load(entry));
+        } catch (RuntimeException re) {
+            Log.error(log, () -> "Unable to load history entry " + (entry + 1) + ": " + re);
+            return null;
+        }
+    }
+
+    private void showSelected() {
+        HttpRequest request = selectedRequest();
+        if (request != null) editor.setRequest(request);
+    }
+
+    private void sendToRepeater() {
+        HttpRequest request = selectedRequest();
+        if (request != null) api.repeater().sendToRepeater(request);
+    }
+
+    private void clearHistory() {
+        int choice = JOptionPane.showConfirmDialog(panel, "Delete all " + history.size() + " requests from the paste history?",
+                BurpExtender.EXTENSION_NAME, JOptionPane.OK_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) return;
+
+        history.clear();
+        refresh();
+    }
+}
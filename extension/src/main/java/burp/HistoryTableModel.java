@@ -0,0 +1,69 @@
+package burp;
+
+import javax.swing.table.AbstractTableModel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Rows of the paste history table: the entries matching the current search,
+ * newest first. Holds only the entry numbers; each visible cell is read from
+ * the history's in-memory index as the table paints it, so a search over
+ * thousands of entries shows at once. Only used on the event dispatch thread.
+ *
+ * @author August Detlefsen
+ */
+public class HistoryTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {"#", "Time", "Method", "Host", "Path"};
+
+    private final PasteHistory history;
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+    private int[] entries = new int[0];
+
+    public HistoryTableModel(PasteHistory history) {
+        this.history = history;
+    }
+
+    public void setEntries(int[] entries) {
+        this.entries = entries;
+        fireTableDataChanged();
+    }
+
+    public int getEntry(int row) {
+        return entries[row];
+    }
+
+    @Override
+    public int getRowCount() {
+        return entries.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int column) {
+        PasteHistory.Summary summary = history.summary(entries[rowIndex]);
+        switch (column) {
+            case 0: return summary.getEntry() + 1;
+            case 1: return timeFormat.format(new Date(summary.getTimestamp()));
+            case 2: return summary.getMethod();
+            case 3: return summary.getHost();
+            case 4: return summary.getPath();
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package burp;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Imports a file of cURL commands or a HAR archive into Repeater.
+ *
+ * The file is streamed: the worker reads and parses one request at a time and
+ * puts it on a small bounded queue, and a second thread takes requests off the
+ * queue and hands them to Burp. When Burp falls behind the queue fills up and
+ * reading pauses, so memory use stays flat however large the file is.
+ *
+ * @author August Detlefsen
+ */
+public class ImportWorker extends SwingWorker<String, Void> {
+
+    private static final int CANCEL_POLL_MILLIS = 200;
+
+    /**
+     * Requests parsed but not yet handed to Burp
+     */
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final MontoyaApi api;
+    private final LogSink log;
+    private final Path file;
+    private final CurlParser parser;
+    private final Function<CurlParser.CurlRequest, HttpRequest> builder;
+    private final RequestDeduplicator deduplicator;
+
+    private final BlockingQueue<HttpRequest> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private volatile boolean readerDone;
+    private final AtomicInteger sendFailures = new AtomicInteger();
+
+    private ProgressMonitor monitor;
+    private Timer cancelPoller;
+
+    /**
+     * @param builder      converts a parsed request into a Burp request; called on the background thread
+     * @param deduplicator skips requests already imported; null to import them all
+     */
+    public ImportWorker(MontoyaApi api, LogSink log, Path file, CurlParser parser, Function<CurlParser.CurlRequest, HttpRequest> builder,
+                        RequestDeduplicator deduplicator) {
+        this.api = api;
+        this.log = log;
+        this.file = file;
+        this.parser = parser;
+        this.builder = builder;
+        this.deduplicator = deduplicator;
+    }
+
+    /**
+     * Shows the progress monitor and runs the worker on the given executor.
+     * Must be called on the event dispatch thread.
+     */
+    public void start(Component parent, Executor executor) {
+        monitor = new ProgressMonitor(parent, "Importing " + file.getFileName(), null, 0, 100);
+
+        addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) monitor.setProgress((Integer) event.getNewValue());
+        });
+
+        cancelPoller = new Timer(CANCEL_POLL_MILLIS, event -> {
+            if (monitor.isCanceled()) cancel(true);
+        });
+        cancelPoller.start();
+
+        executor.execute(this);
+    }
+
+    @Override
+    protected String doInBackground() throws IOException, InterruptedException {
+        long size = Math.max(1, Files.size(file));
+        Thread sender = new Thread(this::sendQueued, "Paste cURL import");
+        sender.setDaemon(true);
+        sender.start();
+
+        int total = 0;
+        int failed = 0;
+        int duplicates = 0;
+        try (RequestImporter importer = RequestImporter.open(file, parser, BulkParser.defaultThreads())) {
+            Log.info(log, () -> "Importing " + file + " as " + importer.getFormat());
+
+            RequestImporter.Entry entry;
+            while ((entry = importer.next()) != null) {
+                if (isCancelled()) throw new CancellationException();
+                total++;
+                setProgress((int) Math.min(100, importer.getBytesRead() * 100 / size));
+
+                HttpRequest request = null;
+                BulkParser.Failure failure = entry.getFailure();
+                if (failure == null && deduplicator != null && !deduplicator.add(RequestHasher.hash(entry.getRequest()))) {
+                    duplicates++;
+                    continue;
+                }
+                if (failure == null) {
+                    try {
+                        request = builder.apply(entry.getRequest());
+                    } catch (RuntimeException re) {
+                        failure = new BulkParser.Failure(entry.getIndex(), entry.getRequest().getUrl().getSource(), String.valueOf(re));
+                    }
+                }
+
+                if (request != null) {
+                    queue.put(request);
+                } else {
+                    failed++;
+                    Log.error(log, failure::toString);
+                }
+            }
+        } finally {
+            readerDone = true;
+            if (Thread.currentThread().isInterrupted() || isCancelled()) sender.interrupt();
+            sender.join();
+        }
+        failed += sendFailures.get();
+
+        return "Imported " + (total - failed - duplicates) + " of " + total + " requests from " + file.getFileName() + ", " + failed + " failed"
+                + (duplicates > 0 ? ", " + duplicates + " duplicates skipped" : "");
+    }
+
+    /**
+     * Hands queued requests to Repeater until the reader is done and the queue
+     * is empty. Runs on its own thread; a request Burp rejects is counted as
+     * failed and the rest are still sent, so the reader never blocks on a
+     * queue nobody drains.
+     */
+    private void sendQueued() {
+        try {
+            while (!readerDone || !queue.isEmpty()) {
+                HttpRequest request = queue.poll(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (request == null) continue;
+                try {
+                    api.repeater().sendToRepeater(request);
+                } catch (RuntimeException e) {
+                    sendFailures.incrementAndGet();
+                    Metrics.global().failed(FailureReason.SEND);
+                    Log.error(log, () -> "Unable to send " + request.url() + " to Repeater: " + e);
+                }
+            }
+        } catch (InterruptedException e) {
+            queue.clear();
+        }
+    }
+
+    @Override
+    protected void done() {
+        cancelPoller.stop();
+        monitor.close();
+
+        if (isCancelled()) {
+            Log.info(log, () -> "Import cancelled");
+            return;
+        }
+
+        String summary;
+        try {
+            summary = get();
+        } catch (InterruptedException | ExecutionException e) {
+            Log.error(log, e);
+            JOptionPane.showMessageDialog(api.userInterface().swingUtils().suiteFrame(), "Import failed: " + e.getCause(),
+                    BurpExtender.EXTENSION_NAME, JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        Log.info(log, () -> summary);
+        Log.debug(log, Metrics.global()::summary);
+        JOptionPane.showMessageDialog(api.userInterface().swingUtils().suiteFrame(), summary, BurpExtender.EXTENSION_NAME,
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+}
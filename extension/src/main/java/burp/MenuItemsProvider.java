@@ -0,0 +1,345 @@
+package burp;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.ui.contextmenu.ContextMenuEvent;
+import burp.api.montoya.ui.contextmenu.ContextMenuItemsProvider;
+
+import static burp.api.montoya.internal.ObjectFactoryLocator.FACTORY;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.awt.event.ActionEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ToLongFunction;
+public class MenuItemsProvider implements ContextMenuItemsProvider {
+
+    private MontoyaApi api;
+    private LogSink log;
+    private CurlParser parser = new CurlParser(CurlParserConfig.DEFAULT);
+    private SendConfig sendConfig = SendConfig.DEFAULT;
+
+    /**
+     * Requests built from recently pasted commands, so pasting the same command again is instant
+     */
+    private final ParseCache<HttpRequest> cache = new ParseCache<>(ParseCache.DEFAULT_MAX_BYTES);
+
+    private PasteHistory history;
+
+    /**
+     * Whether bulk pastes, sends and imports drop repeats of the same request
+     */
+    private boolean skipDuplicates;
+
+    /**
+     * Runs paste work off the Swing event dispatch thread, one paste at a time
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Paste cURL worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MenuItemsProvider() {
+        //noop
+    }
+
+    public MenuItemsProvider(MontoyaApi api) {
+        this(api, new MontoyaLogSink(api.logging()));
+    }
+
+    public MenuItemsProvider(MontoyaApi api, LogSink log) {
+        this(api, log, null);
+    }
+
+    /**
+     * @param history records every pasted request; null to keep no history
+     */
+    public MenuItemsProvider(MontoyaApi api, LogSink log, PasteHistory history) {
+        this.api = api;
+        this.log = log;
+        this.history = history;
+        this.parser = new CurlParser(CurlParserConfig.DEFAULT.withLog(log));
+    }
+
+    @Override
+    public List<Component> provideMenuItems(ContextMenuEvent event) {
+        List<Component> menuItemList = new ArrayList<>();
+
+        JMenuItem pasteItem = new JMenuItem("Paste cURL command");
+        pasteItem.addActionListener((ActionEvent e) -> {
+            //read, parse and build in the background, then open the HTTP request in repeater
+            new PasteWorker(api, log, this::getClipboardContent, this::parseCurlRequest, false, null)
+                    .start(api.userInterface().swingUtils().suiteFrame(), executor);
+        });
+
+        JMenuItem pasteAllItem = new JMenuItem("Paste all cURL commands");
+        pasteAllItem.addActionListener((ActionEvent e) -> {
+            //parse all commands in parallel, then open each HTTP request in repeater
+            new PasteWorker(api, log, this::getClipboardContent, this::parseCurlRequest, true, duplicateHasher())
+                    .start(api.userInterface().swingUtils().suiteFrame(), executor);
+        });
+
+        JMenuItem sendItem = new JMenuItem("Paste and send cURL commands...");
+        sendItem.addActionListener((ActionEvent e) -> {
+            SendConfig config = askSendConfig();
+            if (config == null) return;
+
+            //send every request with Burp's HTTP client and show the responses in a table
+            new SendWorker(api, log, this::getClipboardContent, this::parseCurlRequest, config, duplicateHasher())
+                    .start(api.userInterface().swingUtils().suiteFrame(), executor);
+        });
+
+        JMenuItem importItem = new JMenuItem("Import cURL/HAR file...");
+        importItem.addActionListener((ActionEvent e) -> {
+            Component frame = api.userInterface().swingUtils().suiteFrame();
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+
+            //stream the file in the background, handing each request to repeater as it is parsed
+            CurlParser bulkParser = new CurlParser(parser.getConfig().withLimits(ParseLimits.BULK));
+            new ImportWorker(api, log, chooser.getSelectedFile().toPath(), bulkParser, this::toHttpRequest,
+                    skipDuplicates ? new RequestDeduplicator() : null)
+                    .start(frame, executor);
+        });
+
+        JMenuItem generateItem = new JMenuItem("Generate requests from cURL template...");
+        generateItem.addActionListener((ActionEvent e) -> generateFromTemplate());
+
+        menuItemList.add(pasteItem);
+        menuItemList.add(pasteAllItem);
+        menuItemList.add(sendItem);
+        menuItemList.add(importItem);
+        menuItemList.add(generateItem);
+
+        JCheckBoxMenuItem skipDuplicatesItem = new JCheckBoxMenuItem("Skip duplicate requests", skipDuplicates);
+        skipDuplicatesItem.addActionListener((ActionEvent e) -> skipDuplicates = skipDuplicatesItem.isSelected());
+        menuItemList.add(skipDuplicatesItem);
+
+        List<HttpRequestResponse> selected = selectedMessages(event);
+        if (!selected.isEmpty()) {
+            JMenuItem copyItem = new JMenuItem(selected.size() == 1 ? "Copy as cURL" : "Copy selected as cURL (" + selected.size() + ")");
+            copyItem.addActionListener((ActionEvent e) -> {
+                //large bodies are written next to each other under the temp directory
+                Path bodies = Path.of(System.getProperty("java.io.tmpdir"), "paste-curl", "export-" + System.currentTimeMillis());
+                new ExportWorker(log, selected, bodies).start(api.userInterface().swingUtils().suiteFrame(), executor);
+            });
+            menuItemList.add(copyItem);
+        }
+        return menuItemList;
+    }
+
+    private ToLongFunction<HttpRequest> duplicateHasher() {
+        return skipDuplicates ? MenuItemsProvider::hash : null;
+    }
+
+    /**
+     * Content hash of a built request, for skipping duplicates
+     */
+    static long hash(HttpRequest request) {
+        RequestHasher hasher = new RequestHasher()
+                .method(request.method())
+                .url(request.url());
+        for (HttpHeader header : request.headers()) {
+            hasher.header(header.name(), header.value());
+        }
+        byte[] body = request.body().getBytes();
+        return hasher.body(body, 0, body.length).finish();
+    }
+
+    private static List<HttpRequestResponse> selectedMessages(ContextMenuEvent event) {
+        if (!event.selectedRequestResponses().isEmpty()) return event.selectedRequestResponses();
+
+        return event.messageEditorRequestResponse()
+                .map(editor -> List.of(editor.requestResponse()))
+                .orElse(List.of());
+    }
+
+    HttpRequest parseCurlRequest(String curlCommand) {
+        HttpRequest cached = cache.get(curlCommand);
+        if (cached != null) {
+            Log.debug(log, cache::summary);
+            return cached;
+        }
+
+        //a command with no usable URL fails with its reason rather than returning null
+        CurlParser.CurlRequest curlRequest = parser.parseOrThrow(curlCommand);
+        HttpRequest request = toHttpRequest(curlRequest);
+        record(curlRequest);
+
+        //requests that read files are rebuilt every time, in case the files change
+        if (!curlRequest.readsFiles()) cache.put(curlCommand, request, curlCommand.length());
+        return request;
+    }
+
+    /**
+     * Parses and builds a request without going through the cache or the
+     * history, so benchmarks measure the work a first paste does
+     */
+    HttpRequest parseCurlRequestUncached(String curlCommand) {
+        return toHttpRequest(parser.parseOrThrow(curlCommand));
+    }
+
+    /**
+     * Adds a pasted request to the history. A command pasted again while its
+     * request is cached is not recorded twice.
+     */
+    private void record(CurlParser.CurlRequest curlRequest) {
+        if (history == null) return;
+
+        try {
+            history.add(curlRequest, System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            //a paste still works if it cannot be recorded
+            Log.error(log, () -> "Unable to record paste history: " + e);
+        }
+    }
+
+    /**
+     * Builds a request from a command already split into shell words, as the
+     * cURL editor tab does
+     */
+    HttpRequest parseCurlTokens(List<String> tokens) {
+        return toHttpRequest(parser.parseOrThrow(tokens));
+    }
+
+    HttpRequest toHttpRequest(CurlParser.CurlRequest curlRequest) {
+        long buildStart = System.nanoTime();
+
+        HttpService service = HttpService.httpService(curlRequest.getBaseUrl());
+
+        //render the whole message once rather than copying it for every header; a spilled body is streamed in
+        try {
+            ByteArraySink sink = new ByteArraySink();
+            curlRequest.writeRawRequest(sink);
+            HttpRequest request = HttpRequest.httpRequest(service, sink.bytes);
+            Metrics.global().record(Metrics.Operation.BUILD, buildStart);
+            return request;
+        } catch (IOException e) {
+            Metrics.global().failed(FailureReason.BODY_FILE);
+            throw new UncheckedIOException("Unable to read body file: " + e.getMessage(), e);
+        } catch (RuntimeException re) {
+            Metrics.global().failed(FailureReason.BUILD);
+            throw re;
+        }
+    }
+
+    /**
+     * Uses the cURL command on the clipboard as a template with {{name}}
+     * placeholders, and generates one request per row of a chosen dataset
+     */
+    private void generateFromTemplate() {
+        Component frame = api.userInterface().swingUtils().suiteFrame();
+        String command = getClipboardContent();
+        if (!CurlParser.isCurlCommand(command)) {
+            JOptionPane.showMessageDialog(frame, "Copy a cURL command with {{name}} placeholders to the clipboard first",
+                    BurpExtender.EXTENSION_NAME, JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Choose a CSV or JSONL dataset");
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+
+        String[] options = {"Send", "Add to site map", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(frame, "Send each generated request, or only add them to the site map?",
+                BurpExtender.EXTENSION_NAME, JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        if (choice != 0 && choice != 1) return;
+
+        SendConfig config = null;
+        if (choice == 0) {
+            config = askSendConfig();
+            if (config == null) return;
+        }
+
+        //compile the template once, then stream the dataset in the background
+        new GenerateWorker(api, log, command, parser, chooser.getSelectedFile().toPath(), config).start(frame, executor);
+    }
+
+    /**
+     * Asks for the concurrency and rate limits for a bulk send. Returns null if
+     * the user cancels.
+     */
+    private SendConfig askSendConfig() {
+        SpinnerNumberModel threads = new SpinnerNumberModel(sendConfig.getMaxConcurrency(), 1, 256, 1);
+        SpinnerNumberModel perHost = new SpinnerNumberModel(sendConfig.getMaxPerHost(), 1, 256, 1);
+        SpinnerNumberModel rate = new SpinnerNumberModel(sendConfig.getRequestsPerSecond(), 0, 10_000, 1);
+
+        JPanel panel = new JPanel(new GridLayout(0, 2, 8, 4));
+        panel.add(new JLabel("Concurrent requests"));
+        panel.add(new JSpinner(threads));
+        panel.add(new JLabel("Concurrent requests per host"));
+        panel.add(new JSpinner(perHost));
+        panel.add(new JLabel("Requests per second (0 = no limit)"));
+        panel.add(new JSpinner(rate));
+
+        int choice = JOptionPane.showConfirmDialog(api.userInterface().swingUtils().suiteFrame(), panel,
+                "Paste and send cURL commands", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) return null;
+
+        sendConfig = new SendConfig(threads.getNumber().intValue(), perHost.getNumber().intValue(), rate.getNumber().doubleValue());
+        return sendConfig;
+    }
+
+    /**
+     * Stops any paste in progress. Called when the extension is unloaded.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        cache.clear();
+    }
+
+    public String getClipboardContent() {
+        Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
+        Transferable transferable = clipboard.getContents(null);
+        if (transferable != null && transferable.isDataFlavorSupported(DataFlavor.stringFlavor)) {
+            try {
+                return (String) transferable.getTransferData(DataFlavor.stringFlavor);
+            } catch (UnsupportedFlavorException | IOException e) {
+                Log.error(log, e);
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Copies a rendered request into a Montoya ByteArray of its exact size. A
+     * message handed over whole is wrapped as it is.
+     */
+    private static final class ByteArraySink implements RawRequestSink {
+        private int length;
+        private int position;
+        private ByteArray bytes;
+
+        @Override
+        public void start(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public void write(byte[] chunk, int offset, int count) {
+            if (position == 0 && offset == 0 && count == length && chunk.length == length) {
+                bytes = ByteArray.byteArray(chunk);
+            } else {
+                if (bytes == null) bytes = ByteArray.byteArrayOfLength(length);
+                bytes.setBytes(position, offset == 0 && count == chunk.length ? chunk : Arrays.copyOfRange(chunk, offset, offset + count));
+            }
+            position += count;
+        }
+    }
+}
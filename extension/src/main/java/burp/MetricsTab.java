@@ -0,0 +1,119 @@
+package burp;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Suite tab showing the extension's Metrics: commands parsed, latency of
+ * parsing, building and sending, and failures by reason. The table refreshes
+ * every second while the tab is visible, and can be exported as CSV.
+ *
+ * @author August Detlefsen
+ */
+public class MetricsTab {
+
+    private static final int REFRESH_MILLIS = 1000;
+
+    private static final String[] COLUMNS = {"Metric", "Count", "p50 (ms)", "p99 (ms)", "Max (ms)"};
+
+    private final LogSink log;
+    private final Metrics metrics;
+
+    private final JPanel panel = new JPanel(new BorderLayout());
+    private final DefaultTableModel model = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final Timer refresher = new Timer(REFRESH_MILLIS, e -> refresh());
+
+    public MetricsTab(LogSink log, Metrics metrics) {
+        this.log = log;
+        this.metrics = metrics;
+
+        JButton export = new JButton("Export CSV...");
+        export.addActionListener(e -> exportCsv());
+        JButton reset = new JButton("Reset");
+        reset.addActionListener(e -> {
+            metrics.reset();
+            refresh();
+        });
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttons.add(export);
+        buttons.add(reset);
+
+        panel.add(buttons, BorderLayout.NORTH);
+        panel.add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
+
+        //only refresh while the tab is on screen
+        panel.addHierarchyListener(e -> {
+            if (panel.isShowing()) {
+                refresh();
+                refresher.start();
+            } else {
+                refresher.stop();
+            }
+        });
+    }
+
+    public Component uiComponent() {
+        return panel;
+    }
+
+    /**
+     * Stops refreshing. Called when the extension is unloaded.
+     */
+    public void shutdown() {
+        refresher.stop();
+    }
+
+    private void refresh() {
+        model.setRowCount(0);
+        model.addRow(new Object[]{"Commands parsed", metrics.getCommands(), null, null, null});
+        model.addRow(new Object[]{"Input characters", metrics.getInputChars(), null, null, null});
+        for (Metrics.Operation operation : Metrics.Operation.values()) {
+            LatencyHistogram latency = metrics.getLatency(operation);
+            model.addRow(new Object[]{label(operation.name()) + " latency", latency.getCount(),
+                    millis(latency.percentile(0.5)), millis(latency.percentile(0.99)), millis(latency.getMax())});
+        }
+        for (FailureReason reason : FailureReason.values()) {
+            model.addRow(new Object[]{"Failed: " + label(reason.name()), metrics.getFailures(reason), null, null, null});
+        }
+    }
+
+    private void exportCsv() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("paste-curl-metrics.csv"));
+        if (chooser.showSaveDialog(panel) != JFileChooser.APPROVE_OPTION) return;
+
+        Path file = chooser.getSelectedFile().toPath();
+        try {
+            Files.writeString(file, metrics.toCsv(), StandardCharsets.UTF_8);
+            Log.info(log, () -> "Exported metrics to " + file);
+        } catch (IOException e) {
+            Log.error(log, e);
+            JOptionPane.showMessageDialog(panel, "Unable to write " + file + ": " + e.getMessage(), BurpExtender.EXTENSION_NAME,
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * "INVALID_URL" as "Invalid url"
+     */
+    private static String label(String name) {
+        String words = name.replace('_', ' ').toLowerCase();
+        return Character.toUpperCase(words.charAt(0)) + words.substring(1);
+    }
+}
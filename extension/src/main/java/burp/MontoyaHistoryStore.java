@@ -0,0 +1,34 @@
+package burp;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.persistence.PersistedObject;
+
+/**
+ * Keeps the paste history in the extension data of the Burp project file.
+ *
+ * @author August Detlefsen
+ */
+public class MontoyaHistoryStore implements HistoryStore {
+
+    private final PersistedObject data;
+
+    public MontoyaHistoryStore(PersistedObject data) {
+        this.data = data;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        ByteArray value = data.getByteArray(key);
+        return value == null ? null : value.getBytes();
+    }
+
+    @Override
+    public void put(String key, byte[] value) {
+        data.setByteArray(key, ByteArray.byteArray(value));
+    }
+
+    @Override
+    public void remove(String key) {
+        data.deleteByteArray(key);
+    }
+}
@@ -0,0 +1,28 @@
+package burp;
+
+import burp.api.montoya.logging.Logging;
+
+/**
+ * Sends parser log output to the extension's Output and Errors panes in Burp.
+ *
+ * @author August Detlefsen
+ */
+public class MontoyaLogSink implements LogSink {
+
+    private final Logging logging;
+
+    public MontoyaLogSink(Logging logging) {
+        this.logging = logging;
+    }
+
+    @Override
+    public void output(String message) {
+        logging.logToOutput(message);
+    }
+
+    @Override
+    public void error(String message, Throwable t) {
+        if (message != null) logging.logToError(message);
+        if (t != null) logging.logToError(t);
+    }
+}
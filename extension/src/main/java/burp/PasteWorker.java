@@ -0,0 +1,137 @@
+package burp;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reads, parses and builds pasted cURL commands on a background thread. Only
+ * the final hand-off of the finished requests to Repeater runs on the Swing
+ * event dispatch thread.
+ *
+ * A progress monitor with a cancel button pops up when the work takes long
+ * enough to be noticeable.
+ *
+ * @author August Detlefsen
+ */
+public class PasteWorker extends SwingWorker<BulkParser.Result<HttpRequest>, Void> {
+
+    private static final int CANCEL_POLL_MILLIS = 200;
+
+    private final MontoyaApi api;
+    private final LogSink log;
+    private final Supplier<String> input;
+    private final Function<String, HttpRequest> parser;
+    private final boolean bulk;
+    private final ToLongFunction<HttpRequest> hasher;
+
+    private ProgressMonitor monitor;
+    private Timer cancelPoller;
+
+    /**
+     * @param input  supplies the text to parse; called on the background thread
+     * @param parser converts one cURL command into a request
+     * @param bulk   true to split the input into many commands, false to treat it as one
+     * @param hasher hashes requests to skip duplicates in bulk mode; null to keep them all
+     */
+    public PasteWorker(MontoyaApi api, LogSink log, Supplier<String> input, Function<String, HttpRequest> parser, boolean bulk,
+                       ToLongFunction<HttpRequest> hasher) {
+        this.api = api;
+        this.log = log;
+        this.input = input;
+        this.parser = parser;
+        this.bulk = bulk;
+        this.hasher = hasher;
+    }
+
+    /**
+     * Shows the (initially hidden) progress monitor and runs the worker on the
+     * given executor. Must be called on the event dispatch thread.
+     */
+    public void start(Component parent, Executor executor) {
+        monitor = new ProgressMonitor(parent, bulk ? "Parsing cURL commands" : "Parsing cURL command", null, 0, 100);
+
+        addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) monitor.setProgress((Integer) event.getNewValue());
+        });
+
+        cancelPoller = new Timer(CANCEL_POLL_MILLIS, event -> {
+            if (monitor.isCanceled()) cancel(true);
+        });
+        cancelPoller.start();
+
+        executor.execute(this);
+    }
+
+    @Override
+    protected BulkParser.Result<HttpRequest> doInBackground() {
+        String text = input.get();
+
+        if (bulk) {
+            BulkParser.Result<HttpRequest> result = BulkParser.parseAll(text, parser, BulkParser.defaultThreads(),
+                    (completed, total) -> setProgress(completed * 100 / total));
+            if (hasher != null) result.removeDuplicates(hasher, RequestDeduplicator.forRequests(result.getTotal()));
+            return result;
+        }
+
+        Log.debug(log, () -> "Parsing: " + Log.excerpt(text));
+        BulkParser.Result<HttpRequest> result = new BulkParser.Result<>(1);
+        try {
+            HttpRequest request = parser.apply(text);
+            if (request != null) {
+                result.getParsed().add(request);
+            } else {
+                result.getFailures().add(new BulkParser.Failure(0, text, "not a valid cURL command"));
+            }
+        } catch (CancellationException ce) {
+            throw ce;
+        } catch (RuntimeException re) {
+            result.getFailures().add(new BulkParser.Failure(0, text, String.valueOf(re)));
+        }
+        setProgress(100);
+        return result;
+    }
+
+    @Override
+    protected void done() {
+        cancelPoller.stop();
+        monitor.close();
+
+        if (isCancelled()) {
+            Log.info(log, () -> "Paste cancelled");
+            return;
+        }
+
+        BulkParser.Result<HttpRequest> result;
+        try {
+            result = get();
+        } catch (InterruptedException | ExecutionException e) {
+            Log.error(log, e);
+            return;
+        }
+
+        //open each HTTP request in repeater, in the order they were pasted
+        for (HttpRequest rawRequest : result.getParsed()) {
+            api.repeater().sendToRepeater(rawRequest);
+        }
+
+        for (BulkParser.Failure failure : result.getFailures()) {
+            Log.error(log, failure::toString);
+        }
+        Log.debug(log, Metrics.global()::summary);
+
+        if (bulk) {
+            Log.info(log, result::getSummary);
+            JOptionPane.showMessageDialog(api.userInterface().swingUtils().suiteFrame(), result.getSummary(), BurpExtender.EXTENSION_NAME,
+                    result.getFailures().isEmpty() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package burp;
+
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rows of the bulk send results table, one per request in the order they
+ * completed. Only modified on the event dispatch thread.
+ *
+ * @author August Detlefsen
+ */
+public class SendResultsTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {"#", "Method", "URL", "Status", "Length", "Time (ms)", "Error"};
+
+    private final List<Row> rows = new ArrayList<>();
+
+    public void add(List<Row> added) {
+        if (added.isEmpty()) return;
+
+        int first = rows.size();
+        rows.addAll(added);
+        fireTableRowsInserted(first, rows.size() - 1);
+    }
+
+    public Row getRow(int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 || column == 3 || column == 4 || column == 5 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int column) {
+        Row row = rows.get(rowIndex);
+        switch (column) {
+            case 0: return row.index + 1;
+            case 1: return row.request.method();
+            case 2: return row.request.url();
+            case 3: return row.status >= 0 ? row.status : null;
+            case 4: return row.length >= 0 ? row.length : null;
+            case 5: return row.millis;
+            case 6: return row.error;
+            default: return null;
+        }
+    }
+
+    /**
+     * The outcome of sending one request
+     */
+    public static class Row {
+        final int index;
+        final HttpRequest request;
+        final int status;
+        final int length;
+        final int millis;
+        final String error;
+
+        Row(int index, HttpRequest request, HttpRequestResponse sent, Throwable error, long nanos) {
+            this.index = index;
+            this.request = request;
+            boolean hasResponse = sent != null && sent.response() != null;
+            this.status = hasResponse ? sent.response().statusCode() : -1;
+            this.length = hasResponse ? sent.response().toByteArray().length() : -1;
+            this.millis = (int) (nanos / 1_000_000);
+            this.error = error != null ? String.valueOf(error) : hasResponse ? null : "no response";
+        }
+
+        public HttpRequest getRequest() {
+            return request;
+        }
+    }
+}
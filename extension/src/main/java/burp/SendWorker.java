@@ -0,0 +1,167 @@
+package burp;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Parses pasted cURL commands and sends the requests straight to their
+ * targets with Burp's HTTP client, instead of opening each one in Repeater.
+ *
+ * Sending is spread over a BulkSender, and results appear in a table as they
+ * complete. Double-clicking a row opens that request in Repeater.
+ *
+ * @author August Detlefsen
+ */
+public class SendWorker extends SwingWorker<String, SendResultsTableModel.Row> {
+
+    private final MontoyaApi api;
+    private final LogSink log;
+    private final Supplier<String> input;
+    private final Function<String, HttpRequest> parser;
+    private final BulkSender sender;
+    private final ToLongFunction<HttpRequest> hasher;
+
+    private final SendResultsTableModel model = new SendResultsTableModel();
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile int total;
+
+    private JLabel status;
+    private JButton stop;
+
+    /**
+     * @param input  supplies the text to parse; called on the background thread
+     * @param parser converts one cURL command into a request
+     * @param hasher hashes requests to skip duplicates; null to send them all
+     */
+    public SendWorker(MontoyaApi api, LogSink log, Supplier<String> input, Function<String, HttpRequest> parser, SendConfig config,
+                      ToLongFunction<HttpRequest> hasher) {
+        this.api = api;
+        this.log = log;
+        this.input = input;
+        this.parser = parser;
+        this.sender = new BulkSender(config);
+        this.hasher = hasher;
+    }
+
+    /**
+     * Opens the results window and runs the worker on the given executor. Must
+     * be called on the event dispatch thread.
+     */
+    public void start(Frame parent, Executor executor) {
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = table.getSelectedRow();
+                if (e.getClickCount() == 2 && row >= 0) {
+                    api.repeater().sendToRepeater(model.getRow(table.convertRowIndexToModel(row)).getRequest());
+                }
+            }
+        });
+
+        status = new JLabel("Parsing cURL commands");
+        stop = new JButton("Stop");
+        stop.addActionListener(e -> cancel(true));
+
+        JPanel footer = new JPanel(new BorderLayout());
+        footer.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        footer.add(status, BorderLayout.CENTER);
+        footer.add(stop, BorderLayout.EAST);
+
+        JDialog dialog = new JDialog(parent, BurpExtender.EXTENSION_NAME + ": send results", false);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                cancel(true);
+            }
+        });
+        dialog.add(new JScrollPane(table), BorderLayout.CENTER);
+        dialog.add(footer, BorderLayout.SOUTH);
+        dialog.setSize(900, 500);
+        dialog.setLocationRelativeTo(parent);
+        dialog.setVisible(true);
+
+        executor.execute(this);
+    }
+
+    @Override
+    protected String doInBackground() {
+        BulkParser.Result<HttpRequest> parsed = BulkParser.parseAll(input.get(), parser, BulkParser.defaultThreads());
+        for (BulkParser.Failure failure : parsed.getFailures()) {
+            Log.error(log, failure::toString);
+        }
+        if (isCancelled()) throw new CancellationException();
+        if (hasher != null) parsed.removeDuplicates(hasher, RequestDeduplicator.forRequests(parsed.getTotal()));
+
+        List<HttpRequest> requests = parsed.getParsed();
+        total = requests.size();
+        Log.info(log, () -> "Sending " + total + " requests with " + describe(sender.getConfig()));
+
+        sender.sendAll(requests, SendWorker::hostKey, api.http()::sendRequest,
+                (index, request, sent, error, nanos) -> {
+                    completed.incrementAndGet();
+                    Metrics.global().recordNanos(Metrics.Operation.SEND, nanos);
+                    if (error != null) Metrics.global().failed(FailureReason.SEND);
+                    publish(new SendResultsTableModel.Row(index, request, sent, error, nanos));
+                });
+
+        int failed = parsed.getFailures().size();
+        return "Sent " + completed.get() + " of " + total + " requests"
+                + (failed > 0 ? ", " + failed + " cURL commands could not be parsed" : "")
+                + (parsed.getDuplicates() > 0 ? ", " + parsed.getDuplicates() + " duplicates skipped" : "");
+    }
+
+    @Override
+    protected void process(List<SendResultsTableModel.Row> rows) {
+        model.add(rows);
+        status.setText("Sent " + completed.get() + " of " + total + " requests");
+    }
+
+    @Override
+    protected void done() {
+        stop.setEnabled(false);
+
+        if (isCancelled()) {
+            status.setText("Stopped after " + completed.get() + " of " + total + " requests");
+            Log.info(log, () -> "Send stopped");
+            return;
+        }
+
+        try {
+            String summary = get();
+            status.setText(summary);
+            Log.info(log, () -> summary);
+        } catch (InterruptedException | ExecutionException e) {
+            status.setText("Send failed: " + e.getCause());
+            Log.error(log, e);
+        }
+    }
+
+    private static String hostKey(HttpRequest request) {
+        HttpService service = request.httpService();
+        return service.host() + ":" + service.port();
+    }
+
+    private static String describe(SendConfig config) {
+        return config.getMaxConcurrency() + " threads, " + config.getMaxPerHost() + " per host"
+                + (config.getRequestsPerSecond() > 0 ? ", " + config.getRequestsPerSecond() + " per second" : "");
+    }
+}